@@ -0,0 +1,408 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class to validate many saved sessions in parallel, for example to re-validate saved orders 
+ * after a knowledge base change. Sessions for the same knowledge base share the knowledge 
+ * base loaded by the session manager, but are not registered as in-progress sessions. Validation 
+ * output is written as each session completes, and aggregate throughput, latency, failure and 
+ * invalid session statistics are reported at the end. Can be run from the command line.
+ * 
+ * @author adragha
+ *
+ */
+public final class BatchValidator {
+	/** Logger for batch validation logging */
+	static final Logger logger = LoggerFactory.getLogger(BatchValidator.class);
+	/** Number of sessions queued per validation thread, to bound memory for large batches */
+	private static final int QUEUED_SESSIONS_PER_THREAD = 2;
+	
+	/** Session manager to restore sessions */
+	private final SessionManager manager;
+	/** Number of validation threads */
+	private final int threadCount;
+	
+	/**
+	 * Constructor for batch validator
+	 * @param manager SessionManager to restore sessions
+	 * @param threadCount Integer number of validation threads
+	 */
+	public BatchValidator(SessionManager manager, int threadCount) {
+		this.manager = manager;
+		this.threadCount = Math.max(1, threadCount);
+	}
+	
+	/**
+	 * Method to validate all saved session JSON files in a folder
+	 * @param folder File object handle for folder of saved sessions
+	 * @param output Writer for validation output
+	 * @return BatchResult with aggregate statistics
+	 * @throws IOException
+	 */
+	public BatchResult validateFolder(File folder, Writer output) throws IOException {
+		DirectoryStream<Path> savedSessions = Files.newDirectoryStream(folder.toPath(), "*" + Constants.JSON_EXT);
+		
+		try {
+			final Iterator<Path> paths = savedSessions.iterator();
+			return validate(new Iterable<File>() {
+				@Override
+				public Iterator<File> iterator() {
+					return new Iterator<File>() {
+						@Override
+						public boolean hasNext() {
+							return paths.hasNext();
+						}
+
+						@Override
+						public File next() {
+							return paths.next().toFile();
+						}
+					};
+				}
+			}, output);
+		}
+		finally {
+			savedSessions.close();
+		}
+	}
+	
+	/**
+	 * Method to validate saved session JSON files in parallel. Files are read lazily from the iterable, 
+	 * and output for each session is written in order of completion.
+	 * @param savedSessionFiles Iterable of saved session files
+	 * @param output Writer for validation output
+	 * @return BatchResult with aggregate statistics
+	 * @throws IOException
+	 */
+	public BatchResult validate(Iterable<File> savedSessionFiles, Writer output) throws IOException {
+		BatchResult result = new BatchResult();
+		long startTime = System.nanoTime();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "BatchValidator");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		CompletionService<ValidationOutcome> completionService = new ExecutorCompletionService<ValidationOutcome>(executor);
+		
+		try {
+			Iterator<File> files = savedSessionFiles.iterator();
+			int queuedCount = 0;
+			
+			while(files.hasNext() || queuedCount > 0) {
+				// Keep a bounded number of sessions queued
+				while(files.hasNext() && queuedCount < threadCount * QUEUED_SESSIONS_PER_THREAD) {
+					final File file = files.next();
+					completionService.submit(new Callable<ValidationOutcome>() {
+						@Override
+						public ValidationOutcome call() {
+							return validateSavedSession(file);
+						}
+					});
+					queuedCount++;
+				}
+				
+				// Write next completed session
+				ValidationOutcome outcome = completionService.take().get();
+				queuedCount--;
+				result.addOutcome(outcome);
+				writeOutcome(outcome, output);
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted during batch validation", e);
+		}
+		catch(ExecutionException e) {
+			throw new IOException("Exception during batch validation", e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+			output.flush();
+		}
+		
+		result.setElapsedTime(System.nanoTime() - startTime);
+		logger.info("Batch validation: {}", result);
+		
+		return result;
+	}
+	
+	/**
+	 * Helper method to restore and validate a saved session. Never throws.
+	 * @param file File for saved session
+	 * @return ValidationOutcome with output or failure
+	 */
+	private ValidationOutcome validateSavedSession(File file) {
+		long startTime = System.nanoTime();
+		Session session = null;
+		
+		try {
+			session = manager.restoreUnregisteredSession(file.getPath());
+			session.validateSelections();
+			return new ValidationOutcome(file, session.printOutput(), session.getFailedSelectionCount() == 0, null, System.nanoTime() - startTime);
+		}
+		catch(IOException | EngineException | RuntimeException e) {
+			logger.warn("Batch validation failed for " + file.getPath(), e);
+			return new ValidationOutcome(file, null, false, e.toString(), System.nanoTime() - startTime);
+		}
+		finally {
+			if (session != null) {
+				session.prepareForDeletion();
+			}
+		}
+	}
+	
+	/**
+	 * Helper method to write validation outcome for a session
+	 * @param outcome ValidationOutcome to write
+	 * @param output Writer for validation output
+	 * @throws IOException
+	 */
+	private static void writeOutcome(ValidationOutcome outcome, Writer output) throws IOException {
+		if (outcome.failure == null) {
+			output.write("=== " + outcome.file.getName() + (outcome.valid ? "" : " INVALID") + " ===" + Constants.EOL);
+			output.write(outcome.output);
+		}
+		else {
+			output.write("=== " + outcome.file.getName() + " FAILED: " + outcome.failure + " ===" + Constants.EOL);
+		}
+	}
+	
+	/**
+	 * Command line entry point to validate a folder of saved sessions.
+	 * Arguments: folder [output file] [thread count] [properties file]
+	 * Writes validation output to the output file, or standard output if not specified,
+	 * and a summary to standard error. Exits with status 1 if any session failed or is invalid.
+	 * @param args String command line arguments
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 4) {
+			System.err.println("Usage: BatchValidator <saved session folder> [output file] [thread count] [properties file]");
+			System.exit(2);
+		}
+		
+		// Parse arguments
+		File folder = new File(args[0]);
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		SessionManager manager = args.length > 3 ? SessionManager.getManager(args[3]) : SessionManager.getManager();
+		Writer output = new BufferedWriter(new OutputStreamWriter(args.length > 1 ? new FileOutputStream(args[1]) : System.out, StandardCharsets.UTF_8));
+		
+		// Validate and report
+		BatchResult result;
+		try {
+			result = new BatchValidator(manager, threads).validateFolder(folder, output);
+		}
+		finally {
+			if (args.length > 1) {
+				output.close();
+			}
+		}
+		System.err.println(result);
+		
+		System.exit(result.getFailureCount() > 0 || result.getInvalidCount() > 0 ? 1 : 0);
+	}
+	
+	/**
+	 * Helper class for outcome of a single session validation 
+	 */
+	private static final class ValidationOutcome {
+		/** Saved session file */
+		private final File file;
+		/** Validation output. Null if failed. */
+		private final String output;
+		/** Flag to indicate if all input selections validated successfully */
+		private final boolean valid;
+		/** Failure description. Null if succeeded. */
+		private final String failure;
+		/** Latency of restore and validation in nanoseconds */
+		private final long latency;
+		
+		/**
+		 * Constructor for validation outcome
+		 * @param file File for saved session
+		 * @param output String validation output, or null if failed
+		 * @param valid Boolean true if all input selections validated successfully
+		 * @param failure String failure description, or null if succeeded
+		 * @param latency Long latency in nanoseconds
+		 */
+		ValidationOutcome(File file, String output, boolean valid, String failure, long latency) {
+			this.file = file;
+			this.output = output;
+			this.valid = valid;
+			this.failure = failure;
+			this.latency = latency;
+		}
+	}
+	
+	/**
+	 * Class for aggregate statistics of a batch validation
+	 */
+	public static final class BatchResult {
+		/** Latencies of session validations in nanoseconds */
+		private long[] latencies = new long[64];
+		/** Number of session validations */
+		private int validationCount = 0;
+		/** Number of failed session validations */
+		private int failureCount = 0;
+		/** Number of sessions validated with any failed input selection */
+		private int invalidCount = 0;
+		/** Elapsed time of batch in nanoseconds */
+		private long elapsedTime = 0;
+		/** Flag to indicate if latencies are sorted */
+		private boolean sorted = false;
+		
+		/**
+		 * Package constructor for batch result
+		 */
+		BatchResult() {
+		}
+		
+		/**
+		 * Helper method to add outcome of a session validation
+		 * @param outcome ValidationOutcome to add
+		 */
+		private void addOutcome(ValidationOutcome outcome) {
+			if (validationCount == latencies.length) {
+				latencies = Arrays.copyOf(latencies, latencies.length * 2);
+			}
+			latencies[validationCount++] = outcome.latency;
+			sorted = false;
+			
+			if (outcome.failure != null) {
+				failureCount++;
+			}
+			else if (!outcome.valid) {
+				invalidCount++;
+			}
+		}
+		
+		/**
+		 * Helper method to set elapsed time of batch
+		 * @param elapsedTime Long elapsed time in nanoseconds
+		 */
+		private void setElapsedTime(long elapsedTime) {
+			this.elapsedTime = elapsedTime;
+		}
+		
+		/**
+		 * Method to get number of session validations
+		 * @return Integer count
+		 */
+		public int getValidationCount() {
+			return validationCount;
+		}
+		
+		/**
+		 * Method to get number of failed session validations
+		 * @return Integer count
+		 */
+		public int getFailureCount() {
+			return failureCount;
+		}
+		
+		/**
+		 * Method to get number of sessions validated with any failed input selection. 
+		 * Sessions whose validation failed are not included.
+		 * @return Integer count
+		 */
+		public int getInvalidCount() {
+			return invalidCount;
+		}
+		
+		/**
+		 * Method to get elapsed time of batch 
+		 * @return Long time in milliseconds
+		 */
+		public long getElapsedTime() {
+			return TimeUnit.NANOSECONDS.toMillis(elapsedTime);
+		}
+		
+		/**
+		 * Method to get throughput of batch
+		 * @return Double session validations per second
+		 */
+		public double getThroughput() {
+			return elapsedTime > 0 ? validationCount / (elapsedTime / 1e9) : 0;
+		}
+		
+		/**
+		 * Method to get a latency percentile of session validations using the nearest rank method
+		 * @param percentile Double percentile between 0 and 100
+		 * @return Double latency in milliseconds, or zero if no sessions were validated
+		 */
+		public double getLatencyPercentile(double percentile) {
+			if (validationCount == 0) {
+				return 0;
+			}
+			
+			if (!sorted) {
+				Arrays.sort(latencies, 0, validationCount);
+				sorted = true;
+			}
+			
+			int rank = (int) Math.ceil(percentile / 100 * validationCount);
+			return latencies[Math.min(validationCount, Math.max(1, rank)) - 1] / 1e6;
+		}
+		
+		/**
+		 * Method to get summary of batch statistics
+		 * @return String summary
+		 */
+		@Override
+		public String toString() {
+			return String.format("%d sessions, %d failed, %d invalid, %d ms, %.1f sessions/s, latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+					validationCount, failureCount, invalidCount, getElapsedTime(), getThroughput(), 
+					getLatencyPercentile(50), getLatencyPercentile(90), getLatencyPercentile(99), getLatencyPercentile(100));
+		}
+	}
+}
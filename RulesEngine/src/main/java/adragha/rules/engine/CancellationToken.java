@@ -0,0 +1,101 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class for a cooperative cancellation token with an optional deadline. Session validation 
+ * checks the token periodically and stops with a {@link ValidationCancelledException} once 
+ * the token is cancelled or its deadline passes. A token may be cancelled from any thread.
+ * 
+ * @author adragha
+ *
+ */
+public final class CancellationToken {
+	/** Flag set when token is cancelled explicitly */
+	private volatile boolean cancelled = false;
+	/** Deadline as a System.nanoTime() value. Only used if hasDeadline is set. */
+	private final long deadline;
+	/** Flag to indicate if token has a deadline */
+	private final boolean hasDeadline;
+	
+	/**
+	 * Constructor for cancellation token without a deadline
+	 */
+	public CancellationToken() {
+		this.deadline = 0;
+		this.hasDeadline = false;
+	}
+	
+	/**
+	 * Private constructor for cancellation token with a deadline
+	 * @param deadline Long deadline as a System.nanoTime() value
+	 */
+	private CancellationToken(long deadline) {
+		this.deadline = deadline;
+		this.hasDeadline = true;
+	}
+	
+	/**
+	 * Method to create a cancellation token with a deadline relative to now
+	 * @param timeout Long time until deadline
+	 * @param unit TimeUnit of timeout
+	 * @return CancellationToken created
+	 */
+	public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+		return new CancellationToken(System.nanoTime() + unit.toNanos(timeout));
+	}
+	
+	/**
+	 * Thread-safe method to cancel token
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * Method to check if token was cancelled explicitly
+	 * @return True if cancelled, false otherwise
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * Method to check if token deadline has passed
+	 * @return True if deadline passed, false otherwise or if token has no deadline
+	 */
+	public boolean isDeadlineExceeded() {
+		return hasDeadline && System.nanoTime() - deadline >= 0;
+	}
+	
+	/**
+	 * Method to check if validation should stop, i.e., if token was cancelled or its deadline passed
+	 * @return True if validation should stop, false otherwise
+	 */
+	public boolean isCancellationRequested() {
+		return cancelled || isDeadlineExceeded();
+	}
+}
@@ -55,6 +55,47 @@ public final class Constants {
 	public static final String SAVE_PATH = "SAVE_PATH";
 	/** Environment property name for path to core engine java archive */
 	public static final String ENGINE_JAR_PATH = "ENGINE_JAR_PATH";
+	/** Environment property name for path to compiled knowledge base snapshots. Snapshots are not used if not specified. */
+	public static final String SNAPSHOT_PATH = "SNAPSHOT_PATH";
+	
+	/** Environment property name for maximum number of threads used to parse model files. Defaults to available processors. */
+	public static final String LOAD_THREADS = "LOAD_THREADS";
+	/** Environment property name to disable replay of validations of identical input selections if false. Enabled if not specified. */
+	public static final String SELECTION_MEMO = "SELECTION_MEMO";
+	/** Environment property name for memory budget of loaded knowledge bases in megabytes. Least recently used idle knowledge bases are unloaded beyond it. Unlimited if not specified. */
+	public static final String KNOWLEDGE_BASE_MEMORY = "KNOWLEDGE_BASE_MEMORY";
+	
+	/** Environment property name for idle time to live of sessions in seconds. Idle sessions are not evicted if not specified. */
+	public static final String SESSION_TTL = "SESSION_TTL";
+	/** Environment property name for maximum number of sessions. Least recently accessed sessions are evicted beyond it. Unlimited if not specified. */
+	public static final String MAX_SESSIONS = "MAX_SESSIONS";
+	/** Environment property name for maximum number of reset sessions pooled for re-use per knowledge base. Sessions are not pooled if not specified. */
+	public static final String POOLED_SESSIONS = "POOLED_SESSIONS";
+	/** Environment property name for maximum number of validated sessions cached by knowledge base version and input selections. Results are not cached if not specified. */
+	public static final String RESULT_CACHE_SIZE = "RESULT_CACHE_SIZE";
+	/** Environment property name for time to live of cached validation results in seconds. Results do not expire if not specified. */
+	public static final String RESULT_CACHE_TTL = "RESULT_CACHE_TTL";
+	
+	/** Environment property name for asynchronous validation executor type: POOL (default), FORK_JOIN or VIRTUAL */
+	public static final String VALIDATION_EXECUTOR = "VALIDATION_EXECUTOR";
+	/** Environment property name for number of asynchronous validation threads for POOL and FORK_JOIN executors. Defaults to available processors. */
+	public static final String VALIDATION_THREADS = "VALIDATION_THREADS";
+	/** Validation executor type for bounded thread pool */
+	public static final String POOL_EXECUTOR = "POOL";
+	/** Validation executor type for fork/join pool */
+	public static final String FORK_JOIN_EXECUTOR = "FORK_JOIN";
+	/** Validation executor type for virtual threads. Falls back to bounded thread pool on JDKs without virtual threads. */
+	public static final String VIRTUAL_EXECUTOR = "VIRTUAL";
+	
+	/** Environment property name for maximum concurrent validations per knowledge base. Unlimited if not specified. Suffix with "." and a knowledge base name to override for one knowledge base. */
+	public static final String MAX_CONCURRENT_VALIDATIONS = "MAX_CONCURRENT_VALIDATIONS";
+	/** Environment property name for maximum validations per knowledge base waiting for admission. Beyond it validations are rejected. Defaults to zero for immediate rejection. */
+	public static final String MAX_QUEUED_VALIDATIONS = "MAX_QUEUED_VALIDATIONS";
+	/** Environment property name for maximum wait for validation admission in milliseconds. Waits without limit if not specified. */
+	public static final String ADMISSION_TIMEOUT = "ADMISSION_TIMEOUT";
+	
+	/** Compiled knowledge base snapshot file extension */
+	public static final String SNAPSHOT_EXT = ".kbs";
 	
 	/** Empty string */
 	public static final String EMPTY = "";
@@ -103,6 +144,8 @@ public final class Constants {
 	public static final String PART_NUMBER = "partNumber";	
 	/** Model property for maximum quantity allowed */
 	public static final String MAXIMUM = "maximum";
+	/** Model property for price, minimized by price optimization */
+	public static final String PRICE = "price";
 	/** Model property to specify validation order. Lower number is validated first. */
 	public static final String VALIDATION_ORDER = "validationOrder";
 	/** Model property for session object validation status */
@@ -29,6 +29,12 @@ import java.util.List;
  * Interface that must be implemented by all rule classes.
  * A rule is used to determine the valid options to satisfy
  * a needer object
+ * <p>
+ * A knowledge base creates a single instance per rule class, which is shared by all 
+ * sessions on that knowledge base and may be called concurrently from several threads. 
+ * Implementations must therefore be stateless and thread-safe: keep per-call state in 
+ * local variables, treat model data as read-only and return a new list rather than 
+ * modifying the candidate list passed in.
  * 
  * @author adragha
  *
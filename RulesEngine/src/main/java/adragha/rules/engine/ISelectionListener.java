@@ -0,0 +1,47 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.util.List;
+
+/**
+ * Interface for listeners notified as each input selection of a session is resolved
+ * during validation, so results can be consumed before validation of all selections
+ * completes. Listeners are called on the validating thread, and must not modify the
+ * session.
+ * 
+ * @author adragha
+ *
+ */
+public interface ISelectionListener {
+	/**
+	 * Method called when validation of an input selection session object is resolved
+	 * 
+	 * @param session Session being validated
+	 * @param selection Session object of input selection
+	 * @param successful true if all needers of the selection are satisfied, false if the selection failed
+	 * @param createdObjects Unmodifiable list of provider parent session objects created to satisfy the selection, in order of creation
+	 */
+	public void selectionValidated(Session session, SessionObject selection, boolean successful, List<SessionObject> createdObjects);
+}
@@ -0,0 +1,42 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+/**
+ * Interface for listeners streamed alternative solutions of a session as they are found 
+ * by {@link Session#enumerateSolutions(int, ISolutionListener, CancellationToken)}. 
+ * Listeners are called on the enumerating thread, and must not modify the session.
+ * 
+ * @author adragha
+ *
+ */
+public interface ISolutionListener {
+	/**
+	 * Method called when a solution distinct from the solutions found before is found
+	 * 
+	 * @param session Session being enumerated
+	 * @param solution SolutionSnapshot of solution found
+	 */
+	public void solutionFound(Session session, SolutionSnapshot solution);
+}
@@ -23,10 +23,18 @@
  */
 package adragha.rules.engine;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,19 +42,33 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import adragha.rules.engine.comparator.ModelClassIdComparator;
 import adragha.rules.engine.comparator.ModelObjectValidationOrderComparator;
 
 /**
  * Class to represent model data in memory. The stored data is in JSON format.
  * Model data consists of ModelClass and ModelObject instances.
+ * <p>
+ * Thread-safety: a knowledge base is shared by all sessions created on it, together 
+ * with a single IRule instance per rule class. It is mutated only while being constructed 
+ * and is finalized at the end of the constructor, after which all its collections, model 
+ * classes and model objects are immutable. Instances are safely published to other threads 
+ * by the concurrent maps and futures of SessionManager, so no further synchronization is 
+ * needed to read them.
  *   
  * @author adragha
  *
@@ -55,9 +77,23 @@ public final class KnowledgeBase {
 	/** Logger for model knowledge base instance logging */
 	static final Logger logger = LoggerFactory.getLogger(KnowledgeBase.class);
 	
+	/** Estimated bytes of object header and fields per model class or model object */
+	private static final int ESTIMATED_OBJECT_SIZE = 64;
+	/** Estimated bytes per reference */
+	private static final int ESTIMATED_REFERENCE_SIZE = 8;
+	/** Estimated bytes per hash map entry, excluding key and value */
+	private static final int ESTIMATED_ENTRY_SIZE = 40;
+	/** Estimated bytes of a boxed number or other scalar value */
+	private static final int ESTIMATED_SCALAR_SIZE = 16;
+	/** Estimated bytes of a string or list excluding its characters or elements */
+	private static final int ESTIMATED_CONTAINER_SIZE = 40;
+	
 	/** Name of model knowledge base */
 	private String name = null;
 	
+	/** Version of model knowledge base. Later reloads of the same knowledge base have higher versions. */
+	private long version = 1;
+	
 	/** Map of model classes by ID */
 	private Map<String, ModelClass> modelClasses = new HashMap<String, ModelClass>();
 	
@@ -67,6 +103,49 @@ public final class KnowledgeBase {
 	/** Map of java classes for rules by qualified java class name */
 	private Map<String, IRule> modelRuleClasses = new HashMap<String, IRule>();
 	
+	/** Array of model classes by dense class index */
+	private ModelClass[] indexedClasses = null;
+	
+	/** Unmodifiable list of model objects by dense object index */
+	private List<ModelObject> indexedObjects = null;
+	
+	/** Cached base model class from which all parent model objects are derived */
+	private ModelClass baseObjectClass = null;
+	
+	/** Fingerprint of JSON model sources the knowledge base is loaded from, or null until needed */
+	private volatile Long sourceFingerprint = null;
+	
+	/** Path to engine JAR file the base and common models are loaded from, or empty string */
+	private String sourceEngineJarPath = "";
+	
+	/** Path to model folder the selected knowledge base is loaded from */
+	private String sourceModelPath = null;
+	
+	/** Flag to indicate if knowledge base has been finalized and is immutable */
+	private boolean finalized = false;
+	
+	/** Estimated heap footprint of the model in bytes, computed when finalized */
+	private long estimatedSize = 0;
+	
+	/** Time of last access through the session manager in milliseconds */
+	private volatile long lastAccessTime = System.currentTimeMillis();
+	
+	/** Flag to indicate if knowledge base was loaded from a compiled snapshot */
+	private boolean loadedFromSnapshot = false;
+	
+	/** Maximum number of threads used to parse model files of a folder */
+	private int loadThreadCount = 1;
+	
+	/** Flag to indicate if sessions replay validations of identical input selections */
+	private boolean selectionMemoEnabled = true;
+	
+	/** Number of model files parsed from JSON */
+	private final AtomicInteger modelParseFileCount = new AtomicInteger();
+	/** Total bytes of model JSON parsed */
+	private final AtomicLong modelParseBytes = new AtomicLong();
+	/** Total time spent parsing model JSON in nanoseconds, summed over parse threads */
+	private final AtomicLong modelParseNanos = new AtomicLong();
+	
 	/** Re-usable comparator for default order of ModelObjects by object ID  */
 	private final ModelObjectValidationOrderComparator modelObjectValidationOrderComparator = new ModelObjectValidationOrderComparator();
 	
@@ -77,11 +156,62 @@ public final class KnowledgeBase {
 	 * @throws EngineException
 	 */
 	KnowledgeBase(String name, Properties properties) throws EngineException {
-		// Set name
+		this(name, properties, 1);
+	}
+	
+	/**
+	 * Constructor to create a specific version of model knowledge base
+	 * @param name String name of model knowledge base
+	 * @param properties Program properties to determine data load paths
+	 * @param version Long version of knowledge base
+	 * @throws EngineException
+	 */
+	KnowledgeBase(String name, Properties properties, long version) throws EngineException {
+		// Set name and version
 		this.name = name;
+		this.version = version;
 		
-		// Load base model and common model from Engine JAR if specified
+		// Set model file parse parallelism
+		try {
+			loadThreadCount = Math.max(1, Integer.parseInt(properties.getProperty(Constants.LOAD_THREADS, 
+										String.valueOf(Runtime.getRuntime().availableProcessors())).trim()));
+		}
+		catch(NumberFormatException e) {
+			throw new EngineException("Invalid value for property " + Constants.LOAD_THREADS, name);
+		}
+		
+		// Set replay of validations of identical input selections
+		String selectionMemo = properties.getProperty(Constants.SELECTION_MEMO, Constants.TRUE).trim();
+		if (!Constants.TRUE.equalsIgnoreCase(selectionMemo) && !Constants.FALSE.equalsIgnoreCase(selectionMemo)) {
+			throw new EngineException("Invalid value for property " + Constants.SELECTION_MEMO, name);
+		}
+		selectionMemoEnabled = Constants.TRUE.equalsIgnoreCase(selectionMemo);
+		
+		// Remember model source paths, so sources can be fingerprinted when a snapshot is read or written
 		String engineJarPath = properties.getProperty(Constants.ENGINE_JAR_PATH, "");
+		sourceEngineJarPath = engineJarPath;
+		sourceModelPath = properties.getProperty(Constants.MODEL_PATH);
+		
+		// Load from compiled snapshot if one is specified and current, falling back to JSON if it cannot be read.
+		// Sources are only fingerprinted before loading if a snapshot is specified, since hashing reads every source.
+		File snapshotFile = getSnapshotFile(name, properties);
+		if (snapshotFile != null) {
+			sourceFingerprint = computeSourceFingerprint(name, engineJarPath, sourceModelPath);
+			try {
+				KnowledgeBaseSnapshot snapshot = KnowledgeBaseSnapshot.open(snapshotFile, name, sourceFingerprint);
+				if (snapshot != null) {
+					loadSnapshot(snapshot);
+					finalizeModel();
+					return;
+				}
+			}
+			catch(EngineException | RuntimeException e) {
+				logger.warn("Ignoring unreadable snapshot {} for knowledge base {}: {}", snapshotFile.getPath(), name, e.getMessage());
+				clearModel();
+			}
+		}
+		
+		// Load base model and common model from Engine JAR if specified
 		if(engineJarPath.length() > 0) {			
 			loadModelFromJar(engineJarPath, Constants.BASE_MODEL_FOLDER);
 			loadModelFromJar(engineJarPath, Constants.COMMON_MODEL_FOLDER);			
@@ -95,12 +225,160 @@ public final class KnowledgeBase {
 		// Load selected knowledge base
 		// NOTE: Will need re-factoring similar to above code block for models packaged in a JAR  
 		loadModel(new File(properties.getProperty(Constants.MODEL_PATH) + File.separator + name));
+		logger.info("Parsed {} model files ({} bytes) for knowledge base {} in {} ms", getModelParseFileCount(), getModelParseBytes(), name, getModelParseTime() / 1000000);
 					
 		// Post-process model classes to setup class hierarchy references between ModelClass instances
 		setupClassHierarchy();
 		
+		// Assign dense indexes to model classes and objects
+		indexModel();
+		
 		// Cache knowledge base rules
 		cacheRules();
+		
+		// Freeze loaded model before the knowledge base is shared
+		finalizeModel();
+	}
+	
+	/**
+	 * Helper method to load the fully resolved model from a compiled snapshot instead of JSON data
+	 * @param snapshot KnowledgeBaseSnapshot opened for reading
+	 * @throws EngineException
+	 */
+	private void loadSnapshot(KnowledgeBaseSnapshot snapshot) throws EngineException {
+		// Add model classes and objects
+		for(ModelClass modelClass : snapshot.readModelClasses()) {
+			addModelClass(modelClass);
+		}
+		
+		// Setup class hierarchy, indexes and rule classes
+		setupClassHierarchy();
+		indexModel();
+		createRuleClasses();
+		
+		// Cache pre-computed rule applicability
+		snapshot.readApplicableRules(this);
+		
+		loadedFromSnapshot = true;
+		logger.info("Loaded knowledge base {} from compiled snapshot", getName());
+	}
+	
+	/**
+	 * Helper method to discard a partially loaded model before loading it again
+	 */
+	private void clearModel() {
+		modelClasses.clear();
+		modelObjects.clear();
+		modelRuleClasses.clear();
+		indexedClasses = null;
+		indexedObjects = null;
+		baseObjectClass = null;
+		loadedFromSnapshot = false;
+	}
+	
+	/**
+	 * Helper method to get compiled snapshot file for a knowledge base
+	 * @param name String name of knowledge base
+	 * @param properties Program properties to determine snapshot path
+	 * @return File for snapshot, or null if snapshots are not used
+	 */
+	static File getSnapshotFile(String name, Properties properties) {
+		String snapshotPath = properties.getProperty(Constants.SNAPSHOT_PATH, "");
+		
+		if (snapshotPath.length() > 0) {
+			return new File(snapshotPath, name + Constants.SNAPSHOT_EXT);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Package method to compute a fingerprint of the JSON model sources of a knowledge base
+	 * @param name String name of knowledge base
+	 * @param properties Program properties to determine data load paths
+	 * @return Long fingerprint value
+	 */
+	static long computeSourceFingerprint(String name, Properties properties) {
+		return computeSourceFingerprint(name, properties.getProperty(Constants.ENGINE_JAR_PATH, ""), properties.getProperty(Constants.MODEL_PATH));
+	}
+	
+	/**
+	 * Helper method to compute a fingerprint of the JSON model sources from their names and contents, 
+	 * so a snapshot is stale whenever a source is added, removed or edited
+	 * @param name String name of knowledge base
+	 * @param engineJarPath String path to engine JAR file, or empty string
+	 * @param modelPath String path to model folder of knowledge bases
+	 * @return Long fingerprint value
+	 */
+	private static long computeSourceFingerprint(String name, String engineJarPath, String modelPath) {
+		List<File> sources = new ArrayList<File>();
+		
+		// Base and common models
+		if (engineJarPath.length() > 0) {
+			sources.add(new File(engineJarPath));
+		}
+		else {
+			addSourceFiles(new File(Constants.DATA_MODEL_PATH + Constants.BASE_MODEL_FOLDER), sources);
+			addSourceFiles(new File(Constants.DATA_MODEL_PATH + Constants.COMMON_MODEL_FOLDER), sources);
+		}
+		
+		// Selected knowledge base
+		addSourceFiles(new File(modelPath + File.separator + name), sources);
+		
+		// Compute 64-bit FNV-1a hash over source names and contents
+		long hash = 0xcbf29ce484222325L;
+		for(File source : sources) {
+			hash = hashBytes(hash, (source.getName() + ";").getBytes(StandardCharsets.UTF_8), -1);
+			try (InputStream in = new FileInputStream(source)) {
+				byte[] bytes = new byte[8192];
+				int count;
+				while((count = in.read(bytes)) > 0) {
+					hash = hashBytes(hash, bytes, count);
+				}
+			}
+			catch(IOException e) {
+				// Unreadable source fails the JSON load as well, so just make the fingerprint differ
+				hash = hashBytes(hash, ("?" + source.length() + ":" + source.lastModified()).getBytes(StandardCharsets.UTF_8), -1);
+			}
+		}
+		
+		return hash;
+	}
+	
+	/**
+	 * Helper method to continue a 64-bit FNV-1a hash with bytes
+	 * @param hash Long hash so far
+	 * @param bytes Byte array to add
+	 * @param count Integer count of bytes to add, or -1 for all
+	 * @return Long hash after adding bytes
+	 */
+	private static long hashBytes(long hash, byte[] bytes, int count) {
+		int length = count < 0 ? bytes.length : count;
+		
+		for(int i=0; i < length; i++) {
+			hash ^= (bytes[i] & 0xff);
+			hash *= 0x100000001b3L;
+		}
+		
+		return hash;
+	}
+	
+	/**
+	 * Helper method to add the JSON files in a model folder, in name order, to a source list
+	 * @param baseFolder File object handle for model folder
+	 * @param sources Modifiable list of source files updated with the result
+	 */
+	private static void addSourceFiles(File baseFolder, List<File> sources) {
+		File[] allFiles = baseFolder.listFiles();
+		
+		if (allFiles != null) {
+			Arrays.sort(allFiles);
+			for(File file : allFiles) {
+				if (file.getName().endsWith(Constants.JSON_EXT)) {
+					sources.add(file);
+				}
+			}
+		}
 	}
 
 	/**
@@ -109,29 +387,106 @@ public final class KnowledgeBase {
 	 * @throws EngineException
 	 */
 	private void loadModel(File baseFolder) throws EngineException {
-		// Get all files in model folder (
+		// Get all files in model folder in name order for a deterministic merge
 		File[] allFiles = baseFolder.listFiles();
 		
 		if (allFiles != null) {
+			Arrays.sort(allFiles);
+			List<File> jsonFiles = new ArrayList<File>();
+			
 			// Iterate over all files
 			for(int i=0; i < allFiles.length; i++) {
 				String filename = allFiles[i].getName();
 				// Load each JSON file as a separate ModelClass instance
 				if (filename.endsWith(Constants.JSON_EXT)) {
-					try {
-						loadModelClass(FileUtils.readFileToString(allFiles[i], Constants.UTF_8));
-					} 
-					catch (IOException e) {
-						logger.error("Unable to load JSON file " +  baseFolder.getName() + "\\" + filename +  " during model knowledge base load.", e);
-					}
+					jsonFiles.add(allFiles[i]);
 				}
 				else {
 					logger.warn("Ignoring non-JSON file {} during model knowledge base load.", baseFolder.getName() + "\\" + filename);
 				}
 			}
+			
+			// Parse files in parallel, then add model classes sequentially in file name order
+			for(ModelClass modelClass : parseModelFiles(baseFolder, jsonFiles)) {
+				if (modelClass != null) {
+					addModelClass(modelClass);
+				}
+			}
 		}	
 	}
 	
+	/**
+	 * Helper method to parse model JSON files on a bounded pool of threads
+	 * @param baseFolder File object handle for model folder
+	 * @param jsonFiles List of JSON files in folder
+	 * @return List of ModelClass parsed, in order of JSON files. Contains null for files that could not be read.
+	 * @throws EngineException
+	 */
+	private List<ModelClass> parseModelFiles(final File baseFolder, List<File> jsonFiles) throws EngineException {
+		List<ModelClass> parsedClasses = new ArrayList<ModelClass>(jsonFiles.size());
+		int threadCount = Math.min(loadThreadCount, jsonFiles.size());
+		
+		// Parse on this thread if there is nothing to parallelize
+		if (threadCount <= 1) {
+			for(File jsonFile : jsonFiles) {
+				parsedClasses.add(parseModelFile(baseFolder, jsonFile));
+			}
+			return parsedClasses;
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			// Submit parse task for each file
+			List<Future<ModelClass>> parseTasks = new ArrayList<Future<ModelClass>>(jsonFiles.size());
+			for(final File jsonFile : jsonFiles) {
+				parseTasks.add(executor.submit(new Callable<ModelClass>() {
+					@Override
+					public ModelClass call() throws EngineException {
+						return parseModelFile(baseFolder, jsonFile);
+					}
+				}));
+			}
+			
+			// Collect results in submission order
+			for(Future<ModelClass> parseTask : parseTasks) {
+				parsedClasses.add(parseTask.get());
+			}
+		}
+		catch(ExecutionException e) {
+			if (e.getCause() instanceof EngineException) {
+				throw (EngineException) e.getCause();
+			}
+			throw new EngineException(String.valueOf(e.getCause()), getName());
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngineException("Interrupted during model knowledge base load", getName());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		
+		return parsedClasses;
+	}
+	
+	/**
+	 * Helper method to parse a model JSON file into a ModelClass instance. Thread-safe.
+	 * @param baseFolder File object handle for model folder
+	 * @param jsonFile File object handle for JSON file
+	 * @return ModelClass parsed, or null if the file could not be read
+	 * @throws EngineException
+	 */
+	private ModelClass parseModelFile(File baseFolder, File jsonFile) throws EngineException {
+		// Stream is closed on exit, including when parsing fails
+		try (InputStream input = new FileInputStream(jsonFile)) {
+			return parseModelClass(input, baseFolder.getName() + "\\" + jsonFile.getName());
+		}
+		catch (IOException e) {
+			logger.error("Unable to load JSON file " +  baseFolder.getName() + "\\" + jsonFile.getName() +  " during model knowledge base load.", e);
+			return null;
+		}
+	}
+	
 	/**
 	 * Helper method to load the base and common models from the packaged engine JAR
 	 * @param engineJarPath String path to engine JAR file
@@ -156,9 +511,12 @@ public final class KnowledgeBase {
 				   ) 
 				{
 					InputStream input = jar.getInputStream(entry);
-					String dataString = IOUtils.toString(input, Constants.UTF_8); 
-					loadModelClass(dataString);
-				    input.close();				    
+					try {
+						addModelClass(parseModelClass(input, entry.getName()));
+					}
+					finally {
+						input.close();
+					}
 				}
 			}
 			
@@ -170,29 +528,54 @@ public final class KnowledgeBase {
 	}
 
 	/**
-	 * Helper method to load a model class from the class JSON data
-	 * @param fileJson String JSON data for class
+	 * Helper method to parse a model class by streaming the class JSON data. Records parse 
+	 * time and bytes. Does not close the input stream. Thread-safe.
+	 * @param input InputStream of JSON data for class
+	 * @param sourceName String name of model file for error reporting
+	 * @return ModelClass parsed
 	 * @throws EngineException
 	 */
-	private void loadModelClass(String fileJson) throws EngineException {
+	private ModelClass parseModelClass(InputStream input, String sourceName) throws EngineException {
 		try {
-			// Create ModelClass from JSON (also loads corresponding ModelObject instances) 
-			ModelClass modelClass = (ModelClass) Util.getObjectFromJson(fileJson, ModelClass.class);
-			// Setup and initialize
-			modelClass.setKnowledgeBase(this);
-			modelClass.initialize();
-			// Add to model knowledge base map
-			modelClasses.put(modelClass.getClassId(), modelClass);
+			CountingInputStream countingInput = new CountingInputStream(input);
+			long startTime = System.nanoTime();
 			
-			// Iterate over the class model objects 
-			for(ModelObject modelObject : modelClass.getModelObjects()) {
-				// Initialize model objects and add to model knowledge base map
-				modelObject.initialize(modelClass);
-				modelObjects.put(modelObject.getObjectId(), modelObject);
+			// Create ModelClass from JSON (also loads corresponding ModelObject instances) 
+			ModelClass modelClass = Util.getObjectFromJson(new BufferedReader(new InputStreamReader(countingInput, StandardCharsets.UTF_8)), ModelClass.class);
+			if (modelClass == null) {
+				throw new EngineException("Empty model file", getName());
 			}
+			
+			// Record parse statistics
+			long parseTime = System.nanoTime() - startTime;
+			modelParseFileCount.incrementAndGet();
+			modelParseBytes.addAndGet(countingInput.getByteCount());
+			modelParseNanos.addAndGet(parseTime);
+			logger.debug("Parsed model file {} ({} bytes) in {} us", sourceName, countingInput.getByteCount(), parseTime / 1000);
+			
+			return modelClass;
 		}
 		catch(Exception e) {
-			throw new EngineException(e.getMessage(), getName());
+			throw new EngineException("Exception parsing model file " + sourceName + ": " + e.getMessage(), getName());
+		}
+	}
+	
+	/**
+	 * Helper method to initialize a model class created from JSON or snapshot data and add it to the knowledge base 
+	 * @param modelClass ModelClass object with corresponding ModelObject instances
+	 */
+	private void addModelClass(ModelClass modelClass) {
+		// Setup and initialize
+		modelClass.setKnowledgeBase(this);
+		modelClass.initialize();
+		// Add to model knowledge base map
+		modelClasses.put(modelClass.getClassId(), modelClass);
+		
+		// Iterate over the class model objects 
+		for(ModelObject modelObject : modelClass.getModelObjects()) {
+			// Initialize model objects and add to model knowledge base map
+			modelObject.initialize(modelClass);
+			modelObjects.put(modelObject.getObjectId(), modelObject);
 		}
 	}
 
@@ -206,35 +589,51 @@ public final class KnowledgeBase {
 		}
 	}
 	
+	/**
+	 * Helper method to assign dense indexes to model classes and model objects in pre-order 
+	 * of the class hierarchy so descendant checks and lookups can use intervals and arrays
+	 * @throws EngineException
+	 */
+	private void indexModel() throws EngineException {
+		List<ModelClass> classList = new ArrayList<ModelClass>(modelClasses.size());
+		List<ModelObject> objectList = new ArrayList<ModelObject>(modelObjects.size());
+		
+		// Index each class hierarchy starting from its root, in a deterministic order
+		List<ModelClass> rootClasses = new ArrayList<ModelClass>();
+		for(ModelClass modelClass : modelClasses.values()) {
+			if (modelClass.getParentClass() == null) {
+				rootClasses.add(modelClass);
+			}
+		}
+		ModelClassIdComparator modelClassIdComparator = new ModelClassIdComparator();
+		Collections.sort(rootClasses, modelClassIdComparator);
+		for(ModelClass rootClass : rootClasses) {
+			rootClass.indexHierarchy(classList, objectList, modelClassIdComparator);
+		}
+		
+		// Classes not reachable from a root are part of a cycle
+		if (classList.size() != modelClasses.size()) {
+			throw new EngineException("Cyclic class hierarchy in model knowledge base", getName());
+		}
+		
+		indexedClasses = classList.toArray(new ModelClass[classList.size()]);
+		indexedObjects = Collections.unmodifiableList(Arrays.asList(objectList.toArray(new ModelObject[objectList.size()])));
+		baseObjectClass = getModelClass(Constants.BASE_OBJECT_CLASS);
+	}
+	
 	/**
 	 * Helper method to create a re-usable java object for each rule class
 	 * and cache potentially applicable rule data on model objects
 	 * @throws EngineException
 	 */
 	private void cacheRules() throws EngineException {
+		// Create re-usable java rule objects for each rule class
+		createRuleClasses();
+		
 		// Get all ModelClass instances derived from the BaseRule model class
 		ModelClass baseRuleClass = getModelClass(Constants.BASE_RULE_CLASS);		
 		List<ModelObject> rules = new ArrayList<ModelObject>();			
 		baseRuleClass.computeRecursiveDescendantData(rules);
-
-		// Create re-usable java rule objects for each rule class
-		List<ModelClass> ruleClasses = new ArrayList<ModelClass>(); 
-		baseRuleClass.computeRecursiveDescendantClasses(ruleClasses);				
-		ruleClasses.remove(baseRuleClass); // Remove abstract base class itself
-		
-		for(ModelClass ruleClass : ruleClasses) {
-			String ruleClassName = (String) ruleClass.getPropertyValue(Constants.RULE_JAVA_CLASS);
-			try {
-				IRule dbRule = (IRule) Class.forName(ruleClassName).newInstance();
-				
-				if(!modelRuleClasses.containsKey(ruleClassName)) {
-					modelRuleClasses.put(ruleClassName, dbRule);
-				}
-			}
-			catch(Exception e) {
-				throw new EngineException("Invalid qualified java class for model rule with class ID: " + ruleClass.getClassId(), getName());				
-			}
-		}
 		
 		// Create basic applicability cache	on model objects	
 		for(ModelObject rule : rules) {			
@@ -268,6 +667,211 @@ public final class KnowledgeBase {
 			modelObject.makeApplicableRulesUnmodifiable(getModelObjectValidationOrderComparator());
 		}
 	}
+	
+	/**
+	 * Helper method to create a re-usable java object for each rule class
+	 * @throws EngineException
+	 */
+	private void createRuleClasses() throws EngineException {
+		// Get all ModelClass instances derived from the BaseRule model class
+		ModelClass baseRuleClass = getModelClass(Constants.BASE_RULE_CLASS);		
+		List<ModelClass> ruleClasses = new ArrayList<ModelClass>(); 
+		baseRuleClass.computeRecursiveDescendantClasses(ruleClasses);				
+		ruleClasses.remove(baseRuleClass); // Remove abstract base class itself
+		
+		for(ModelClass ruleClass : ruleClasses) {
+			String ruleClassName = (String) ruleClass.getPropertyValue(Constants.RULE_JAVA_CLASS);
+			try {
+				IRule dbRule = (IRule) Class.forName(ruleClassName).newInstance();
+				
+				if(!modelRuleClasses.containsKey(ruleClassName)) {
+					modelRuleClasses.put(ruleClassName, dbRule);
+				}
+			}
+			catch(Exception e) {
+				throw new EngineException("Invalid qualified java class for model rule with class ID: " + ruleClass.getClassId(), getName());				
+			}
+		}
+	}
+	
+	/**
+	 * Helper method to make the fully loaded knowledge base immutable so it can be shared by 
+	 * concurrent sessions. Any later attempt to modify the model throws UnsupportedOperationException.
+	 */
+	private void finalizeModel() {
+		for(ModelClass modelClass : indexedClasses) {
+			modelClass.finalizeModel();
+		}
+		for(ModelObject modelObject : indexedObjects) {
+			modelObject.finalizeModel();
+		}
+		modelClasses = Collections.unmodifiableMap(modelClasses);
+		modelObjects = Collections.unmodifiableMap(modelObjects);
+		modelRuleClasses = Collections.unmodifiableMap(modelRuleClasses);
+		finalized = true;
+		
+		estimatedSize = estimateModelSize();
+		logger.debug("Estimated size of knowledge base {} is {} bytes", getName(), estimatedSize);
+	}
+	
+	/**
+	 * Helper method to estimate heap footprint of the model from its classes, objects, properties and indexes.
+	 * The estimate is approximate and intended for comparing knowledge bases against a memory budget.
+	 * @return Long estimated size in bytes
+	 */
+	private long estimateModelSize() {
+		long size = ESTIMATED_OBJECT_SIZE;
+		
+		// Model classes and their own properties
+		for(ModelClass modelClass : indexedClasses) {
+			size += ESTIMATED_OBJECT_SIZE + estimateSize(modelClass.getValueProperties()) + estimateSize(modelClass.getListProperties());
+		}
+		
+		// Model objects, their own properties and cached applicable rules
+		for(ModelObject modelObject : indexedObjects) {
+			size += ESTIMATED_OBJECT_SIZE + estimateSize(modelObject.getValueProperties()) + estimateSize(modelObject.getListProperties())
+					+ ESTIMATED_CONTAINER_SIZE + (long) ESTIMATED_REFERENCE_SIZE * modelObject.getApplicableRules().size();
+		}
+		
+		// Lookup maps and dense indexes
+		size += (long) (ESTIMATED_ENTRY_SIZE + ESTIMATED_REFERENCE_SIZE) * (modelClasses.size() + modelObjects.size());
+		
+		return size;
+	}
+	
+	/**
+	 * Helper method to estimate heap footprint of a property map or value
+	 * @param value Object map, list, string or scalar value
+	 * @return Long estimated size in bytes
+	 */
+	private static long estimateSize(Object value) {
+		if (value instanceof Map) {
+			long size = ESTIMATED_CONTAINER_SIZE;
+			for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				size += ESTIMATED_ENTRY_SIZE + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+			}
+			return size;
+		}
+		if (value instanceof List) {
+			long size = ESTIMATED_CONTAINER_SIZE;
+			for(Object element : (List<?>) value) {
+				size += ESTIMATED_REFERENCE_SIZE + estimateSize(element);
+			}
+			return size;
+		}
+		if (value instanceof String) {
+			return ESTIMATED_CONTAINER_SIZE + ((String) value).length();
+		}
+		
+		return value != null ? ESTIMATED_SCALAR_SIZE : 0;
+	}
+	
+	/**
+	 * Method to get estimated heap footprint of the model
+	 * @return Long estimated size in bytes
+	 */
+	public long getEstimatedSize() {
+		return estimatedSize;
+	}
+	
+	/**
+	 * Package method to record access to the knowledge base by the session manager
+	 */
+	void touch() {
+		lastAccessTime = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Method to get time of last access through the session manager
+	 * @return Long time in milliseconds
+	 */
+	public long getLastAccessTime() {
+		return lastAccessTime;
+	}
+	
+	/**
+	 * Method to check if knowledge base is finalized and safe to share between threads
+	 * @return true if finalized, false while still loading
+	 */
+	public boolean isFinalized() {
+		return finalized;
+	}
+	
+	/**
+	 * Method to get fingerprint of JSON model sources the knowledge base was loaded or compiled from. 
+	 * Computed from the current sources on first use if no snapshot was specified when loading.
+	 * @return Long fingerprint value
+	 */
+	public long getSourceFingerprint() {
+		Long fingerprint = sourceFingerprint;
+		
+		if (fingerprint == null) {
+			fingerprint = computeSourceFingerprint(name, sourceEngineJarPath, sourceModelPath);
+			sourceFingerprint = fingerprint;
+		}
+		
+		return fingerprint;
+	}
+	
+	/**
+	 * Method to get number of model files parsed from JSON during knowledge base load
+	 * @return Integer file count. Zero if loaded from a compiled snapshot.
+	 */
+	public int getModelParseFileCount() {
+		return modelParseFileCount.get();
+	}
+	
+	/**
+	 * Method to get total bytes of model JSON parsed during knowledge base load
+	 * @return Long byte count
+	 */
+	public long getModelParseBytes() {
+		return modelParseBytes.get();
+	}
+	
+	/**
+	 * Method to get total time spent parsing model JSON during knowledge base load. 
+	 * Summed over parse threads, so may exceed elapsed load time. 
+	 * @return Long time in nanoseconds
+	 */
+	public long getModelParseTime() {
+		return modelParseNanos.get();
+	}
+	
+	/**
+	 * Method to check if knowledge base was loaded from a compiled snapshot
+	 * @return True if loaded from snapshot, false if loaded from JSON data
+	 */
+	public boolean isLoadedFromSnapshot() {
+		return loadedFromSnapshot;
+	}
+	
+	/**
+	 * Package method to write a compiled snapshot of this knowledge base
+	 * @param file File for snapshot
+	 * @throws EngineException
+	 */
+	void writeSnapshot(File file) throws EngineException {
+		writeSnapshot(file, getSourceFingerprint());
+	}
+	
+	/**
+	 * Package method to write a compiled snapshot of this knowledge base for sources fingerprinted before it was loaded,
+	 * so a source edited while loading makes the snapshot stale
+	 * @param file File for snapshot
+	 * @param sourceFingerprint Long fingerprint of JSON model sources
+	 * @throws EngineException
+	 */
+	void writeSnapshot(File file, long sourceFingerprint) throws EngineException {
+		try {
+			KnowledgeBaseSnapshot.write(this, file, sourceFingerprint);
+		}
+		catch(IOException e) {
+			throw new EngineException("Exception writing knowledge base snapshot " + file.getPath() + ": " + e.getMessage(), getName());
+		}
+		
+		logger.info("Compiled knowledge base {} snapshot to {}", getName(), file.getPath());
+	}
 
 	/**
 	 * Method to get re-suable model object validation order comparator
@@ -285,6 +889,14 @@ public final class KnowledgeBase {
 		return name;
 	}
 	
+	/**
+	 * Method to get version of knowledge base
+	 * @return Long version of knowledge base
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
 	/**
 	 * Method to get model object given the model object's ID 
 	 * @param modelObjectId ID of model object (uncast String expected)
@@ -292,8 +904,10 @@ public final class KnowledgeBase {
 	 * @throws EngineException
 	 */
 	public ModelObject getModelObject(Object modelObjectId) throws EngineException {
-		if (modelObjects.containsKey(modelObjectId)) {
-			return modelObjects.get(modelObjectId);
+		ModelObject modelObject = modelObjects.get(modelObjectId);
+		
+		if (modelObject != null) {
+			return modelObject;
 		}
 		else {
 			throw new EngineException("No definition for model object with ID: " + modelObjectId, getName());
@@ -307,14 +921,91 @@ public final class KnowledgeBase {
 	 * @throws EngineException
 	 */
 	public ModelClass getModelClass(Object modelClassId) throws EngineException {		
-		if (modelClasses.containsKey(modelClassId)) {
-			return modelClasses.get(modelClassId);
+		ModelClass modelClass = modelClasses.get(modelClassId);
+		
+		if (modelClass != null) {
+			return modelClass;
 		}
 		else {
 			throw new EngineException("No definition for model class with ID: " + modelClassId, getName());
 		}
 	}
 	
+	/**
+	 * Method to get model class given its dense class index
+	 * @param classIndex Integer class index
+	 * @return ModelClass object
+	 */
+	public ModelClass getModelClass(int classIndex) {
+		return indexedClasses[classIndex];
+	}
+	
+	/**
+	 * Method to get model object given its dense object index
+	 * @param objectIndex Integer object index
+	 * @return ModelObject object
+	 */
+	public ModelObject getModelObject(int objectIndex) {
+		return indexedObjects.get(objectIndex);
+	}
+	
+	/**
+	 * Method to get count of model classes, i.e., the size of the class index space
+	 * @return Integer count
+	 */
+	public int getModelClassCount() {
+		return indexedClasses.length;
+	}
+	
+	/**
+	 * Method to get count of model objects, i.e., the size of the object index space
+	 * @return Integer count
+	 */
+	public int getModelObjectCount() {
+		return indexedObjects.size();
+	}
+	
+	/**
+	 * Method to get base model class from which all parent model objects are derived
+	 * @return ModelClass object
+	 */
+	public ModelClass getBaseObjectClass() {
+		return baseObjectClass;
+	}
+	
+	/**
+	 * Method to get unmodifiable list of all model objects derived from a model class
+	 * and its descendants without recomputing the hierarchy
+	 * @param modelClass ModelClass object
+	 * @return List of ModelObject in index order
+	 */
+	public List<ModelObject> getDescendantModelObjects(ModelClass modelClass) {
+		return indexedObjects.subList(modelClass.getFirstDescendantObjectIndex(), modelClass.getEndDescendantObjectIndex());
+	}
+	
+	/**
+	 * Method to get the unique model objects derived from any of the specified model classes
+	 * @param classIds List (of uncast String values) of IDs of model classes
+	 * @return List of unique ModelObject in index order
+	 * @throws EngineException
+	 */
+	public List<ModelObject> getUniqueDescendantModelObjects(List<?> classIds) throws EngineException {
+		// Mark object indexes of descendants of each class
+		BitSet objectIndexes = new BitSet(indexedObjects.size());
+		for(Object classId : classIds) {
+			ModelClass modelClass = getModelClass(classId);
+			objectIndexes.set(modelClass.getFirstDescendantObjectIndex(), modelClass.getEndDescendantObjectIndex());
+		}
+		
+		// Collect marked model objects
+		List<ModelObject> results = new ArrayList<ModelObject>(objectIndexes.cardinality());
+		for(int i = objectIndexes.nextSetBit(0); i >= 0; i = objectIndexes.nextSetBit(i + 1)) {
+			results.add(indexedObjects.get(i));
+		}
+		
+		return results;
+	}
+	
 	/**
 	 * Method to get modifiable list of model objects from their corresponding object IDs
 	 * @param objectIds List (of uncast String values) of IDs of model objects 
@@ -340,6 +1031,22 @@ public final class KnowledgeBase {
 		return modelRuleClasses.get(qualifiedRuleClassName);
 	}
 	
+	/**
+	 * Package method to get Java objects for all rules of the knowledge base
+	 * @return Collection of IRule objects
+	 */
+	Collection<IRule> getRuleClasses() {
+		return modelRuleClasses.values();
+	}
+	
+	/**
+	 * Package method to check if sessions replay validations of identical input selections
+	 * @return true unless disabled by property
+	 */
+	boolean isSelectionMemoEnabled() {
+		return selectionMemoEnabled;
+	}
+	
 	/**
 	 * Debug method to print knowledge base contents
 	 */
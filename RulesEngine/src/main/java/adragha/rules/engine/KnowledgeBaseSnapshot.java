@@ -0,0 +1,407 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class to write and read a compiled, versioned binary snapshot of a fully resolved
+ * knowledge base. The snapshot holds the model class hierarchy, the class and object 
+ * properties, and the applicable rules cached on each model object, so loading it
+ * skips JSON parsing and rule applicability computation. A snapshot records a 
+ * fingerprint of the names and contents of the JSON model sources it was compiled from, and is only used 
+ * while those sources are unchanged. Snapshots are read through a memory-mapped file.
+ * 
+ * @author adragha
+ *
+ */
+final class KnowledgeBaseSnapshot {
+	/** Marker at the start of every snapshot file */
+	static final int MAGIC = 0x4B425348;
+	/** Version of snapshot format. Increment whenever the format changes. */
+	static final int FORMAT_VERSION = 1;
+	
+	/** Value tag for null */
+	private static final byte TAG_NULL = 0;
+	/** Value tag for String */
+	private static final byte TAG_STRING = 1;
+	/** Value tag for Double */
+	private static final byte TAG_DOUBLE = 2;
+	/** Value tag for Boolean */
+	private static final byte TAG_BOOLEAN = 3;
+	/** Value tag for List */
+	private static final byte TAG_LIST = 4;
+	/** Value tag for Map */
+	private static final byte TAG_MAP = 5;
+	
+	/** Name of knowledge base for snapshot */
+	private String knowledgeBaseName = null;
+	/** Memory-mapped snapshot contents positioned after the header */
+	private ByteBuffer buffer = null;
+	
+	/**
+	 * Private constructor for snapshot reader
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @param buffer ByteBuffer with snapshot contents positioned after the header
+	 */
+	private KnowledgeBaseSnapshot(String knowledgeBaseName, ByteBuffer buffer) {
+		this.knowledgeBaseName = knowledgeBaseName;
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * Method to open a snapshot file for reading if it exists and is current 
+	 * @param file File for snapshot
+	 * @param knowledgeBaseName String name of knowledge base expected
+	 * @param sourceFingerprint Fingerprint of current JSON model sources
+	 * @return KnowledgeBaseSnapshot reader, or null if the snapshot does not exist or is stale
+	 * @throws EngineException
+	 */
+	static KnowledgeBaseSnapshot open(File file, String knowledgeBaseName, long sourceFingerprint) throws EngineException {
+		if (!file.isFile()) {
+			return null;
+		}
+		
+		try {
+			// Map file into memory. The mapping remains valid after the channel is closed.
+			ByteBuffer buffer;
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = randomAccessFile.getChannel();
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			finally {
+				randomAccessFile.close();
+			}
+			
+			// Check header
+			if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				KnowledgeBase.logger.warn("Ignoring snapshot {} with unknown format.", file.getPath());
+				return null;
+			}
+			if (!knowledgeBaseName.equals(readString(buffer)) || buffer.getLong() != sourceFingerprint) {
+				KnowledgeBase.logger.info("Ignoring stale snapshot {}.", file.getPath());
+				return null;
+			}
+			
+			return new KnowledgeBaseSnapshot(knowledgeBaseName, buffer);
+		}
+		catch(IOException | RuntimeException e) {
+			throw new EngineException("Exception opening knowledge base snapshot " + file.getPath() + ": " + e.getMessage(), knowledgeBaseName);
+		}
+	}
+	
+	/**
+	 * Method to read model classes and their model objects in class index order
+	 * @return List of ModelClass in class index order
+	 * @throws EngineException
+	 */
+	List<ModelClass> readModelClasses() throws EngineException {
+		try {
+			int classCount = buffer.getInt();
+			List<ModelClass> modelClasses = new ArrayList<ModelClass>(classCount);
+			
+			for(int i=0; i < classCount; i++) {
+				Map<String, Object> valueProperties = readValueMap(buffer);
+				Map<String, List<?>> listProperties = readListMap(buffer);
+				
+				// Read model objects derived directly from class
+				int objectCount = buffer.getInt();
+				List<ModelObject> modelObjects = new ArrayList<ModelObject>(objectCount);
+				for(int j=0; j < objectCount; j++) {
+					modelObjects.add(new ModelObject(readValueMap(buffer), readListMap(buffer)));
+				}
+				
+				modelClasses.add(new ModelClass(valueProperties, listProperties, modelObjects));
+			}
+			
+			return modelClasses;
+		}
+		catch(BufferUnderflowException | ClassCastException e) {
+			throw new EngineException("Corrupt knowledge base snapshot", knowledgeBaseName);
+		}
+	}
+	
+	/**
+	 * Method to read applicable rules and cache them on model objects. Must be called after
+	 * model classes have been read, and the knowledge base model has been indexed.  
+	 * @param knowledgeBase KnowledgeBase being loaded
+	 * @throws EngineException
+	 */
+	void readApplicableRules(KnowledgeBase knowledgeBase) throws EngineException {
+		try {
+			int objectCount = buffer.getInt();
+			if (objectCount != knowledgeBase.getModelObjectCount()) {
+				throw new EngineException("Knowledge base snapshot does not match model", knowledgeBaseName);
+			}
+			
+			for(int i=0; i < objectCount; i++) {
+				int ruleCount = buffer.getInt();
+				List<ModelObject> rules = new ArrayList<ModelObject>(ruleCount);
+				for(int j=0; j < ruleCount; j++) {
+					rules.add(knowledgeBase.getModelObject(buffer.getInt()));
+				}
+				knowledgeBase.getModelObject(i).setApplicableRules(rules);
+			}
+		}
+		catch(BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new EngineException("Corrupt knowledge base snapshot", knowledgeBaseName);
+		}
+	}
+	
+	/**
+	 * Method to write a snapshot of a fully loaded knowledge base
+	 * @param knowledgeBase KnowledgeBase to write
+	 * @param file File for snapshot
+	 * @throws IOException
+	 * @throws EngineException
+	 */
+	static void write(KnowledgeBase knowledgeBase, File file) throws IOException, EngineException {
+		write(knowledgeBase, file, knowledgeBase.getSourceFingerprint());
+	}
+	
+	/**
+	 * Method to write a snapshot of a fully loaded knowledge base for a fingerprint of its JSON model sources
+	 * @param knowledgeBase KnowledgeBase to write
+	 * @param file File for snapshot
+	 * @param sourceFingerprint Long fingerprint of JSON model sources
+	 * @throws IOException
+	 * @throws EngineException
+	 */
+	static void write(KnowledgeBase knowledgeBase, File file, long sourceFingerprint) throws IOException, EngineException {
+		// Write to temporary file first so readers never see a partial snapshot
+		File tempFile = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		
+		try {
+			// Write header
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			writeString(out, knowledgeBase.getName());
+			out.writeLong(sourceFingerprint);
+			
+			// Write model classes in index order, each followed by its own model objects
+			out.writeInt(knowledgeBase.getModelClassCount());
+			for(int i=0; i < knowledgeBase.getModelClassCount(); i++) {
+				ModelClass modelClass = knowledgeBase.getModelClass(i);
+				writeMap(out, modelClass.getValueProperties());
+				writeMap(out, modelClass.getListProperties());
+				
+				out.writeInt(modelClass.getModelObjects().size());
+				for(ModelObject modelObject : modelClass.getModelObjects()) {
+					writeMap(out, modelObject.getValueProperties());
+					writeMap(out, modelObject.getListProperties());
+				}
+			}
+			
+			// Write applicable rule indexes for model objects in index order
+			out.writeInt(knowledgeBase.getModelObjectCount());
+			for(int i=0; i < knowledgeBase.getModelObjectCount(); i++) {
+				List<ModelObject> rules = knowledgeBase.getModelObject(i).getApplicableRules();
+				out.writeInt(rules.size());
+				for(ModelObject rule : rules) {
+					out.writeInt(rule.getObjectIndex());
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+		
+		// Replace previous snapshot
+		if (file.exists() && !file.delete()) {
+			throw new IOException("Unable to replace knowledge base snapshot " + file.getPath());
+		}
+		if (!tempFile.renameTo(file)) {
+			throw new IOException("Unable to write knowledge base snapshot " + file.getPath());
+		}
+	}
+	
+	/**
+	 * Helper method to write a length-prefixed UTF-8 string
+	 * @param out DataOutputStream to write to
+	 * @param value String to write
+	 * @throws IOException
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * Helper method to read a length-prefixed UTF-8 string
+	 * @param buffer ByteBuffer to read from
+	 * @return String value
+	 */
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Helper method to write a property map. A null map is written as an empty map.
+	 * @param out DataOutputStream to write to
+	 * @param map Map of property values
+	 * @throws IOException
+	 * @throws EngineException
+	 */
+	private static void writeMap(DataOutputStream out, Map<String, ?> map) throws IOException, EngineException {
+		if (map == null) {
+			out.writeInt(0);
+			return;
+		}
+		
+		out.writeInt(map.size());
+		for(Map.Entry<String, ?> entry : map.entrySet()) {
+			writeString(out, entry.getKey());
+			writeValue(out, entry.getValue());
+		}
+	}
+	
+	/**
+	 * Helper method to write a tagged property value of one of the types produced by JSON parsing 
+	 * @param out DataOutputStream to write to
+	 * @param value Object value
+	 * @throws IOException
+	 * @throws EngineException
+	 */
+	private static void writeValue(DataOutputStream out, Object value) throws IOException, EngineException {
+		if (value == null) {
+			out.writeByte(TAG_NULL);
+		}
+		else if (value instanceof String) {
+			out.writeByte(TAG_STRING);
+			writeString(out, (String) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte(TAG_DOUBLE);
+			out.writeDouble(((Double) value).doubleValue());
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte(TAG_BOOLEAN);
+			out.writeBoolean(((Boolean) value).booleanValue());
+		}
+		else if (value instanceof List) {
+			out.writeByte(TAG_LIST);
+			List<?> list = (List<?>) value;
+			out.writeInt(list.size());
+			for(Object item : list) {
+				writeValue(out, item);
+			}
+		}
+		else if (value instanceof Map) {
+			out.writeByte(TAG_MAP);
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeInt(map.size());
+			for(Map.Entry<?, ?> entry : map.entrySet()) {
+				writeString(out, entry.getKey().toString());
+				writeValue(out, entry.getValue());
+			}
+		}
+		else {
+			throw new EngineException("Unsupported model property value type for snapshot: " + value.getClass().getName(), Constants.EMPTY);
+		}
+	}
+	
+	/**
+	 * Helper method to read a tagged property value
+	 * @param buffer ByteBuffer to read from
+	 * @return Object value
+	 * @throws EngineException
+	 */
+	private Object readValue(ByteBuffer buffer) throws EngineException {
+		byte tag = buffer.get();
+		
+		switch(tag) {
+			case TAG_NULL:
+				return null;
+			case TAG_STRING:
+				return readString(buffer);
+			case TAG_DOUBLE:
+				return Double.valueOf(buffer.getDouble());
+			case TAG_BOOLEAN:
+				return Boolean.valueOf(buffer.get() != 0);
+			case TAG_LIST:
+				int size = buffer.getInt();
+				List<Object> list = new ArrayList<Object>(size);
+				for(int i=0; i < size; i++) {
+					list.add(readValue(buffer));
+				}
+				return list;
+			case TAG_MAP:
+				return readValueMap(buffer);
+			default:
+				throw new EngineException("Corrupt knowledge base snapshot", knowledgeBaseName);
+		}
+	}
+	
+	/**
+	 * Helper method to read a map of single valued properties
+	 * @param buffer ByteBuffer to read from
+	 * @return Map of property values
+	 * @throws EngineException
+	 */
+	private Map<String, Object> readValueMap(ByteBuffer buffer) throws EngineException {
+		int size = buffer.getInt();
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		
+		for(int i=0; i < size; i++) {
+			String key = readString(buffer);
+			map.put(key, readValue(buffer));
+		}
+		
+		return map;
+	}
+
+	/**
+	 * Helper method to read a map of list valued properties
+	 * @param buffer ByteBuffer to read from
+	 * @return Map of property value lists
+	 * @throws EngineException
+	 */
+	private Map<String, List<?>> readListMap(ByteBuffer buffer) throws EngineException {
+		Map<String, List<?>> map = new LinkedHashMap<String, List<?>>();
+		
+		for(Map.Entry<String, Object> entry : readValueMap(buffer).entrySet()) {
+			map.put(entry.getKey(), (List<?>) entry.getValue());
+		}
+		
+		return map;
+	}
+}
@@ -28,6 +28,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import adragha.rules.engine.comparator.ModelClassIdComparator;
+
 /**
  * Class to represent a model class. All user defined model classes must inherit
  * from one of the following abstract base classes: BaseObject, BaseNeeder, 
@@ -53,11 +55,41 @@ public final class ModelClass {
 	private KnowledgeBase knowledgeBase = null;
 	/** Child model class list */
 	private List<ModelClass> childClasses = new ArrayList<ModelClass>();
+	/** Dense class index assigned in pre-order of the class hierarchy. Negative until indexed by the knowledge base. */
+	private int classIndex = -1;
+	/** Class index of the last descendant class in pre-order. Descendants occupy the index interval starting at this class' index. */
+	private int lastDescendantClassIndex = -1;
+	/** Index of first model object derived from this class or its descendants */
+	private int firstDescendantObjectIndex = -1;
+	/** Index after the last model object derived from this class or its descendants */
+	private int endDescendantObjectIndex = -1;
+	/** Flag set once the owning knowledge base is finalized, after which the class is immutable */
+	private boolean finalized = false;
+	
+	/**
+	 * Default constructor used when creating model class from JSON data
+	 */
+	public ModelClass() {
+	}
+	
+	/**
+	 * Package constructor used when loading model class from a compiled knowledge base snapshot
+	 * @param valueProperties Map of single valued model properties
+	 * @param listProperties Map of list value model properties
+	 * @param modelObjects List of model objects that inherit directly from this model class
+	 */
+	ModelClass(Map<String, Object> valueProperties, Map<String, List<?>> listProperties, List<ModelObject> modelObjects) {
+		this.valueProperties = valueProperties;
+		this.listProperties = listProperties;
+		this.modelObjects = modelObjects;
+	}
 	
 	/**
 	 * Method to initialize model class after creation from JSON data
 	 */
 	void initialize() {
+		checkModifiable();
+		
 		// Set class ID
 		classId = getPropertyValue(Constants.CLASS_ID).toString();
 
@@ -78,6 +110,7 @@ public final class ModelClass {
 	 * @param knowledgeBase KnowledgeBase object for knowledge base this class belongs to
 	 */
 	void setKnowledgeBase(KnowledgeBase knowledgeBase) {
+		checkModifiable();
 		this.knowledgeBase = knowledgeBase;				
 	}
 	
@@ -86,6 +119,8 @@ public final class ModelClass {
 	 * @param parentClass ModelClass object representing parent class
 	 */
 	void setParentClass(ModelClass parentClass) {
+		checkModifiable();
+		
 		// Set parent
 		this.parentClass = parentClass;
 		
@@ -100,6 +135,108 @@ public final class ModelClass {
 		}
 	}
 	
+	/**
+	 * Package method to assign dense indexes to this class, its model objects and its descendants 
+	 * in pre-order during knowledge base load. As a result, the descendants of a class occupy a 
+	 * contiguous interval of class indexes, and their model objects a contiguous interval of object indexes.
+	 * @param indexedClasses Modifiable list of model classes in index order, updated with the result
+	 * @param indexedObjects Modifiable list of model objects in index order, updated with the result
+	 * @param modelClassIdComparator Comparator to visit child classes in a deterministic order
+	 */
+	void indexHierarchy(List<ModelClass> indexedClasses, List<ModelObject> indexedObjects, ModelClassIdComparator modelClassIdComparator) {
+		checkModifiable();
+		
+		// Index self and own objects
+		classIndex = indexedClasses.size();
+		indexedClasses.add(this);
+		firstDescendantObjectIndex = indexedObjects.size();
+		for(ModelObject modelObject : modelObjects) {
+			modelObject.setObjectIndex(indexedObjects.size());
+			indexedObjects.add(modelObject);
+		}
+		
+		// Call recursively on all child model classes in order of class ID
+		List<ModelClass> sortedChildClasses = new ArrayList<ModelClass>(childClasses);
+		Collections.sort(sortedChildClasses, modelClassIdComparator);
+		for(ModelClass subClass : sortedChildClasses) {
+			subClass.indexHierarchy(indexedClasses, indexedObjects, modelClassIdComparator);
+		}
+		
+		// Record end of descendant intervals
+		lastDescendantClassIndex = indexedClasses.size() - 1;
+		endDescendantObjectIndex = indexedObjects.size();
+	}
+	
+	/**
+	 * Package method to make the model class immutable once its knowledge base is fully loaded.
+	 * Collections built during load and property values, including maps and lists nested in them, 
+	 * are marked unmodifiable and later load-time mutation fails.
+	 */
+	void finalizeModel() {
+		valueProperties = Util.getUnmodifiableValueMap(valueProperties);
+		listProperties = Util.getUnmodifiableMapOfLists(listProperties);
+		childClasses = Collections.unmodifiableList(childClasses);
+		modelObjects = Collections.unmodifiableList(modelObjects);
+		finalized = true;
+	}
+	
+	/**
+	 * Method to check if model class belongs to a finalized, immutable knowledge base
+	 * @return true if finalized, false while still loading
+	 */
+	public boolean isFinalized() {
+		return finalized;
+	}
+	
+	/**
+	 * Helper method to reject load-time mutation of a finalized model class
+	 */
+	private void checkModifiable() {
+		if (finalized) {
+			throw new UnsupportedOperationException("Model class " + classId + " belongs to a finalized knowledge base");
+		}
+	}
+	
+	/**
+	 * Method to get dense class index assigned by knowledge base
+	 * @return Integer class index, or -1 if not indexed
+	 */
+	public int getClassIndex() {
+		return classIndex;
+	}
+	
+	/**
+	 * Method to get index of first model object derived from this class or its descendants
+	 * @return Integer object index, or -1 if not indexed
+	 */
+	int getFirstDescendantObjectIndex() {
+		return firstDescendantObjectIndex;
+	}
+	
+	/**
+	 * Method to get index after the last model object derived from this class or its descendants
+	 * @return Integer object index, or -1 if not indexed
+	 */
+	int getEndDescendantObjectIndex() {
+		return endDescendantObjectIndex;
+	}
+	
+	/**
+	 * Package method to get single valued properties specified on this class for snapshot serialization
+	 * @return Unmodifiable Map of property values
+	 */
+	Map<String, Object> getValueProperties() {
+		return valueProperties;
+	}
+	
+	/**
+	 * Package method to get list valued properties specified on this class for snapshot serialization
+	 * @return Unmodifiable Map of property value lists
+	 */
+	Map<String, List<?>> getListProperties() {
+		return listProperties;
+	}
+	
 	/**
 	 * Method to get model class ID
 	 * @return String value of class ID
@@ -173,11 +310,18 @@ public final class ModelClass {
 	}
 	
 	/**
-	 * Recursive method to determine if this model class is derived from another model class
+	 * Method to determine if this model class is derived from another model class. Uses a constant
+	 * time interval check on the class indexes if both classes are indexed by the same knowledge base,
+	 * and recursion on the parent class otherwise. 
 	 * @param ancestorClass ModelClass object for potential ancestor class  
 	 * @return true if argument is an ancestor model class, false otherwise
 	 */
 	public boolean isDescendant(ModelClass ancestorClass) {
+		// Check interval of ancestor's descendants if indexed
+		if (classIndex >= 0 && ancestorClass != null && ancestorClass.classIndex >= 0 && knowledgeBase == ancestorClass.knowledgeBase) {
+			return ancestorClass.classIndex <= classIndex && classIndex <= ancestorClass.lastDescendantClassIndex;
+		}
+		
 		if (this == ancestorClass) {
 			return true;
 		}
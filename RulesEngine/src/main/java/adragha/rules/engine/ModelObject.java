@@ -49,14 +49,36 @@ public final class ModelObject {
 	private ModelClass modelClass = null;
 	/** Model object ID */
 	private String objectId = null;
+	/** Dense object index assigned by knowledge base. Negative until indexed. */
+	private int objectIndex = -1;
 	/** Computed and cached applicable rules */
 	private List<ModelObject> applicableRules = new ArrayList<ModelObject>();
+	/** Flag set once the owning knowledge base is finalized, after which the object is immutable */
+	private boolean finalized = false;
+	
+	/**
+	 * Default constructor used when creating model object from JSON data
+	 */
+	public ModelObject() {
+	}
+	
+	/**
+	 * Package constructor used when loading model object from a compiled knowledge base snapshot
+	 * @param valueProperties Map of single valued model properties
+	 * @param listProperties Map of list value model properties
+	 */
+	ModelObject(Map<String, Object> valueProperties, Map<String, List<?>> listProperties) {
+		this.valueProperties = valueProperties;
+		this.listProperties = listProperties;
+	}
 	
 	/**
 	 * Method to initialize model object after creation from JSON data
 	 * @param modelClass ModelClass parent object
 	 */
 	void initialize(ModelClass modelClass) {
+		checkModifiable();
+		
 		// Set model object ID
 		objectId = getPropertyValue(Constants.OBJECT_ID).toString();
 
@@ -104,6 +126,22 @@ public final class ModelObject {
 		}		
 	}
 	
+	/**
+	 * Package method to get single valued properties specified on this object for snapshot serialization
+	 * @return Unmodifiable Map of property values
+	 */
+	Map<String, Object> getValueProperties() {
+		return valueProperties;
+	}
+	
+	/**
+	 * Package method to get list valued properties specified on this object for snapshot serialization
+	 * @return Unmodifiable Map of property value lists
+	 */
+	Map<String, List<?>> getListProperties() {
+		return listProperties;
+	}
+	
 	/**
 	 * Method to get model object ID
 	 * @return String value of object ID
@@ -112,6 +150,23 @@ public final class ModelObject {
 		return objectId;
 	}
 	
+	/**
+	 * Method to get dense object index assigned by knowledge base
+	 * @return Integer object index, or -1 if not indexed
+	 */
+	public int getObjectIndex() {
+		return objectIndex;
+	}
+	
+	/**
+	 * Package method to set dense object index during knowledge base load
+	 * @param objectIndex Integer object index
+	 */
+	void setObjectIndex(int objectIndex) {
+		checkModifiable();
+		this.objectIndex = objectIndex;
+	}
+	
 	/**
 	 * Method to get model class parent
 	 * @return ModelClass parent object 
@@ -126,19 +181,7 @@ public final class ModelObject {
 	 * @return true if a descendant, false otherwise
 	 */
 	public boolean isDescendant(ModelClass ancestorClass) {
-		// Return true if match found
-		if (modelClass == ancestorClass) {
-			return true;
-		}
-		// Recurse on parent if it exists and match not found yet
-		else {
-			if (modelClass.getParentClass() != null) {
-				return modelClass.getParentClass().isDescendant(ancestorClass);
-			}
-		}
-		
-		// Return false if no match found
-		return false;
+		return modelClass.isDescendant(ancestorClass);
 	}
 	
 	/**
@@ -154,14 +197,26 @@ public final class ModelObject {
 	 * @param ruleData ModelObject for rule
 	 */
 	void addApplicableRule(ModelObject ruleData) {
+		checkModifiable();
 		applicableRules.add(ruleData);
 	}
 	
+	/**
+	 * Package helper method to set already sorted applicable rules loaded from a compiled knowledge base snapshot
+	 * @param rules List of ModelObject of applicable rules in order of validation 
+	 */
+	void setApplicableRules(List<ModelObject> rules) {
+		checkModifiable();
+		applicableRules = Collections.unmodifiableList(rules);
+	}
+	
 	/**
 	 * Package helper method to make applicable rule collection unmodifiable
 	 * @param modelObjectValidationOrderComparator Comparator to sort rules first on validation order
 	 */
 	void makeApplicableRulesUnmodifiable(ModelObjectValidationOrderComparator modelObjectValidationOrderComparator) {
+		checkModifiable();
+		
 		// First, sort rules based on validation order
 		Collections.sort(applicableRules, modelObjectValidationOrderComparator);
 		
@@ -169,6 +224,33 @@ public final class ModelObject {
 		applicableRules = Collections.unmodifiableList(applicableRules);
 	}
 	
+	/**
+	 * Package method to make the model object immutable once its knowledge base is fully loaded.
+	 * Property values are marked unmodifiable, including maps and lists nested in them.
+	 */
+	void finalizeModel() {
+		valueProperties = Util.getUnmodifiableValueMap(valueProperties);
+		listProperties = Util.getUnmodifiableMapOfLists(listProperties);
+		finalized = true;
+	}
+	
+	/**
+	 * Method to check if model object belongs to a finalized, immutable knowledge base
+	 * @return true if finalized, false while still loading
+	 */
+	public boolean isFinalized() {
+		return finalized;
+	}
+	
+	/**
+	 * Helper method to reject load-time mutation of a finalized model object
+	 */
+	private void checkModifiable() {
+		if (finalized) {
+			throw new UnsupportedOperationException("Model object " + objectId + " belongs to a finalized knowledge base");
+		}
+	}
+	
 	/**
 	 * Debug method to print model object information
 	 */
@@ -0,0 +1,527 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import adragha.rules.engine.SessionObject.ValidationStatus;
+import adragha.rules.engine.common.PropertyValueFilter;
+import adragha.rules.engine.common.SessionMaximumFilter;
+
+/**
+ * Package class to remember validations of input selections while a session validates its selection queue, so 
+ * an identical selection validated against the same session state is resolved the same way without searching.
+ * <p>
+ * A failed validation reverts all its changes, so an identical selection fails the same way until a successful 
+ * validation changes the session. A successful validation is remembered by a signature of the state of the providers 
+ * it was validated against, and replayed for an identical selection validated against providers in the same state. 
+ * Replay does not apply rules again, so successful validations are only remembered if every rule of the knowledge 
+ * base depends on no session state other than provider state and session object counts. 
+ * Disabled if the {@link Constants#SELECTION_MEMO} property of the knowledge base is false.
+ * 
+ * @author adragha
+ *
+ */
+final class SelectionMemo {
+	/** Maximum number of successful validations remembered */
+	static final int SUCCESSFUL_SELECTION_LIMIT = 64;
+	/** Rule classes that depend on no session state other than provider state and session object counts */
+	private static final Set<Class<?>> REPLAYABLE_RULE_CLASSES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(PropertyValueFilter.class, SessionMaximumFilter.class));
+	/** Comparator for provider parents in the order their child providers are tried */
+	private static final Comparator<SessionObject> PROVIDER_PARENT_ORDER = new Comparator<SessionObject>() {
+		/**
+		 * Compare provider parents by session object ID as existing providers are ordered
+		 */
+		@Override
+		public int compare(SessionObject o1, SessionObject o2) {
+			return compareObjectIds(o1.getObjectId(), o2.getObjectId());
+		}
+	};
+	
+	/** Session whose selection queue is validated */
+	private final Session session;
+	/** Flag to indicate if failed validations are remembered */
+	private final boolean enabled;
+	/** Flag to indicate if successful validations are remembered */
+	private final boolean successEnabled;
+	/** Failed validations of unvalidated selections by model object */
+	private final Map<ModelObject, FailedSelection> failedSelections = new HashMap<ModelObject, FailedSelection>();
+	/** Successful validations of unvalidated selections by provider state signature, in least recently used first order */
+	private final Map<String, SuccessfulSelection> successfulSelections;
+	/** Model objects of selections whose successful validation was remembered */
+	private final Set<ModelObject> memoizedModelObjects = new HashSet<ModelObject>();
+	
+	/**
+	 * Constructor for selection memo of one validation of a session selection queue
+	 * @param session Session being validated
+	 */
+	SelectionMemo(Session session) {
+		this.session = session;
+		KnowledgeBase knowledgeBase = session.getKnowledgeBase();
+		enabled = knowledgeBase.isSelectionMemoEnabled();
+		successEnabled = enabled && areRulesReplayable(knowledgeBase.getRuleClasses());
+		successfulSelections = new LinkedHashMap<String, SuccessfulSelection>(16, 0.75f, true) {
+			/** Serial version for map */
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Evict least recently used successful validation above limit
+			 */
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SuccessfulSelection> eldest) {
+				return size() > SUCCESSFUL_SELECTION_LIMIT;
+			}
+		};
+	}
+	
+	/**
+	 * Package method to check if successful validations can be replayed without applying rules again
+	 * @param rules Collection of IRule objects of a knowledge base
+	 * @return true if every rule depends on no session state other than provider state and session object counts
+	 */
+	static boolean areRulesReplayable(Collection<IRule> rules) {
+		for(IRule rule : rules) {
+			if (!REPLAYABLE_RULE_CLASSES.contains(rule.getClass())) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Method to check if validation of a selection can be remembered. Only selections with every needer unvalidated 
+	 * and no providers qualify, since other selections of the same model object could otherwise provide to each other, 
+	 * so the session they are validated against differs.
+	 * @param selection SessionObject of input selection
+	 * @return true if replayable
+	 */
+	static boolean isReplayable(SessionObject selection) {
+		if (selection.getChildProviderCount() > 0) {
+			return false;
+		}
+		
+		for(SessionObject needer : selection.getChildNeeders()) {
+			if (needer.getValidationStatus() != ValidationStatus.UNVALIDATED) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Method to replay the failed validation of an identical selection if the session has not changed since
+	 * @param selection SessionObject of replayable input selection
+	 * @return true if replayed
+	 */
+	boolean replayFailure(SessionObject selection) {
+		FailedSelection failedSelection = failedSelections.get(selection.getModelObject());
+		if (failedSelection == null) {
+			return false;
+		}
+		
+		failedSelection.replay(selection);
+		return true;
+	}
+	
+	/**
+	 * Method to capture the state of the providers a replayable input selection is validated against, so its successful 
+	 * validation can be replayed or remembered. State is only captured if the next queued selection is identical, or one 
+	 * was remembered before, and not when optimizing, since the first solution found is remembered.
+	 * @param selection SessionObject of replayable input selection
+	 * @param nextSelection SessionObject of next queued selection, or null
+	 * @param startObjectId Integer object ID counter when validation of selection started
+	 * @param startStepId Integer step ID counter when validation of selection started
+	 * @return ProviderState object, or null if not captured
+	 */
+	ProviderState getProviderState(SessionObject selection, SessionObject nextSelection, int startObjectId, int startStepId) {
+		ModelObject modelObject = selection.getModelObject();
+		if (!successEnabled || session.getOptimizationBudget() > 0
+			|| 
+			(!memoizedModelObjects.contains(modelObject) && (nextSelection == null || nextSelection.getModelObject() != modelObject))) 
+		{
+			return null;
+		}
+		
+		return new ProviderState(selection, getProviderParents(), getSessionObjectCounts(), startObjectId, startStepId);
+	}
+	
+	/**
+	 * Method to replay the successful validation of an identical selection validated against providers in the same state, 
+	 * once its needers are on the validation stack. A partial replay is reverted so the selection can be searched.
+	 * @param state ProviderState captured for input selection
+	 * @return true if replayed, false if no replayable validation is remembered or it could not be replayed
+	 * @throws EngineException
+	 */
+	boolean replaySuccess(ProviderState state) throws EngineException {
+		SuccessfulSelection successfulSelection = successfulSelections.get(state.signature);
+		if (successfulSelection == null || !successfulSelection.isReplayable(state)) {
+			return false;
+		}
+		
+		if (successfulSelection.replay(state)) {
+			return true;
+		}
+		
+		// Revert partial replay before searching
+		Session.logger.debug("Unable to replay successful validation of input selection: {}", state.selection);
+		session.restartSelection(state.selection, state.startObjectId, state.startStepId);
+		return false;
+	}
+	
+	/**
+	 * Method to remember a successful validation found by searching, held by the processed stack of the session
+	 * @param state ProviderState captured for input selection, or null if not captured
+	 */
+	void rememberSuccess(ProviderState state) {
+		if (state == null || state.selection.getValidationStatus() != ValidationStatus.SUCCESSFUL) {
+			return;
+		}
+		
+		SuccessfulSelection successfulSelection = new SuccessfulSelection(session, state);
+		if (isCreationOrdered(state, successfulSelection.solution.getObjectIdCount())) {
+			successfulSelections.put(state.signature, successfulSelection);
+			memoizedModelObjects.add(state.selection.getModelObject());
+		}
+	}
+	
+	/**
+	 * Method to remember the result of a validation. A failure is remembered for identical selections, 
+	 * while any other result forgets failures, since the session has changed.
+	 * @param selection SessionObject of input selection validated
+	 * @param replayable Flag to indicate if the selection was replayable and its validation was fully reverted
+	 * @param objectIdCount Integer count of object IDs assigned by the validation
+	 * @param stepIdCount Integer count of step IDs assigned by the validation
+	 */
+	void rememberResult(SessionObject selection, boolean replayable, int objectIdCount, int stepIdCount) {
+		if (selection.getValidationStatus() != ValidationStatus.FAILED) {
+			failedSelections.clear();
+		}
+		else if (enabled && replayable) {
+			failedSelections.put(selection.getModelObject(), new FailedSelection(selection, objectIdCount, stepIdCount));
+		}
+	}
+	
+	/**
+	 * Helper method to get non-failed provider parents with remaining quantity in the order their providers are tried
+	 * @return List of provider parent SessionObject
+	 */
+	private List<SessionObject> getProviderParents() {
+		List<SessionObject> providerParents = new ArrayList<SessionObject>();
+		
+		// Collect provider parents that could still provide
+		for(Map<String, SessionObject> objects : session.getSessionObjectMap().values()) {
+			if (objects.isEmpty()) {
+				continue;
+			}
+			SessionObject object = objects.values().iterator().next();
+			if (object.getParentObject() != null || object.getChildProviderCount() == 0) {
+				continue;
+			}
+			for(SessionObject providerParent : objects.values()) {
+				if (hasProviderQuantity(providerParent) && providerParent.getValidationStatus() != ValidationStatus.FAILED) {
+					providerParents.add(providerParent);
+				}
+			}
+		}
+		Collections.sort(providerParents, PROVIDER_PARENT_ORDER);
+		
+		return providerParents;
+	}
+	
+	/**
+	 * Helper method to check if any child provider of a provider parent has remaining quantity
+	 * @param providerParent SessionObject of provider parent
+	 * @return true if any quantity remains
+	 */
+	private static boolean hasProviderQuantity(SessionObject providerParent) {
+		for(int i=0; i < providerParent.getChildProviderCount(); i++) {
+			if (providerParent.getChildProviderQuantity(i) > 0) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Helper method to get count of session objects of each model object in the session, in order of the session object map.
+	 * Model objects are only added to the map, so counts taken later extend counts taken before.
+	 * @return Array of Integer count
+	 */
+	private int[] getSessionObjectCounts() {
+		Map<ModelObject, Map<String, SessionObject>> sessionObjects = session.getSessionObjectMap();
+		int[] objectCounts = new int[sessionObjects.size()];
+		
+		int index = 0;
+		for(Map<String, SessionObject> objects : sessionObjects.values()) {
+			objectCounts[index++] = objects.size();
+		}
+		
+		return objectCounts;
+	}
+	
+	/**
+	 * Package method to compare session object IDs of provider parents in the order their child providers are tried. 
+	 * Existing providers are tried in order of model and session object ID, and the ID of a child provider is the ID 
+	 * of its parent followed by a ':' separator, so parent IDs are compared as if followed by the separator.
+	 * @param objectId1 String session object ID
+	 * @param objectId2 String session object ID
+	 * @return Negative, zero or positive integer as the first ID is ordered before, with or after the second
+	 */
+	static int compareObjectIds(String objectId1, String objectId2) {
+		int length = Math.min(objectId1.length(), objectId2.length());
+		
+		for(int i=0; i < length; i++) {
+			if (objectId1.charAt(i) != objectId2.charAt(i)) {
+				return objectId1.charAt(i) - objectId2.charAt(i);
+			}
+		}
+		
+		// Shorter ID is followed by the separator
+		char next1 = objectId1.length() > length ? objectId1.charAt(length) : ':';
+		char next2 = objectId2.length() > length ? objectId2.charAt(length) : ':';
+		return next1 - next2;
+	}
+	
+	/**
+	 * Helper method to check if objects created by a validation are tried as providers after the existing provider parents 
+	 * and in order of creation, so recorded steps are satisfied by providers in the same position in the order tried
+	 * @param state ProviderState captured for input selection
+	 * @param objectIdCount Integer count of object IDs assigned by the validation
+	 * @return true if ordered
+	 */
+	private static boolean isCreationOrdered(ProviderState state, int objectIdCount) {
+		String previousId = state.providerParents.isEmpty() ? null : state.providerParents.get(state.providerParents.size() - 1).getObjectId();
+		
+		for(int objectId = state.startObjectId + 1; objectId <= state.startObjectId + objectIdCount; objectId++) {
+			String id = Integer.toString(objectId);
+			if (previousId != null && compareObjectIds(previousId, id) >= 0) {
+				return false;
+			}
+			previousId = id;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Helper method to get signature of the provider state an input selection is validated against. The signature
+	 * lists each provider parent in the order its providers are tried, by model object, validation status and 
+	 * remaining quantity of each child provider, followed by the status of its needers if it is not yet validated. 
+	 * Object IDs are left out, so identical selections validated against providers in the same state get the same signature.
+	 * @param selection SessionObject of input selection
+	 * @param providerParents List of provider parent SessionObject in the order their providers are tried
+	 * @return String signature
+	 */
+	private static String getSignature(SessionObject selection, List<SessionObject> providerParents) {
+		StringBuilder sb = new StringBuilder(selection.getModelObject().getObjectId());
+		
+		for(SessionObject providerParent : providerParents) {
+			ValidationStatus status = providerParent.getValidationStatus();
+			sb.append('|').append(providerParent.getModelObject().getObjectId()).append(':').append(status);
+			for(int i=0; i < providerParent.getChildProviderCount(); i++) {
+				double quantity = providerParent.getChildProviderQuantity(i);
+				if (quantity == (long) quantity) {
+					sb.append(':').append((long) quantity);
+				}
+				else {
+					sb.append(':').append(quantity);
+				}
+			}
+			if (status != ValidationStatus.SUCCESSFUL) {
+				for(SessionObject needer : providerParent.getChildNeeders()) {
+					sb.append(':').append(needer.getValidationStatus());
+				}
+			}
+		}
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Inner class for the state of the providers an input selection is validated against
+	 */
+	static final class ProviderState {
+		/** Input selection validated */
+		private final SessionObject selection;
+		/** Non-failed provider parents with remaining quantity in the order their providers are tried */
+		private final List<SessionObject> providerParents;
+		/** Signature of provider state */
+		private final String signature;
+		/** Count of session objects of each model object in order of the session object map */
+		private final int[] objectCounts;
+		/** Object ID counter when validation of selection started */
+		private final int startObjectId;
+		/** Step ID counter when validation of selection started */
+		private final int startStepId;
+		
+		/**
+		 * Constructor for provider state
+		 * @param selection SessionObject of input selection
+		 * @param providerParents List of provider parent SessionObject in the order their providers are tried
+		 * @param objectCounts Array of count of session objects of each model object
+		 * @param startObjectId Integer object ID counter when validation of selection started
+		 * @param startStepId Integer step ID counter when validation of selection started
+		 */
+		private ProviderState(SessionObject selection, List<SessionObject> providerParents, int[] objectCounts, int startObjectId, int startStepId) {
+			this.selection = selection;
+			this.providerParents = providerParents;
+			this.signature = getSignature(selection, providerParents);
+			this.objectCounts = objectCounts;
+			this.startObjectId = startObjectId;
+			this.startStepId = startStepId;
+		}
+	}
+	
+	/**
+	 * Inner class to remember the failed validation of an input selection
+	 */
+	private static final class FailedSelection {
+		/** Count of object IDs assigned by the failed validation */
+		private final int objectIdCount;
+		/** Count of step IDs assigned by the failed validation */
+		private final int stepIdCount;
+		/** Validation status of each child needer after the failed validation */
+		private final List<String> neederStatuses = new ArrayList<String>();
+		
+		/**
+		 * Constructor for failed selection memo
+		 * @param selection SessionObject of failed input selection
+		 * @param objectIdCount Integer count of object IDs assigned by the failed validation
+		 * @param stepIdCount Integer count of step IDs assigned by the failed validation
+		 */
+		private FailedSelection(SessionObject selection, int objectIdCount, int stepIdCount) {
+			this.objectIdCount = objectIdCount;
+			this.stepIdCount = stepIdCount;
+			for(SessionObject needer : selection.getChildNeeders()) {
+				neederStatuses.add((String) needer.getPropertyValue(Constants.VALIDATION_STATUS));
+			}
+		}
+		
+		/**
+		 * Method to apply the failed validation to an identical selection
+		 * @param selection SessionObject of input selection
+		 */
+		private void replay(SessionObject selection) {
+			selection.getSession().advanceIdCounters(objectIdCount, stepIdCount);
+			
+			List<SessionObject> needers = selection.getChildNeeders();
+			for(int i=0; i < needers.size(); i++) {
+				if (!ValidationStatus.UNVALIDATED.toString().equals(neederStatuses.get(i))) {
+					needers.get(i).setPropertyValue(Constants.VALIDATION_STATUS, neederStatuses.get(i));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Inner class to remember the successful validation of an input selection, so it can be replayed for an identical 
+	 * selection validated against the same provider state. Since rules may check the maximum of a model object against
+	 * the count of its session objects before creating a new provider parent, the counts of parent objects must match too, 
+	 * unless the validation could not have reached the maximum in either session.
+	 */
+	private static final class SuccessfulSelection {
+		/** Steps of the successful validation */
+		private final Session.SolutionPath solution;
+		/** Provider state the validation was searched against */
+		private final ProviderState state;
+		
+		/**
+		 * Constructor to remember the successful validation held by the processed stack of a session
+		 * @param session Session holding successful validation
+		 * @param state ProviderState captured when validation of selection started
+		 */
+		private SuccessfulSelection(Session session, ProviderState state) {
+			this.solution = new Session.SolutionPath(session, state.startObjectId, state.startStepId);
+			this.state = state;
+		}
+		
+		/**
+		 * Method to check if the successful validation can be replayed for a selection with the same provider state signature
+		 * @param state ProviderState captured for input selection
+		 * @return true if replayable
+		 */
+		private boolean isReplayable(ProviderState state) {
+			if (!isCreationOrdered(state, solution.getObjectIdCount())) {
+				return false;
+			}
+			if (Arrays.equals(state.objectCounts, this.state.objectCounts)) {
+				return true;
+			}
+			if (state.objectCounts.length < this.state.objectCounts.length) {
+				return false;
+			}
+			
+			// Counts of parent objects must match unless neither session could reach a numeric maximum, since no more objects 
+			// than IDs assigned were created. Child objects are only created with their parent, so their counts are not checked.
+			int index = 0;
+			for(Map.Entry<ModelObject, Map<String, SessionObject>> entry : state.selection.getSession().getSessionObjectMap().entrySet()) {
+				if (index >= state.objectCounts.length) {
+					break;
+				}
+				int count = state.objectCounts[index];
+				int searchedCount = index < this.state.objectCounts.length ? this.state.objectCounts[index] : 0;
+				Map<String, SessionObject> objects = entry.getValue();
+				if (count != searchedCount && (objects.isEmpty() || objects.values().iterator().next().getParentObject() == null)) {
+					Object maximum = entry.getKey().getPropertyValue(Constants.MAXIMUM);
+					if (!(maximum instanceof Number) || ((Number) maximum).intValue() - Math.max(count, searchedCount) < solution.getObjectIdCount()) {
+						return false;
+					}
+				}
+				index++;
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Method to replay the successful validation for an input selection whose needers are on the validation stack, 
+		 * using the provider parents in the same position in the order their providers are tried
+		 * @param state ProviderState captured for input selection
+		 * @return true if replayed, false if a step could not be satisfied as recorded
+		 * @throws EngineException
+		 */
+		private boolean replay(ProviderState state) throws EngineException {
+			Map<SessionObject, SessionObject> providerParentMap = new IdentityHashMap<SessionObject, SessionObject>();
+			for(int i=0; i < state.providerParents.size(); i++) {
+				providerParentMap.put(this.state.providerParents.get(i), state.providerParents.get(i));
+			}
+			
+			return solution.replay(state.selection, state.startObjectId, state.startStepId, providerParentMap);
+		}
+	}
+}
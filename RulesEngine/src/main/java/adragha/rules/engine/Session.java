@@ -25,11 +25,17 @@ package adragha.rules.engine;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +57,9 @@ import adragha.rules.engine.comparator.SessionObjectValidationOrderComparator;
  * are represented by associated 'child' needer session objects. The
  * backtracking search is performed over the selections' child needer objects
  * and the needers associated with any new session objects the process spawns. 
+ * Input selections can be added to a session after it is validated, in which
+ * case validating again validates only the added selections, starting from
+ * the existing solution.
  * 
  * @author adragha
  *
@@ -58,10 +67,12 @@ import adragha.rules.engine.comparator.SessionObjectValidationOrderComparator;
 public final class Session {
 	/** Logger for session instance logging */
 	static final Logger logger = LoggerFactory.getLogger(Session.class);
+	/** Initial value of counter for unique IDs assigned to session objects */
+	private static final int INITIAL_OBJECT_ID = 1000;
 	/** Auto-assigned unique ID for session */
 	private String sessionId;
 	/** Counter for unique IDs assigned to session objects */
-	private int objectIdCounter = 1000;
+	private int objectIdCounter = INITIAL_OBJECT_ID;
 	/** Reference to knowledge base for session */
 	private KnowledgeBase knowledgeBase = null;
 	/** Map of session objects by model object and session object ID */
@@ -70,14 +81,32 @@ public final class Session {
 	private List<InputSelection> inputSelections = new ArrayList<InputSelection>();
 	/** List of session objects corresponding to input selections in order of validation */
 	private List<SessionObject> selectionQueue = new ArrayList<SessionObject>();
+	/** List of session objects corresponding to input selections in order of creation */
+	private List<SessionObject> selectionObjects = new ArrayList<SessionObject>();
 	/** Stack of unprocessed validation steps in reverse order of processing. Validation is complete when this stack is empty */
 	private Stack<ValidationStep> unprocessedStack = new Stack<ValidationStep>();
 	/** Stack of processed validation steps in reverse order of processing. */
 	private Stack<ValidationStep> processedStack = new Stack<ValidationStep>();
 	/** Counter for unique step IDs assigned to validation steps */
 	private int stepIdCounter = 0;
-	/** Flag to indicate if session was previously validated */
-	private boolean alreadyValidated = false;
+	/** Flag claimed while the session is validated, changed or evicted, so these never run concurrently. Sessions are not evicted while claimed. */
+	private final AtomicBoolean claimed = new AtomicBoolean(false);
+	/** Flag to indicate if session was evicted, after which it can no longer be changed or validated */
+	private volatile boolean evicted = false;
+	/** Flag set while session is returned to the session manager for pooling, to detect sessions returned twice */
+	private final AtomicBoolean returned = new AtomicBoolean(false);
+	/** Listener notified as each input selection is resolved. Null if not notified. */
+	private ISelectionListener selectionListener = null;
+	/** Time budget in milliseconds to search for the cheapest solution of each input selection. Zero to use the first solution found. */
+	private long optimizationBudget = 0;
+	/** Cancellation token checked during validation. Null if validation can only be interrupted. */
+	private CancellationToken cancellationToken = null;
+	/** Time of last access to session in milliseconds, used for idle session eviction */
+	private volatile long lastAccessTime = System.currentTimeMillis();
+	/** Count of input selections resolved by replaying the failed or successful validation of an identical selection */
+	private long replayedSelectionCount = 0;
+	/** Arena to re-use session objects removed while backtracking */
+	private final SessionObjectArena objectArena = new SessionObjectArena();
 	/** Re-usable comparator to correctly order session objects awaiting validation */
 	private final SessionObjectValidationOrderComparator sessionObjectValidationOrderComparator = new SessionObjectValidationOrderComparator();
 	
@@ -125,11 +154,44 @@ public final class Session {
 		// Throw exception if model object is not a parent object.
 		// Child objects are created only by their parents. 
 		// Rule model objects can not be created in a session.
-		if (!modelObject.isDescendant(knowledgeBase.getModelClass(Constants.BASE_OBJECT_CLASS))) {
+		if (!modelObject.isDescendant(knowledgeBase.getBaseObjectClass())) {
 			throw new EngineException("Cannot directly create session object for child model object ID: " + modelObjectId, getKnowledgeBase().getName(), getSessionId());
 		}
 
-		return new SessionObject(this, modelObject, getNextObjectId(), null);
+		return objectArena.obtainParent(this, modelObject, getNextObjectId());
+	}
+
+	/**
+	 * Package method to get session object arena
+	 * @return SessionObjectArena object
+	 */
+	SessionObjectArena getObjectArena() {
+		return objectArena;
+	}
+	
+	/**
+	 * Method to get count of session objects allocated for the session
+	 * @return Long count
+	 */
+	public long getAllocatedObjectCount() {
+		return objectArena.getAllocatedCount();
+	}
+	
+	/**
+	 * Method to get count of session objects re-used after removal while backtracking 
+	 * @return Long count
+	 */
+	public long getReusedObjectCount() {
+		return objectArena.getReusedCount();
+	}
+
+	/**
+	 * Method to get count of input selections resolved by replaying the failed validation of an identical selection, 
+	 * or the successful validation of an identical selection against the same provider state
+	 * @return Long count
+	 */
+	public long getReplayedSelectionCount() {
+		return replayedSelectionCount;
 	}
 
 	/**
@@ -176,45 +238,673 @@ public final class Session {
 	void addParentToValidationStack(SessionObject object, ValidationStep parentStep) throws EngineException {
 		List<SessionObject> childNeeders = object.getChildNeeders();
 		
-		// Add needer children to validation stack in reverse order of validation to maintain intended order
+		// Add needer children to validation stack in reverse order of validation to maintain intended order.
+		// Needers already satisfied are skipped, which only happens when repairing a solution after removal.
 		if (childNeeders.size() > 0) {
 			for(int i = childNeeders.size() - 1; i >= 0; i--) {
-				addNeederValidationStep(new ValidationStep(this, childNeeders.get(i), parentStep));
+				if (childNeeders.get(i).getValidationStatus() != ValidationStatus.SUCCESSFUL) {
+					addNeederValidationStep(new ValidationStep(this, childNeeders.get(i), parentStep));
+				}
 			}			
 		}
 	}
 	
 	/**
-	 * Method to create and queue an input selection prior to session validation
+	 * Method to create and queue an input selection for session validation. Selections queued after the 
+	 * session is validated are validated incrementally by the next validation, re-using the providers 
+	 * of the existing solution without re-validating previously validated selections.
 	 * @param selection InputSelection object with model object ID and quantity
-	 * @throws EngineException
+	 * @throws EngineException if validation is in progress
 	 */
 	public void createAndQueueSelection(InputSelection selection) throws EngineException {
-		// Throw exception if already validated. The intent here is to make the Session instance effectively stateless, but
-		// that can be changed in the future to also support stateful sessions that allow incremental validation. 
-		if (alreadyValidated) {
-			throw new EngineException("A Session instance is intended to be stateless and can only be validated once. Create a new Session instance to validate again.", getKnowledgeBase().getName(), getSessionId());
+		// Throw exception if validating, since the selection queue is being processed
+		claim("queue selection");
+		
+		try {
+			// Add selection to list
+			touch();
+			inputSelections.add(selection);
+			
+			// Setup session object queue from inputs
+			for(int i=0; i < selection.getSelectionQuantity(); i++) {
+				SessionObject object = createSessionObject(selection.getSelectionId());
+				selectionQueue.add(object);
+				selectionObjects.add(object);
+			}
+		}
+		finally {
+			releaseClaim();
+		}
+	}
+	
+	/**
+	 * Method to remove an input selection from the session and repair the solution locally. The most recently 
+	 * added session objects for the selection are removed, the provider quantities they consumed are released, 
+	 * and provider parents created for them that are no longer used by any needer are removed as well. Needers 
+	 * of remaining objects that lose their satisfying provider are then validated again, without re-validating 
+	 * the rest of the solution.
+	 * @param selection InputSelection object with model object ID and quantity to remove
+	 * @param token CancellationToken to check during repair, or null to only check for thread interruption
+	 * @throws EngineException if validation is in progress or the quantity exceeds the quantity selected
+	 * @throws ValidationCancelledException if repair was cancelled, in which case validating again resumes it
+	 */
+	public void removeSelection(InputSelection selection, CancellationToken token) throws EngineException {
+		claim("remove selection");
+		
+		try {
+			touch();
+			
+			// Find most recently added session objects for the selection
+			ModelObject modelObject = knowledgeBase.getModelObject(selection.getSelectionId());
+			List<SessionObject> removals = new ArrayList<SessionObject>();
+			for(int i = selectionObjects.size() - 1; i >= 0 && removals.size() < selection.getSelectionQuantity(); i--) {
+				if (selectionObjects.get(i).getModelObject() == modelObject) {
+					removals.add(selectionObjects.get(i));
+				}
+			}
+			if (removals.size() < selection.getSelectionQuantity()) {
+				throw new EngineException("Cannot remove " + selection.getSelectionQuantity() + " of input selection " + selection.getSelectionId() 
+											+ ", only " + removals.size() + " selected", getKnowledgeBase().getName(), getSessionId());
+			}
+			
+			// Retract the selected objects and any provider parents orphaned as a result
+			Set<SessionObject> removedParents = new LinkedHashSet<SessionObject>();
+			Set<SessionObject> affectedParents = new LinkedHashSet<SessionObject>();
+			Set<SessionObject> candidateParents = new LinkedHashSet<SessionObject>();
+			Set<SessionObject> selectedParents = Collections.newSetFromMap(new IdentityHashMap<SessionObject, Boolean>());
+			selectedParents.addAll(selectionObjects);
+			while(removals.size() > 0) {
+				for(SessionObject parent : removals) {
+					if (removedParents.add(parent)) {
+						retractParent(parent, affectedParents, candidateParents);
+					}
+				}
+			
+				// Auto-created provider parents none of whose providers remain in use are orphaned
+				removals.clear();
+				for(SessionObject candidate : candidateParents) {
+					if (!removedParents.contains(candidate) && !selectedParents.contains(candidate) && !isProviderInUse(candidate)) {
+						removals.add(candidate);
+					}
+				}
+				candidateParents.clear();
+			}
+			
+			// Remove retracted objects from session and recycle them
+			selectionObjects.removeAll(removedParents);
+			selectionQueue.removeAll(removedParents);
+			for(SessionObject parent : removedParents) {
+				recycleSessionObject(parent);
+			}
+			removeInputSelection(selection);
+			logger.debug("Removed {} session objects for input selection {}", removedParents.size(), selection.getSelectionId());
+			
+			// Queue remaining parents with needers that lost their provider, and repair the solution
+			Set<SessionObject> queuedParents = Collections.newSetFromMap(new IdentityHashMap<SessionObject, Boolean>());
+			queuedParents.addAll(selectionQueue);
+			for(SessionObject parent : affectedParents) {
+				if (!removedParents.contains(parent) && queuedParents.add(parent)) {
+					selectionQueue.add(parent);
+				}
+			}
+			validateClaimedSelections(token);
+		}
+		finally {
+			releaseClaim();
+		}
+	}
+	
+	/**
+	 * Helper method to retract a parent object being removed from the solution. Provider quantities consumed by 
+	 * its needers are released, and needers of other objects satisfied by its providers lose their provider.
+	 * @param parent SessionObject parent being removed
+	 * @param affectedParents Set of parents with needers that lost their provider, updated with the result
+	 * @param candidateParents Set of provider parents that may be orphaned, updated with the result
+	 * @throws EngineException
+	 */
+	private void retractParent(SessionObject parent, Set<SessionObject> affectedParents, Set<SessionObject> candidateParents) throws EngineException {
+		// Release providers consumed by own needers
+		for(SessionObject needer : parent.getChildNeeders()) {
+			SessionObject provider = releaseSatisfyingProvider(needer);
+			if (provider != null && provider.getParentObject() != parent) {
+				candidateParents.add(provider.getParentObject());
+			}
+		}
+		
+		// Release needers of other objects consuming own providers
+		for(int i=0; i < parent.getChildProviderCount(); i++) {
+			if (isProviderInUse(parent, i)) {
+				List<SessionObject> needers = new ArrayList<SessionObject>(parent.getChildProvider(i).getSatisfiedNeeders());
+				for(SessionObject needer : needers) {
+					if (needer.getParentObject() != parent) {
+						releaseSatisfyingProvider(needer);
+						affectedParents.add(needer.getParentObject());
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Helper method to release the provider quantity consumed by a satisfied needer and mark the needer as not validated
+	 * @param needer SessionObject for child needer
+	 * @return SessionObject for child provider released, or null if needer was not satisfied
+	 * @throws EngineException
+	 */
+	private SessionObject releaseSatisfyingProvider(SessionObject needer) throws EngineException {
+		if (needer.getValidationStatus() != ValidationStatus.SUCCESSFUL) {
+			return null;
 		}
 		
-		// Add selection to list
-		inputSelections.add(selection);
+		// Return consumed quantity to provider
+		SessionObject provider = getSessionObject((String) needer.getPropertyValue(Constants.SATISFYING_PROVIDER_MODEL_ID), 
+												  (String) needer.getPropertyValue(Constants.SATISFYING_PROVIDER_ID));
+		double quantityNeeded = ((Double) needer.getModelObject().getPropertyValue(Constants.QTY_NEEDED)).doubleValue();
+		double quantityProvided = ((Double) provider.getPropertyValue(Constants.QTY_PROVIDED)).doubleValue();
+		provider.setPropertyValue(Constants.QTY_PROVIDED, Double.valueOf(quantityProvided + quantityNeeded));
+		provider.removeSatisfiedNeeder(needer);
 		
-		// Setup session object queue from inputs
-		for(int i=0; i < selection.getSelectionQuantity(); i++) {
-			selectionQueue.add(createSessionObject(selection.getSelectionId()));
+		// Restore needer to its unvalidated model values
+		needer.removePropertyValue(Constants.QTY_NEEDED);
+		needer.removePropertyValue(Constants.SATISFYING_PROVIDER_MODEL_ID);
+		needer.removePropertyValue(Constants.SATISFYING_PROVIDER_ID);
+		needer.removePropertyValue(Constants.VALIDATION_STATUS);
+		
+		return provider;
+	}
+	
+	/**
+	 * Helper method to check if any child provider of a parent object is in use
+	 * @param parent SessionObject parent
+	 * @return true if a child provider has given some of its quantity to a needer, false otherwise
+	 */
+	private static boolean isProviderInUse(SessionObject parent) {
+		for(int i=0; i < parent.getChildProviderCount(); i++) {
+			if (isProviderInUse(parent, i)) {
+				return true;
+			}
 		}
+		
+		return false;
+	}
+	
+	/**
+	 * Helper method to check if a child provider of a parent object is in use. Providers not yet materialized are not in use.
+	 * @param parent SessionObject parent
+	 * @param index Integer index of child provider
+	 * @return true if the child provider has given some of its quantity to a needer, false otherwise
+	 */
+	private static boolean isProviderInUse(SessionObject parent, int index) {
+		if (!parent.isChildProviderMaterialized(index)) {
+			return false;
+		}
+		
+		SessionObject provider = parent.getChildProvider(index);
+		return ((Double) provider.getPropertyValue(Constants.QTY_PROVIDED)).doubleValue() 
+				< ((Double) provider.getModelObject().getPropertyValue(Constants.QTY_PROVIDED)).doubleValue();
+	}
+	
+	/**
+	 * Helper method to reduce the quantity of an input selection after its session objects are removed
+	 * @param selection InputSelection object with model object ID and quantity removed
+	 */
+	private void removeInputSelection(InputSelection selection) {
+		int quantity = selection.getSelectionQuantity();
+		
+		// Reduce most recent input selections first
+		for(int i = inputSelections.size() - 1; i >= 0 && quantity > 0; i--) {
+			InputSelection inputSelection = inputSelections.get(i);
+			if (inputSelection.getSelectionId().equals(selection.getSelectionId())) {
+				int remaining = inputSelection.getSelectionQuantity() - quantity;
+				quantity -= Math.min(quantity, inputSelection.getSelectionQuantity());
+				if (remaining > 0) {
+					inputSelections.set(i, new InputSelection(inputSelection.getSelectionId(), remaining));
+				}
+				else {
+					inputSelections.remove(i);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Method to add an input selection to the session and validate it incrementally, on top of the 
+	 * solution for previously validated selections. Equivalent to queuing the selection and validating.
+	 * @param selection InputSelection object with model object ID and quantity
+	 * @param token CancellationToken to check, or null to only check for thread interruption
+	 * @throws EngineException
+	 * @throws ValidationCancelledException if validation was cancelled, with the added selection still queued
+	 */
+	public void addSelection(InputSelection selection, CancellationToken token) throws EngineException {
+		createAndQueueSelection(selection);
+		validateSelections(token);
 	}
 	
 	/**
 	 * Method to trigger selection validation. Should be called after all selection inputs have been added.
+	 * Only selections queued since the last validation are validated.
+	 * Validation stops if the validating thread is interrupted.
 	 * @throws EngineException
+	 * @throws ValidationCancelledException if the validating thread was interrupted
 	 */
 	public void validateSelections() throws EngineException {
-		// Set validation flag on session
-		alreadyValidated = true;
+		validateSelections(null);
+	}
+	
+	/**
+	 * Method to trigger selection validation with a cancellation token. Should be called after all selection 
+	 * inputs have been added. Validation stops if the token is cancelled, its deadline passes, or the validating 
+	 * thread is interrupted. Input selections validated before that remain solved, and the input selection 
+	 * being validated is fully reverted. Calling this method again resumes validation.  
+	 * @param token CancellationToken to check, or null to only check for thread interruption
+	 * @throws EngineException
+	 * @throws EngineException if validation is in progress or the session was evicted
+	 * @throws ValidationCancelledException if validation was cancelled
+	 */
+	public void validateSelections(CancellationToken token) throws EngineException {
+		claim("validate selections");
+		
+		try {
+			validateClaimedSelections(token);
+		}
+		finally {
+			releaseClaim();
+		}
+	}
+	
+	/**
+	 * Helper method to validate queued selections once the session is claimed
+	 * @param token CancellationToken to check, or null to only check for thread interruption
+	 * @throws EngineException
+	 * @throws ValidationCancelledException if validation was cancelled
+	 */
+	private void validateClaimedSelections(CancellationToken token) throws EngineException {
+		// Set validation flags on session
+		cancellationToken = token;
+		touch();
+		
+		try {
+			validateSelectionQueue();
+		}
+		finally {
+			cancellationToken = null;
+			touch();
+		}
+	}
+	
+	/**
+	 * Method to set listener notified as each input selection is resolved during validation
+	 * @param listener ISelectionListener object, or null to stop notifications
+	 */
+	public void setSelectionListener(ISelectionListener listener) {
+		selectionListener = listener;
+	}
+	
+	/**
+	 * Method to set time budget to search for the cheapest solution of each input selection, by total price of 
+	 * the provider parents created for it. After the first solution is found, the search continues with 
+	 * branch-and-bound, skipping partial solutions no cheaper than the cheapest solution found so far, until 
+	 * all solutions are searched or the budget runs out. The cheapest solution found is then used.
+	 * Input selections are optimized one at a time in validation order.
+	 * @param milliseconds Long time budget per input selection, or zero to use the first solution found
+	 */
+	public void setOptimizationBudget(long milliseconds) {
+		optimizationBudget = Math.max(0, milliseconds);
+	}
+	
+	/**
+	 * Method to get time budget to search for the cheapest solution of each input selection
+	 * @return Long time budget in milliseconds, or zero if the first solution found is used
+	 */
+	public long getOptimizationBudget() {
+		return optimizationBudget;
+	}
+	
+	/**
+	 * Helper method to notify selection listener, if any, that an input selection is resolved. Provider parents 
+	 * created for the selection are those created by the steps in 'NEW' stage left on the processed stack.
+	 * @param selection SessionObject of input selection
+	 * @param processedSteps Flag to indicate if the processed stack holds the steps of this selection
+	 */
+	private void notifySelectionListener(SessionObject selection, boolean processedSteps) {
+		if (selectionListener == null) {
+			return;
+		}
+		
+		// Collect provider parents created for the selection in order of creation
+		List<SessionObject> createdObjects = new ArrayList<SessionObject>();
+		if (processedSteps) {
+			for(ValidationStep step : processedStack) {
+				if (step.getStage() == ValidationStage.NEW && step.getNewProviderParentCreated() != null) {
+					createdObjects.add(step.getNewProviderParentCreated());
+				}
+			}
+		}
+		
+		// Isolate validation from listener failures
+		try {
+			selectionListener.selectionValidated(this, selection, selection.getValidationStatus() == ValidationStatus.SUCCESSFUL, 
+												 Collections.unmodifiableList(createdObjects));
+		}
+		catch(RuntimeException e) {
+			logger.warn("Selection listener failed for input selection {}", selection, e);
+		}
+	}
+	
+	/**
+	 * Package method to stop validation if cancellation was requested. Checked before each validation step and rule.
+	 * @throws ValidationCancelledException if cancellation token was cancelled, its deadline passed, or the thread was interrupted
+	 */
+	void checkCancellation() throws ValidationCancelledException {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new ValidationCancelledException("Validation interrupted", getKnowledgeBase().getName(), getSessionId());
+		}
+		
+		if (cancellationToken != null && cancellationToken.isCancellationRequested()) {
+			throw new ValidationCancelledException(cancellationToken.isCancelled() ? "Validation cancelled" : "Validation deadline exceeded", 
+													getKnowledgeBase().getName(), getSessionId());
+		}
+	}
+	
+	/**
+	 * Helper method to fully revert the input selection being validated when validation is cancelled, 
+	 * and queue it again so validation can be resumed. Object and step ID counters are restored, since 
+	 * all objects created while validating the selection are removed, so resumed validation assigns the
+	 * same IDs as uninterrupted validation.
+	 * @param selection SessionObject of input selection being validated
+	 * @param startObjectId Integer object ID counter when validation of selection started
+	 * @param startStepId Integer step ID counter when validation of selection started
+	 */
+	private void revertCancelledSelection(SessionObject selection, int startObjectId, int startStepId) {
+		revertSelection(startObjectId, startStepId);
+		selectionQueue.add(0, selection);
+		
+		logger.debug("Reverted cancelled validation of input selection: {}", selection);
+	}
+	
+	/**
+	 * Helper method to fully revert the input selection being validated, restoring the ID counters
+	 * @param startObjectId Integer object ID counter when validation of selection started
+	 * @param startStepId Integer step ID counter when validation of selection started
+	 */
+	private void revertSelection(int startObjectId, int startStepId) {
+		// Revert processed steps in reverse order of processing
+		while(processedStack.size() > 0) {
+			processedStack.pop().revertChanges();
+		}
+		
+		// Discard unprocessed steps and restore ID counters
+		unprocessedStack.clear();
+		objectIdCounter = startObjectId;
+		stepIdCounter = startStepId;
+	}
+	
+	/**
+	 * Helper method to process the validation stack till it is empty, i.e., the input selection being validated succeeds or fails
+	 * @throws EngineException
+	 */
+	private void processValidationStack() throws EngineException {
+		while(unprocessedStack.size() > 0) {
+			// Stop if cancelled
+			checkCancellation();
+			
+			// Validate top item on the unprocessed stack
+			logger.debug("UNPROCESSED = {} :: PROCESSED = {}", unprocessedStack.toString(), processedStack.toString());
+			unprocessedStack.peek().validate();
+		}
+	}
+	
+	/**
+	 * Helper method to revert the input selection being validated and add it to the validation stack again
+	 * @param selection SessionObject of input selection being validated
+	 * @param startObjectId Integer object ID counter when validation of selection started
+	 * @param startStepId Integer step ID counter when validation of selection started
+	 * @throws EngineException
+	 */
+	void restartSelection(SessionObject selection, int startObjectId, int startStepId) throws EngineException {
+		revertSelection(startObjectId, startStepId);
+		for(SessionObject needer : selection.getChildNeeders()) {
+			needer.setPropertyValue(Constants.VALIDATION_STATUS, ValidationStatus.UNVALIDATED.toString());
+		}
+		addParentToValidationStack(selection, null);
+	}
+	
+	/**
+	 * Helper method to validate the input selection on the validation stack with its cheapest solution found within the 
+	 * optimization budget. If the search continued past the cheapest solution, the selection is reverted and the steps
+	 * recorded for that solution are replayed, which assigns the same object IDs without searching again.
+	 * @param selection SessionObject of input selection being validated
+	 * @param startObjectId Integer object ID counter when validation of selection started
+	 * @param startStepId Integer step ID counter when validation of selection started
+	 * @throws EngineException
+	 */
+	private void optimizeSelection(SessionObject selection, int startObjectId, int startStepId) throws EngineException {
+		SolutionPath cheapestSolution = searchSolutions(selection, startObjectId, startStepId, System.currentTimeMillis() + optimizationBudget);
+		
+		// Replay the cheapest solution, or validate with the first solution if it cannot be replayed
+		if (cheapestSolution != null) {
+			restartSelection(selection, startObjectId, startStepId);
+			if (!cheapestSolution.replay(selection, startObjectId, startStepId, null)) {
+				logger.warn("Unable to replay cheapest solution of input selection {}", selection);
+				restartSelection(selection, startObjectId, startStepId);
+				processValidationStack();
+			}
+		}
+	}
+	
+	/**
+	 * Helper method to search solutions of the input selection on the validation stack in order, with branch-and-bound 
+	 * on total price of provider parents created. Once a solution is found, partial solutions no cheaper than the cheapest 
+	 * solution found are backtracked, and each solution found is rejected to search for the next one. The deadline is 
+	 * checked before each step once a solution is found, so the search stops promptly when the budget runs out.
+	 * @param selection SessionObject of input selection being validated
+	 * @param startObjectId Integer object ID counter when validation of selection started
+	 * @param startStepId Integer step ID counter when validation of selection started
+	 * @param deadline Long time in milliseconds after which the search stops once a solution is found
+	 * @return SolutionPath of cheapest solution if the session must be reverted to hold it, or null if the session
+	 * holds the cheapest solution, or the failed selection if no solution exists
+	 * @throws EngineException
+	 */
+	private SolutionPath searchSolutions(SessionObject selection, int startObjectId, int startStepId, long deadline) throws EngineException {
+		int solutionCount = 0;
+		SolutionPath cheapestSolution = null;
+		double cheapestPrice = Double.MAX_VALUE;
+		
+		while(true) {
+			// Process stack till the next solution is found or no solutions remain, backtracking partial solutions that cannot be cheaper
+			while(unprocessedStack.size() > 0) {
+				checkCancellation();
+				if (cheapestSolution != null && System.currentTimeMillis() > deadline) {
+					logger.debug("...Optimization budget used after {} solutions", solutionCount);
+					return cheapestSolution;
+				}
+				if (cheapestSolution != null && getCreatedPrice() >= cheapestPrice) {
+					failValidationStep(unprocessedStack.peek());
+				}
+				else {
+					unprocessedStack.peek().validate();
+				}
+			}
+			if (selection.getValidationStatus() != ValidationStatus.SUCCESSFUL) {
+				return cheapestSolution;
+			}
+			
+			// Record steps of solution found if it is the cheapest so far
+			solutionCount++;
+			double price = getCreatedPrice();
+			boolean cheapest = price < cheapestPrice;
+			if (cheapest) {
+				cheapestSolution = new SolutionPath(this, startObjectId, startStepId);
+				cheapestPrice = price;
+			}
+			
+			// Stop at cheapest solution if it cannot be cheaper or the budget ran out, else stop if the budget ran out
+			boolean budgetUsed = System.currentTimeMillis() > deadline;
+			if (cheapest && (price <= 0 || budgetUsed || processedStack.isEmpty())) {
+				return null;
+			}
+			if (budgetUsed) {
+				return cheapestSolution;
+			}
+			
+			logger.debug("...Rejecting solution {} with price {}", solutionCount, price);
+			rejectSolution();
+		}
+	}
+	
+	/**
+	 * Helper method to reject the solution found by reverting the last step processed, so the search continues 
+	 * with its next alternative
+	 * @return true if rejected, false if no step was processed, i.e., no other solution exists
+	 */
+	private boolean rejectSolution() {
+		if (processedStack.isEmpty()) {
+			return false;
+		}
+		
+		ValidationStep lastSuccessful = processedStack.pop();
+		lastSuccessful.revertChanges();
+		unprocessedStack.push(lastSuccessful);
+		
+		return true;
+	}
+	
+	/**
+	 * Method to enumerate alternative solutions of the queued input selections, streaming up to a maximum number 
+	 * of distinct solutions to a listener as they are found. Queued selections are validated together, so the search
+	 * backtracks across selections, and each solution found is rejected to continue with the next alternative. 
+	 * Solutions with the same canonical form as a solution streamed before are skipped. Only compact snapshots 
+	 * of solutions are streamed, and the session is left as before with its selections still queued.
+	 * Every alternative is searched when fewer solutions exist than the maximum, so use a token with a deadline 
+	 * to bound enumeration of large selections.
+	 * @param maximum Integer maximum number of distinct solutions to stream
+	 * @param listener ISolutionListener to stream solutions to
+	 * @param token CancellationToken to check, or null to only check for thread interruption
+	 * @return Integer count of distinct solutions streamed
+	 * @throws EngineException if the maximum is not positive, the listener is null, or validation is in progress
+	 * @throws ValidationCancelledException if enumeration was cancelled, with solutions found so far streamed
+	 */
+	public int enumerateSolutions(int maximum, ISolutionListener listener, CancellationToken token) throws EngineException {
+		// Reject invalid arguments before changing the session
+		if (maximum <= 0) {
+			throw new EngineException("Maximum number of solutions must be positive, not " + maximum, getKnowledgeBase().getName(), getSessionId());
+		}
+		if (listener == null) {
+			throw new EngineException("Solution listener must be specified", getKnowledgeBase().getName(), getSessionId());
+		}
+		claim("enumerate solutions");
+		
+		// Set validation flags on session
+		cancellationToken = token;
+		touch();
+		
+		List<SessionObject> selections = new ArrayList<SessionObject>(selectionQueue);
+		Collections.sort(selections, getSessionObjectValidationOrderComparator());
+		int startObjectId = objectIdCounter;
+		int startStepId = stepIdCounter;
+		Set<String> canonicalForms = new HashSet<String>();
+		int solutionCount = 0;
+		unprocessedStack.clear();
+		processedStack.clear();
+		
+		try {
+			while(solutionCount < maximum) {
+				// Process stack till the pending selections succeed or no solutions remain
+				processValidationStack();
+				
+				// Validate next selection not yet satisfied, stopping if a selection failed
+				SessionObject nextSelection = null;
+				for(SessionObject selection : selections) {
+					if (selection.getValidationStatus() != ValidationStatus.SUCCESSFUL) {
+						nextSelection = selection;
+						break;
+					}
+				}
+				if (nextSelection != null) {
+					if (nextSelection.getValidationStatus() == ValidationStatus.FAILED) {
+						break;
+					}
+					addParentToValidationStack(nextSelection, null);
+					continue;
+				}
+				
+				// Stream solution unless it duplicates one streamed before
+				SolutionSnapshot solution = new SolutionSnapshot(solutionCount + 1, getParentObjects());
+				if (canonicalForms.add(solution.getCanonicalForm())) {
+					solutionCount++;
+					logger.debug("...Found {}", solution);
+					listener.solutionFound(this, solution);
+				}
+				
+				// Reject solution to find the next one
+				if (!rejectSolution()) {
+					break;
+				}
+			}
+		}
+		finally {
+			// Revert to queued selections
+			revertSelection(startObjectId, startStepId);
+			for(SessionObject selection : selections) {
+				for(SessionObject needer : selection.getChildNeeders()) {
+					if (needer.getValidationStatus() == ValidationStatus.FAILED) {
+						needer.setPropertyValue(Constants.VALIDATION_STATUS, ValidationStatus.UNVALIDATED.toString());
+					}
+				}
+			}
+			
+			cancellationToken = null;
+			releaseClaim();
+			touch();
+		}
+		
+		return solutionCount;
+	}
+	
+	/**
+	 * Helper method to get parent session objects in the session
+	 * @return List of parent SessionObject
+	 */
+	private List<SessionObject> getParentObjects() {
+		List<SessionObject> parentObjects = new ArrayList<SessionObject>();
 		
+		for(Map<String, SessionObject> objects : sessionObjects.values()) {
+			for(SessionObject object : objects.values()) {
+				if (object.getParentObject() == null) {
+					parentObjects.add(object);
+				}
+			}
+		}
+		
+		return parentObjects;
+	}
+	
+	/**
+	 * Helper method to get total price of provider parents created by the steps on the processed stack
+	 * @return Double total price
+	 */
+	private double getCreatedPrice() {
+		double price = 0;
+		
+		for(ValidationStep step : processedStack) {
+			if (step.getStage() == ValidationStage.NEW && step.getNewProviderParentCreated() != null) {
+				price += ((Double) step.getNewProviderParentCreated().getPropertyValue(Constants.PRICE)).doubleValue();
+			}
+		}
+		
+		return price;
+	}
+	
+	/**
+	 * Helper method to process the selection queue till it is empty
+	 * @throws EngineException
+	 */
+	private void validateSelectionQueue() throws EngineException {
 		// Sort selection queue for inputs by validation order
 		Collections.sort(selectionQueue, getSessionObjectValidationOrderComparator());
+		
+		// Remembered validations of identical selections while the queue is processed
+		SelectionMemo memo = new SelectionMemo(this);
 
 		// Process ordered selection queue till it is empty
 		while(selectionQueue.size() > 0) {
@@ -234,32 +924,86 @@ public final class Session {
 			
 			// If unvalidated selection exists, process it
 			if (nextUnvalidatedSelectionIndex >= 0) {
-				// Remove any queued selections that have already been validated
+				// Remove any queued selections that have already been validated, which precede the next unvalidated selection
 				for(int removeIndex=0; removeIndex < nextUnvalidatedSelectionIndex; removeIndex++) {
-					selectionQueue.remove(removeIndex);
+					notifySelectionListener(selectionQueue.remove(0), false);
 				}
 				
 				logger.debug("Starting validation of input selection: {}", selectionQueue.get(0));
 				// Add next un-validated selection to processing stack
-				addParentToValidationStack(selectionQueue.remove(0), null);
+				SessionObject selection = selectionQueue.remove(0);
+				int startObjectId = objectIdCounter;
+				int startStepId = stepIdCounter;
+				
+				// Replay failed validation of an identical selection if the session has not changed since
+				boolean replayable = SelectionMemo.isReplayable(selection);
+				if (replayable && memo.replayFailure(selection)) {
+					replayedSelectionCount++;
+					logger.debug("Replayed failed validation of input selection: {}", selection);
+					notifySelectionListener(selection, true);
+					continue;
+				}
+				
+				// Capture provider state to find successful validation of an identical selection
+				SelectionMemo.ProviderState state = replayable ? memo.getProviderState(selection, selectionQueue.isEmpty() ? null : selectionQueue.get(0), startObjectId, startStepId) : null;
+				addParentToValidationStack(selection, null);
 	
-				// Process stack till it is empty (i.e., succeeds or fails)
-	   		    while(unprocessedStack.size() > 0) {
-					// Validate top item on the unprocessed stack
-	   		    	logger.debug("UNPROCESSED = {} :: PROCESSED = {}", unprocessedStack.toString(), processedStack.toString());
-					unprocessedStack.peek().validate();
-				}		
+				// Process stack till it is empty (i.e., succeeds or fails), searching for the cheapest solution if optimizing
+				try {
+					if (state != null && memo.replaySuccess(state)) {
+						replayedSelectionCount++;
+						logger.debug("Replayed successful validation of input selection: {}", selection);
+					}
+					else {
+						if (optimizationBudget > 0) {
+							optimizeSelection(selection, startObjectId, startStepId);
+						}
+						else {
+							processValidationStack();
+						}
+						memo.rememberSuccess(state);
+					}
+				}
+				catch(ValidationCancelledException e) {
+					revertCancelledSelection(selection, startObjectId, startStepId);
+					throw e;
+				}
 	
 	   		    // Log current state when debugging
 				logger.debug("UNPROCESSED = {} :: PROCESSED = {}", unprocessedStack.toString(), processedStack.toString());
+				
+				// Remember failure for identical selections, or forget failures once the session has changed
+				memo.rememberResult(selection, replayable && processedStack.isEmpty(), objectIdCounter - startObjectId, stepIdCounter - startStepId);
+				notifySelectionListener(selection, true);
 			}
 			// Else, clear already validated queue if necessary and exit
 			else {
+				for(SessionObject validatedSelection : selectionQueue) {
+					notifySelectionListener(validatedSelection, false);
+				}
 				selectionQueue.clear();
 			}
 		}
 	}
 	
+	/**
+	 * Package method to get read-only map of session objects by object ID for each model object, in order of creation of the first
+	 * @return Map of session objects by object ID for each ModelObject
+	 */
+	Map<ModelObject, Map<String, SessionObject>> getSessionObjectMap() {
+		return Collections.unmodifiableMap(sessionObjects);
+	}
+	
+	/**
+	 * Package method to advance the object and step ID counters past the IDs a replayed validation would assign
+	 * @param objectIdCount Integer count of object IDs to skip
+	 * @param stepIdCount Integer count of step IDs to skip
+	 */
+	void advanceIdCounters(int objectIdCount, int stepIdCount) {
+		objectIdCounter += objectIdCount;
+		stepIdCounter += stepIdCount;
+	}
+	
 	/**
 	 * Method to get modifiable list of session objects corresponding to a model object
 	 * @param modelObject ModelObject from which session objects were created
@@ -338,6 +1082,16 @@ public final class Session {
 		sessionObjects.get(object.getModelObject()).remove(object.getObjectId());
 	}
 	
+	/**
+	 * Helper method to remove a speculatively created session object from the session
+	 * and release it and its child objects to the session arena for re-use. 
+	 * @param object SessionObject to remove and recycle
+	 */
+	void recycleSessionObject(SessionObject object) {
+		removeFromSession(object);
+		object.releaseTo(objectArena);
+	}
+	
 	/**
 	 * Helper method to add a validation step for a needer object to the top of the processing stack
 	 * @param step ValidationStep object
@@ -430,13 +1184,275 @@ public final class Session {
 		}
 	}
 	
+	/**
+	 * Package method to record access to session for idle session eviction
+	 */
+	void touch() {
+		lastAccessTime = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Method to get time of last access to session
+	 * @return Long time in milliseconds
+	 */
+	public long getLastAccessTime() {
+		return lastAccessTime;
+	}
+	
+	/**
+	 * Method to get count of input selection session objects that failed validation
+	 * @return Integer count
+	 */
+	public int getFailedSelectionCount() {
+		int failedCount = 0;
+		
+		for(SessionObject selection : selectionObjects) {
+			if (selection.getValidationStatus() == ValidationStatus.FAILED) {
+				failedCount++;
+			}
+		}
+		
+		return failedCount;
+	}
+	
+	/**
+	 * Method to check if session validation, or a change to its selections, is in progress
+	 * @return True if validating, false otherwise
+	 */
+	public boolean isValidationInProgress() {
+		return claimed.get();
+	}
+	
+	/**
+	 * Helper method to claim the session for validation or a change, so it is not evicted or changed concurrently
+	 * @param action String description of action for the exception message
+	 * @throws EngineException if validation is in progress or the session was evicted
+	 */
+	private void claim(String action) throws EngineException {
+		if (!claimed.compareAndSet(false, true)) {
+			throw new EngineException("Cannot " + action + " while validation is in progress", getKnowledgeBase().getName(), getSessionId());
+		}
+		
+		// Release claim again if evicted, since the session data was cleared
+		if (evicted) {
+			claimed.set(false);
+			throw new EngineException("Cannot " + action + " since session was evicted", getKnowledgeBase().getName(), getSessionId());
+		}
+	}
+	
+	/**
+	 * Helper method to release the claim on the session
+	 */
+	private void releaseClaim() {
+		claimed.set(false);
+	}
+	
+	/**
+	 * Package method to claim the session for eviction, unless it is being validated or changed. The 
+	 * session is marked evicted and its data cleared, so later validation or changes throw.
+	 * @return True if claimed and evicted, false if being validated or changed
+	 */
+	boolean evict() {
+		if (!claimed.compareAndSet(false, true)) {
+			return false;
+		}
+		
+		try {
+			evicted = true;
+			prepareForDeletion();
+			return true;
+		}
+		finally {
+			claimed.set(false);
+		}
+	}
+	
+	/**
+	 * Method to check if session was evicted
+	 * @return True if evicted, false otherwise
+	 */
+	public boolean isEvicted() {
+		return evicted;
+	}
+	
+	/**
+	 * Method to fork the session into an independent session with a copy of its input selections and 
+	 * current solution, for example to explore alternative additions to a validated configuration. 
+	 * Session objects are copied without re-validation, while model data is shared. The fork has its 
+	 * own session ID, continues the object IDs of this session, and can be changed and validated 
+	 * concurrently with this session and other forks. This session must not be modified while forking.
+	 * @return Session forked
+	 * @throws EngineException if validation is in progress
+	 */
+	public Session fork() throws EngineException {
+		claim("fork session");
+		
+		try {
+			touch();
+			
+			Session forked = new Session(knowledgeBase);
+			forked.copyFrom(this);
+			
+			return forked;
+		}
+		finally {
+			releaseClaim();
+		}
+	}
+	
+	/**
+	 * Package method to replace the inputs and solution of this session with a copy of those of a 
+	 * template session against the same knowledge base. The template is only read.
+	 * @param template Session object to copy
+	 * @throws EngineException if validation is in progress
+	 */
+	void restoreFrom(Session template) throws EngineException {
+		reset();
+		copyFrom(template);
+	}
+	
+	/**
+	 * Helper method to copy inputs, session objects and validation counters of a source session into this empty session
+	 * @param source Session object to copy
+	 */
+	private void copyFrom(Session source) {
+		objectIdCounter = source.objectIdCounter;
+		stepIdCounter = source.stepIdCounter;
+		inputSelections.addAll(source.inputSelections);
+		
+		// Copy session objects in the same order, then link the copies to each other
+		Map<SessionObject, SessionObject> copies = new IdentityHashMap<SessionObject, SessionObject>();
+		for(Map.Entry<ModelObject, Map<String, SessionObject>> entry : source.sessionObjects.entrySet()) {
+			Map<String, SessionObject> copiedObjects = new LinkedHashMap<String, SessionObject>();
+			for(SessionObject object : entry.getValue().values()) {
+				SessionObject copy = new SessionObject(this, object);
+				copies.put(object, copy);
+				copiedObjects.put(copy.getObjectId(), copy);
+			}
+			sessionObjects.put(entry.getKey(), copiedObjects);
+		}
+		for(Map.Entry<SessionObject, SessionObject> entry : copies.entrySet()) {
+			entry.getValue().copyLinks(entry.getKey(), copies);
+		}
+		
+		// Copy selection objects and queued selections
+		for(SessionObject object : source.selectionObjects) {
+			selectionObjects.add(copies.get(object));
+		}
+		for(SessionObject object : source.selectionQueue) {
+			selectionQueue.add(copies.get(object));
+		}
+	}
+	
+	/**
+	 * Package method to get canonical form of the input selections of a session that has not been 
+	 * validated, i.e., selection IDs in sorted order with quantities summed. Sessions with the same 
+	 * canonical selections against the same knowledge base version have the same solution.
+	 * @return String canonical selections, or null if the session has validated or no selections
+	 */
+	String getCanonicalSelections() {
+		if (selectionQueue.isEmpty() || selectionQueue.size() != selectionObjects.size()) {
+			return null;
+		}
+		
+		// Sum quantities by selection ID in sorted order
+		Map<String, Integer> quantities = new TreeMap<String, Integer>();
+		for(InputSelection selection : inputSelections) {
+			Integer quantity = quantities.get(selection.getSelectionId());
+			quantities.put(selection.getSelectionId(), (quantity != null ? quantity : 0) + selection.getSelectionQuantity());
+		}
+		
+		return quantities.toString();
+	}
+	
+	/**
+	 * Package method to check if a selection listener is set
+	 * @return true if set
+	 */
+	boolean hasSelectionListener() {
+		return selectionListener != null;
+	}
+	
+	/**
+	 * Method to reset session so it can be re-used for new input selections against the same knowledge base.
+	 * Session objects are released to the session arena and internal collections are cleared but retained, 
+	 * so a reset session allocates less than a new session. Object and step IDs restart from their initial 
+	 * values, so a reset session produces the same output as a new session for the same input selections.
+	 * The selection listener and optimization budget are cleared. The session ID is kept, so a session registered 
+	 * with the session manager can still be found and removed by its ID.
+	 * @throws EngineException if validation is in progress
+	 */
+	public void reset() throws EngineException {
+		claim("reset session");
+		
+		try {
+			// Collect parent objects before releasing, since releasing clears parent references of children
+			List<SessionObject> parentObjects = new ArrayList<SessionObject>();
+			for(Map<String, SessionObject> objects : sessionObjects.values()) {
+				for(SessionObject object : objects.values()) {
+					if (object.getParentObject() == null) {
+						parentObjects.add(object);
+					}
+				}
+				objects.clear();
+			}
+			
+			// Release parent objects along with their children to the arena for re-use
+			for(SessionObject object : parentObjects) {
+				object.releaseTo(objectArena);
+			}
+			
+			// Clear inputs and validation state
+			inputSelections.clear();
+			selectionQueue.clear();
+			selectionObjects.clear();
+			unprocessedStack.clear();
+			processedStack.clear();
+			objectIdCounter = INITIAL_OBJECT_ID;
+			stepIdCounter = 0;
+			
+			// Clear validation settings
+			selectionListener = null;
+			optimizationBudget = 0;
+			touch();
+		}
+		finally {
+			releaseClaim();
+		}
+	}
+	
+	/**
+	 * Package method to assign a new session ID to a pooled session borrowed by a new user, 
+	 * so that the ID of a previous user does not refer to the re-used session
+	 */
+	void renewSessionId() {
+		sessionId = UUID.randomUUID().toString();
+	}
+	
+	/**
+	 * Package method to mark session as returned to the session manager
+	 * @return True if marked, false if already returned
+	 */
+	boolean markReturned() {
+		return returned.compareAndSet(false, true);
+	}
+	
+	/**
+	 * Package method to mark session as borrowed again from the session manager, or as not returned
+	 */
+	void markBorrowed() {
+		returned.set(false);
+	}
+	
 	/**
 	 * Method to prepare session for deletion by clearing data
 	 */
 	void prepareForDeletion() {
 		inputSelections.clear();
 		selectionQueue.clear();
+		selectionObjects.clear();
 		sessionObjects.clear();
+		objectArena.clear();
 	}
 	
 	/**
@@ -495,5 +1511,139 @@ public final class Session {
 		
 		return sb.toString();
 	}
+	
+	/**
+	 * Inner class to record the steps of a solution of an input selection, so the solution can be replayed by 
+	 * satisfying each step the way it was satisfied, without computing its alternatives or searching for it again
+	 */
+	static final class SolutionPath {
+		/** Stage of each step on the processed stack */
+		private final ValidationStage[] stages;
+		/** Index of alternative chosen by each step on the processed stack */
+		private final int[] alternatives;
+		/** Provider parent created by each step in 'NEW' stage, or null */
+		private final ModelObject[] newProviders;
+		/** Provider parent used by each step in another stage that existed before the validation, or null */
+		private final SessionObject[] existingProviderParents;
+		/** Model object of provider parent used or created by each step */
+		private final ModelObject[] providerModelObjects;
+		/** Offset from start of object ID of provider parent used or created by each step, or zero if it existed before */
+		private final int[] objectIdOffsets;
+		/** Index of child provider used by each step in another stage, or -1 if the provider parent itself was used */
+		private final int[] childProviderIndexes;
+		/** Count of object IDs assigned by the validation up to the solution */
+		private final int objectIdCount;
+		/** Count of step IDs assigned by the validation up to the solution */
+		private final int stepIdCount;
+		
+		/**
+		 * Constructor to record the solution held by the processed stack of a session
+		 * @param session Session holding solution
+		 * @param startObjectId Integer object ID counter when validation of selection started
+		 * @param startStepId Integer step ID counter when validation of selection started
+		 */
+		SolutionPath(Session session, int startObjectId, int startStepId) {
+			int stepCount = session.processedStack.size();
+			stages = new ValidationStage[stepCount];
+			alternatives = new int[stepCount];
+			newProviders = new ModelObject[stepCount];
+			existingProviderParents = new SessionObject[stepCount];
+			providerModelObjects = new ModelObject[stepCount];
+			objectIdOffsets = new int[stepCount];
+			childProviderIndexes = new int[stepCount];
+			
+			for(int position=0; position < stepCount; position++) {
+				ValidationStep step = session.processedStack.get(position);
+				stages[position] = step.getStage();
+				alternatives[position] = step.getChosenAlternative();
+				
+				// Record provider parent created, or provider used and its parent
+				SessionObject providerParent = step.getNewProviderParentCreated();
+				int childProviderIndex = -1;
+				if (providerParent == null) {
+					SessionObject provider = step.getExistingProviderUsed();
+					providerParent = provider.getParentObject() != null ? provider.getParentObject() : provider;
+					for(int i=0; i < providerParent.getChildProviderCount(); i++) {
+						if (providerParent.isChildProviderMaterialized(i) && providerParent.getChildProvider(i) == provider) {
+							childProviderIndex = i;
+							break;
+						}
+					}
+				}
+				int objectIdOffset = Integer.parseInt(providerParent.getObjectId()) - startObjectId;
+				newProviders[position] = step.getStage() == ValidationStage.NEW ? providerParent.getModelObject() : null;
+				existingProviderParents[position] = objectIdOffset > 0 ? null : providerParent;
+				providerModelObjects[position] = providerParent.getModelObject();
+				objectIdOffsets[position] = Math.max(0, objectIdOffset);
+				childProviderIndexes[position] = childProviderIndex;
+			}
+			objectIdCount = session.objectIdCounter - startObjectId;
+			stepIdCount = session.stepIdCounter - startStepId;
+		}
+		
+		/**
+		 * Method to get count of object IDs assigned by the validation up to the solution
+		 * @return Integer count
+		 */
+		int getObjectIdCount() {
+			return objectIdCount;
+		}
+		
+		/**
+		 * Method to replay the solution for an input selection whose needers are on the validation stack. 
+		 * Provider parents are created with the same object ID offsets as recorded, and provider parents that 
+		 * existed before the validation are used as recorded, or as mapped to those of another session state.
+		 * @param selection SessionObject of input selection
+		 * @param startObjectId Integer object ID counter when validation of selection started
+		 * @param startStepId Integer step ID counter when validation of selection started
+		 * @param providerParentMap Map of provider parents to use by recorded provider parent, or null to use those recorded
+		 * @return true if replayed, false if a step could not be satisfied as recorded
+		 * @throws EngineException
+		 */
+		boolean replay(SessionObject selection, int startObjectId, int startStepId, Map<SessionObject, SessionObject> providerParentMap) throws EngineException {
+			Session session = selection.getSession();
+			
+			// Satisfy each step as recorded in order
+			while(session.unprocessedStack.size() > 0) {
+				session.checkCancellation();
+				int position = session.processedStack.size();
+				if (position >= stages.length) {
+					return false;
+				}
+				ValidationStep step = session.unprocessedStack.peek();
+				
+				// Find provider used
+				SessionObject provider = null;
+				if (newProviders[position] == null) {
+					SessionObject providerParent = existingProviderParents[position];
+					if (providerParent == null) {
+						Map<String, SessionObject> objects = session.sessionObjects.get(providerModelObjects[position]);
+						providerParent = objects != null ? objects.get(Integer.toString(startObjectId + objectIdOffsets[position])) : null;
+					}
+					else if (providerParentMap != null) {
+						providerParent = providerParentMap.get(providerParent);
+					}
+					if (providerParent == null) {
+						return false;
+					}
+					int childProviderIndex = childProviderIndexes[position];
+					provider = childProviderIndex >= 0 ? providerParent.getChildProvider(childProviderIndex) : providerParent;
+				}
+				// Else, create provider parent with recorded ID
+				else if (step.getStage() == ValidationStage.NEW) {
+					session.objectIdCounter = startObjectId + objectIdOffsets[position] - 1;
+				}
+				
+				if (!step.replay(stages[position], alternatives[position], provider, newProviders[position])) {
+					return false;
+				}
+			}
+			
+			// Restore ID counters as they were at the solution
+			session.objectIdCounter = startObjectId + objectIdCount;
+			session.stepIdCounter = startStepId + stepIdCount;
+			
+			return selection.getValidationStatus() == ValidationStatus.SUCCESSFUL && session.processedStack.size() == stages.length;
+		}
+	}
 }
-
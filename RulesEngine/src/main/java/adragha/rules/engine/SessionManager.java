@@ -26,17 +26,47 @@ package adragha.rules.engine;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import adragha.rules.engine.comparator.KnowledgeBaseLastAccessComparator;
+import adragha.rules.engine.comparator.SessionLastAccessComparator;
+
 /**
  * Class to load knowledge bases and create, save, restore 
  * and remove rule engine sessions.
@@ -47,24 +77,82 @@ import org.slf4j.LoggerFactory;
 public final class SessionManager {
 	/** Logger for session manager level logging */
 	static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
+	/** Quiet period in milliseconds to coalesce bursts of model file changes before reload */
+	private static final long RELOAD_QUIET_PERIOD = 250;
+	/** Maximum number of parent model objects selected together by a warm-up session, to bound its size for large models */
+	private static final int WARM_UP_COMBINED_SELECTIONS = 50;
 	/** Singleton instance */
 	private static SessionManager thisInstance = new SessionManager(); 
 	/** System properties */
 	private Properties properties = null;
-	/** Map of knowledge bases loaded */
-	private Map<String, KnowledgeBase> knowledgeBases = null;
-	/** List of in-progress session */
-	private List<Session> sessions = null;
+	/** Map of current version of knowledge bases by name, as load futures. Entries are replaced atomically on reload. */
+	private ConcurrentMap<String, CompletableFuture<KnowledgeBase>> knowledgeBases = null;
+	/** Counter for knowledge base versions */
+	private final AtomicLong knowledgeBaseVersion = new AtomicLong();
+	/** Memory budget of loaded knowledge bases in bytes. Zero if unlimited. */
+	private volatile long knowledgeBaseMemoryBudget = 0;
+	/** Count of knowledge base loads and reloads */
+	private final AtomicLong knowledgeBaseLoadCount = new AtomicLong();
+	/** Count of knowledge base requests served by an already loaded or loading knowledge base */
+	private final AtomicLong knowledgeBaseHitCount = new AtomicLong();
+	/** Count of knowledge bases unloaded to stay within the memory budget */
+	private final AtomicLong evictedKnowledgeBaseCount = new AtomicLong();
+	/** Re-usable comparator to order knowledge bases for unloading */
+	private final KnowledgeBaseLastAccessComparator knowledgeBaseLastAccessComparator = new KnowledgeBaseLastAccessComparator();
+	/** Watch service for model path changes. Null if not watching. */
+	private WatchService modelWatchService = null;
+	/** Thread reloading knowledge bases on model path changes. Null if not watching. */
+	private Thread modelWatcherThread = null;
+	/** Concurrent map of in-progress sessions by session ID */
+	private ConcurrentMap<String, Session> sessions = null;
+	/** Idle time to live of sessions in milliseconds. Zero if idle sessions are not evicted. */
+	private volatile long sessionTimeToLive = 0;
+	/** Maximum number of sessions. Zero if unlimited. */
+	private volatile int maximumSessions = 0;
+	/** Executor to periodically evict idle sessions. Null if idle sessions are not evicted. */
+	private ScheduledExecutorService sessionEvictor = null;
+	/** Count of sessions evicted */
+	private final AtomicLong evictedSessionCount = new AtomicLong();
+	/** Map of pools of reset sessions by knowledge base name */
+	private ConcurrentMap<String, BlockingQueue<Session>> sessionPools = null;
+	/** Maximum number of pooled sessions per knowledge base. Zero if sessions are not pooled. */
+	private volatile int maximumPooledSessions = 0;
+	/** Count of sessions re-used from a pool */
+	private final AtomicLong reusedSessionCount = new AtomicLong();
+	/** Cache of validated sessions by knowledge base version and canonical input selections */
+	private volatile SessionResultCache resultCache = new SessionResultCache(0, 0);
+	/** Executor for asynchronous validation. Created from properties on first use if not set. */
+	private volatile Executor validationExecutor = null;
+	/** Count of asynchronous validations waiting to start */
+	private final AtomicInteger queuedValidationCount = new AtomicInteger();
+	/** Count of asynchronous validations running */
+	private final AtomicInteger activeValidationCount = new AtomicInteger();
+	/** Count of asynchronous validations completed successfully */
+	private final AtomicLong completedValidationCount = new AtomicLong();
+	/** Count of asynchronous validations completed with an exception */
+	private final AtomicLong failedValidationCount = new AtomicLong();
+	/** Count of asynchronous validations cancelled before they started or while running */
+	private final AtomicLong cancelledValidationCount = new AtomicLong();
+	/** Count of asynchronous validations rejected by admission control */
+	private final AtomicLong rejectedValidationCount = new AtomicLong();
+	/** Map of validation admission gates by knowledge base name. Created from properties on first use. */
+	private ConcurrentMap<String, ValidationGate> validationGates = null;
+	/** Flag to indicate if warm-up completed */
+	private volatile boolean warm = false;
+	/** Re-usable comparator to order sessions for eviction */
+	private final SessionLastAccessComparator sessionLastAccessComparator = new SessionLastAccessComparator();
 	/** Singleton instance initialization */
-	private boolean initialized = false;
+	private volatile boolean initialized = false;
 	
 	/**
 	 * Private constructor for singleton instance
 	 */
 	private SessionManager () {
 		properties = new Properties();		
-		knowledgeBases = new HashMap<String, KnowledgeBase>();
-		sessions = new ArrayList<Session>();
+		knowledgeBases = new ConcurrentHashMap<String, CompletableFuture<KnowledgeBase>>();
+		sessions = new ConcurrentHashMap<String, Session>();
+		validationGates = new ConcurrentHashMap<String, ValidationGate>();
+		sessionPools = new ConcurrentHashMap<String, BlockingQueue<Session>>();
 	}
 	
 	/**
@@ -84,12 +172,27 @@ public final class SessionManager {
 	 * @throws IOException
 	 */
 	public static SessionManager getManager(String propertiesFileName) throws IOException {
+		// Avoid locking once initialized
+		if (thisInstance.initialized) {
+			return thisInstance;
+		}
+		
 		synchronized(thisInstance) {
 			if (!thisInstance.initialized) {
 				// Load properties file if not initialized
 				FileInputStream in = new FileInputStream(propertiesFileName);
 				thisInstance.properties.load(in);
 				in.close();
+				
+				// Setup session eviction
+				thisInstance.setupSessionEviction();
+				
+				// Setup knowledge base memory budget
+				thisInstance.knowledgeBaseMemoryBudget = Long.parseLong(thisInstance.properties.getProperty(Constants.KNOWLEDGE_BASE_MEMORY, "0").trim()) * 1024 * 1024;
+				
+				// Setup validation result cache
+				thisInstance.resultCache = new SessionResultCache(Integer.parseInt(thisInstance.properties.getProperty(Constants.RESULT_CACHE_SIZE, "0").trim()), 
+																  Long.parseLong(thisInstance.properties.getProperty(Constants.RESULT_CACHE_TTL, "0").trim()) * 1000);
 
 				thisInstance.initialized = true;				
 			}
@@ -101,25 +204,1344 @@ public final class SessionManager {
 	
 	/**
 	 * Thread-safe method to create a new session for the knowledge base specified.
-	 * Creates and load the knowledge base if needed.
+	 * Creates and load the knowledge base if needed. Does not take a global lock, so 
+	 * different knowledge bases load concurrently and sessions for loaded knowledge 
+	 * bases are created without waiting on other loads.
 	 * @param knowledgeBaseName String name of knowledge base
 	 * @return Session object created
 	 * @throws EngineException
 	 */
-	public synchronized Session createSession(String knowledgeBaseName) throws EngineException {		
-		// If needed, load knowledge base and store in memory
-		if (!knowledgeBases.containsKey(knowledgeBaseName)) {
-			knowledgeBases.put(knowledgeBaseName, new KnowledgeBase(knowledgeBaseName, properties));
-			logger.info("Loaded knowledge base {}", knowledgeBaseName);
+	public Session createSession(String knowledgeBaseName) throws EngineException {		
+		// Create session and add it to in-progression sessions map
+		Session newSession = new Session(getKnowledgeBase(knowledgeBaseName));		
+		sessions.put(newSession.getSessionId(), newSession);
+		
+		// Evict least recently accessed sessions if over maximum
+		if (maximumSessions > 0 && sessions.size() > maximumSessions) {
+			evictSessions();
 		}
-
-		// Create session and add it to in-progression sessions list
-		Session newSession = new Session(knowledgeBases.get(knowledgeBaseName));		
-		sessions.add(newSession);
 		
 		return newSession;
 	}
 	
+	/**
+	 * Thread-safe method to borrow a session for the knowledge base specified, re-using a pooled session 
+	 * if available. Borrowed sessions are intended for one request at a time and are not tracked as 
+	 * in-progress sessions. Return them with {@link #returnSession(Session)} once the request is done.
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return Session object with no input selections
+	 * @throws EngineException
+	 */
+	public Session borrowSession(String knowledgeBaseName) throws EngineException {
+		KnowledgeBase knowledgeBase = getKnowledgeBase(knowledgeBaseName);
+		BlockingQueue<Session> pool = sessionPools.get(knowledgeBaseName);
+		
+		// Re-use pooled session for the current knowledge base version, discarding sessions for older versions
+		if (pool != null) {
+			Session session;
+			while((session = pool.poll()) != null) {
+				if (session.getKnowledgeBase() == knowledgeBase) {
+					reusedSessionCount.incrementAndGet();
+					session.markBorrowed();
+					session.renewSessionId();
+					session.touch();
+					return session;
+				}
+			}
+		}
+		
+		return new Session(knowledgeBase);
+	}
+	
+	/**
+	 * Thread-safe method to return a borrowed session once its request is done. The session is reset 
+	 * and pooled for re-use if pooling is enabled and the pool of its knowledge base is not full. 
+	 * The caller must not use the session after returning it.
+	 * @param session Session object borrowed
+	 * @throws EngineException if the session was already returned or validation of the session is in progress
+	 */
+	public void returnSession(Session session) throws EngineException {
+		// Reject a second return, which would pool the same session twice
+		if (!session.markReturned()) {
+			throw new EngineException("Session already returned", session.getKnowledgeBase().getName(), session.getSessionId());
+		}
+		
+		int maximum = maximumPooledSessions;
+		if (maximum <= 0) {
+			return;
+		}
+		
+		try {
+			session.reset();
+		}
+		catch(EngineException e) {
+			session.markBorrowed();
+			throw e;
+		}
+		String knowledgeBaseName = session.getKnowledgeBase().getName();
+		BlockingQueue<Session> pool = sessionPools.get(knowledgeBaseName);
+		if (pool == null) {
+			BlockingQueue<Session> newPool = new ArrayBlockingQueue<Session>(maximum);
+			pool = sessionPools.putIfAbsent(knowledgeBaseName, newPool);
+			if (pool == null) {
+				pool = newPool;
+			}
+		}
+		
+		// Discard if pool is full
+		pool.offer(session);
+	}
+	
+	/**
+	 * Package method to override maximum number of pooled sessions per knowledge base. Discards pooled sessions.
+	 * @param maximum Integer maximum number of pooled sessions. Zero if sessions are not pooled.
+	 */
+	void setPooledSessionLimit(int maximum) {
+		maximumPooledSessions = maximum;
+		sessionPools.clear();
+	}
+	
+	/**
+	 * Method to get count of reset sessions pooled for re-use
+	 * @return Integer count
+	 */
+	public int getPooledSessionCount() {
+		int count = 0;
+		
+		for(BlockingQueue<Session> pool : sessionPools.values()) {
+			count += pool.size();
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Method to get count of sessions re-used from a pool since start
+	 * @return Long count
+	 */
+	public long getReusedSessionCount() {
+		return reusedSessionCount.get();
+	}
+	
+	/**
+	 * Thread-safe method to get an in-progress session by ID. Records access to the session.
+	 * @param sessionId String ID of session
+	 * @return Session object, or null if not found or evicted
+	 */
+	public Session getSession(String sessionId) {
+		Session session = sessions.get(sessionId);
+		
+		if (session != null) {
+			session.touch();
+		}
+		
+		return session;
+	}
+	
+	/**
+	 * Thread-safe method to evict sessions idle beyond their time to live, and then least recently 
+	 * accessed sessions beyond the maximum session count. Sessions being validated or changed are not evicted. 
+	 * Invoked periodically and on session creation, but may also be invoked directly.
+	 * @return Integer count of sessions evicted
+	 */
+	public int evictSessions() {
+		int evictedCount = 0;
+		
+		// Evict idle sessions
+		if (sessionTimeToLive > 0) {
+			long idleSince = System.currentTimeMillis() - sessionTimeToLive;
+			for(Session session : sessions.values()) {
+				if (!session.isValidationInProgress() && session.getLastAccessTime() < idleSince && evictSession(session)) {
+					evictedCount++;
+				}
+			}
+		}
+		
+		// Evict least recently accessed sessions over maximum
+		if (maximumSessions > 0 && sessions.size() > maximumSessions) {
+			List<Session> candidates = new ArrayList<Session>();
+			for(Session session : sessions.values()) {
+				if (!session.isValidationInProgress()) {
+					candidates.add(session);
+				}
+			}
+			Collections.sort(candidates, sessionLastAccessComparator);
+			
+			for(int i=0; i < candidates.size() && sessions.size() > maximumSessions; i++) {
+				if (evictSession(candidates.get(i))) {
+					evictedCount++;
+				}
+			}
+		}
+		
+		return evictedCount;
+	}
+	
+	/**
+	 * Helper method to evict a session unless it is being validated or changed, or was already removed
+	 * @param session Session object to evict
+	 * @return True if evicted, false if being validated or changed, or already removed
+	 */
+	private boolean evictSession(Session session) {
+		// Skip session if validation claimed it first
+		if (!session.evict()) {
+			return false;
+		}
+		
+		if (sessions.remove(session.getSessionId(), session)) {
+			evictedSessionCount.incrementAndGet();
+			logger.debug("Evicted session {}", session.getSessionId());
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Helper method to read session eviction properties and start periodic idle session eviction if needed
+	 */
+	private void setupSessionEviction() {
+		sessionTimeToLive = TimeUnit.SECONDS.toMillis(getSessionLimit(Constants.SESSION_TTL));
+		maximumSessions = (int) Math.min(Integer.MAX_VALUE, getSessionLimit(Constants.MAX_SESSIONS));
+		maximumPooledSessions = (int) Math.min(Integer.MAX_VALUE, getSessionLimit(Constants.POOLED_SESSIONS));
+		
+		if (sessionTimeToLive > 0) {
+			sessionEvictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "SessionEvictor");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			
+			// Check a few times per time to live, at most once a second
+			long period = Math.max(1000, sessionTimeToLive / 4);
+			sessionEvictor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					evictSessions();
+				}
+			}, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Helper method to get a session limit property
+	 * @param propertyName String name of limit property
+	 * @return Long limit value, zero if not specified or invalid
+	 */
+	private long getSessionLimit(String propertyName) {
+		String value = properties.getProperty(propertyName, "0");
+		
+		try {
+			return Math.max(0, Long.parseLong(value.trim()));
+		}
+		catch(NumberFormatException e) {
+			logger.warn("Ignoring invalid value {} for property {}", value, propertyName);
+			return 0;
+		}
+	}
+	
+	/**
+	 * Package method to override session eviction limits. Does not start periodic idle session eviction.
+	 * @param timeToLive Long idle time to live of sessions in milliseconds. Zero if idle sessions are not evicted.
+	 * @param maximum Integer maximum number of sessions. Zero if unlimited.
+	 */
+	void setSessionLimits(long timeToLive, int maximum) {
+		sessionTimeToLive = timeToLive;
+		maximumSessions = maximum;
+	}
+	
+	/**
+	 * Method to get count of in-progress sessions
+	 * @return Integer count
+	 */
+	public int getSessionCount() {
+		return sessions.size();
+	}
+	
+	/**
+	 * Method to get count of sessions evicted since start
+	 * @return Long count
+	 */
+	public long getEvictedSessionCount() {
+		return evictedSessionCount.get();
+	}
+	
+	/**
+	 * Method to get count of session objects allocated by in-progress sessions, as a gauge of session memory use
+	 * @return Long count
+	 */
+	public long getSessionObjectCount() {
+		long objectCount = 0;
+		
+		for(Session session : sessions.values()) {
+			objectCount += session.getAllocatedObjectCount();
+		}
+		
+		return objectCount;
+	}
+	
+	/**
+	 * Thread-safe method to get current version of knowledge base, loading it if needed. 
+	 * The first caller for a knowledge base loads it, while concurrent callers for the 
+	 * same knowledge base wait on its load future. A failed load is not cached. Loading 
+	 * may unload other knowledge bases to stay within the memory budget.
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return KnowledgeBase current version
+	 * @throws EngineException
+	 */
+	KnowledgeBase getKnowledgeBase(String knowledgeBaseName) throws EngineException {
+		CompletableFuture<KnowledgeBase> loadFuture = knowledgeBases.get(knowledgeBaseName);
+		
+		// If needed, load knowledge base and store in memory
+		if (loadFuture == null) {
+			CompletableFuture<KnowledgeBase> newLoadFuture = new CompletableFuture<KnowledgeBase>();
+			loadFuture = knowledgeBases.putIfAbsent(knowledgeBaseName, newLoadFuture);
+			
+			// Load on this thread if no other thread started loading
+			if (loadFuture == null) {
+				loadFuture = newLoadFuture;
+				try {
+					newLoadFuture.complete(new KnowledgeBase(knowledgeBaseName, properties, knowledgeBaseVersion.incrementAndGet()));
+					knowledgeBaseLoadCount.incrementAndGet();
+					logger.info("Loaded knowledge base {}", knowledgeBaseName);
+				}
+				catch(EngineException | RuntimeException e) {
+					knowledgeBases.remove(knowledgeBaseName, newLoadFuture);
+					newLoadFuture.completeExceptionally(e);
+				}
+				
+				// Stay within memory budget, keeping the knowledge base just loaded
+				if (knowledgeBaseMemoryBudget > 0) {
+					evictKnowledgeBases(knowledgeBaseName);
+				}
+			}
+			else {
+				knowledgeBaseHitCount.incrementAndGet();
+			}
+		}
+		else {
+			knowledgeBaseHitCount.incrementAndGet();
+		}
+		
+		// Wait for load
+		try {
+			KnowledgeBase knowledgeBase = loadFuture.get();
+			knowledgeBase.touch();
+			return knowledgeBase;
+		}
+		catch(ExecutionException e) {
+			if (e.getCause() instanceof EngineException) {
+				throw (EngineException) e.getCause();
+			}
+			throw new EngineException("Exception loading knowledge base: " + e.getCause(), knowledgeBaseName);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngineException("Interrupted waiting for knowledge base load", knowledgeBaseName);
+		}
+	}
+	
+	/**
+	 * Thread-safe method to unload least recently used knowledge bases until loaded knowledge bases fit 
+	 * within the memory budget. Knowledge bases with in-progress sessions or running validations are not 
+	 * unloaded, and unloaded knowledge bases are loaded again on demand. Invoked when a knowledge base 
+	 * is loaded, but may also be invoked directly.
+	 * @return Integer count of knowledge bases unloaded
+	 */
+	public int evictKnowledgeBases() {
+		return evictKnowledgeBases(null);
+	}
+	
+	/**
+	 * Helper method to unload least recently used knowledge bases over the memory budget
+	 * @param keepKnowledgeBaseName String name of knowledge base not to unload, or null
+	 * @return Integer count of knowledge bases unloaded
+	 */
+	private int evictKnowledgeBases(String keepKnowledgeBaseName) {
+		long budget = knowledgeBaseMemoryBudget;
+		if (budget <= 0) {
+			return 0;
+		}
+		
+		// Sum estimated sizes of loaded knowledge bases
+		long totalSize = 0;
+		List<KnowledgeBase> candidates = new ArrayList<KnowledgeBase>();
+		for(CompletableFuture<KnowledgeBase> loadFuture : knowledgeBases.values()) {
+			KnowledgeBase knowledgeBase = getLoadedKnowledgeBase(loadFuture);
+			if (knowledgeBase != null) {
+				totalSize += knowledgeBase.getEstimatedSize();
+				if (!knowledgeBase.getName().equals(keepKnowledgeBaseName)) {
+					candidates.add(knowledgeBase);
+				}
+			}
+		}
+		if (totalSize <= budget) {
+			return 0;
+		}
+		
+		// Exclude knowledge bases in use
+		Set<KnowledgeBase> activeKnowledgeBases = new HashSet<KnowledgeBase>();
+		for(Session session : sessions.values()) {
+			activeKnowledgeBases.add(session.getKnowledgeBase());
+		}
+		
+		// Unload least recently used knowledge bases until within budget
+		Collections.sort(candidates, knowledgeBaseLastAccessComparator);
+		int evictedCount = 0;
+		for(int i=0; i < candidates.size() && totalSize > budget; i++) {
+			KnowledgeBase knowledgeBase = candidates.get(i);
+			if (activeKnowledgeBases.contains(knowledgeBase) || getRunningValidationCount(knowledgeBase.getName()) > 0) {
+				continue;
+			}
+			
+			CompletableFuture<KnowledgeBase> loadFuture = knowledgeBases.get(knowledgeBase.getName());
+			if (getLoadedKnowledgeBase(loadFuture) == knowledgeBase && knowledgeBases.remove(knowledgeBase.getName(), loadFuture)) {
+				totalSize -= knowledgeBase.getEstimatedSize();
+				sessionPools.remove(knowledgeBase.getName());
+				resultCache.remove(getResultCacheKeyPrefix(knowledgeBase.getName()));
+				evictedKnowledgeBaseCount.incrementAndGet();
+				evictedCount++;
+				logger.info("Unloaded knowledge base {} of estimated size {} bytes", knowledgeBase.getName(), knowledgeBase.getEstimatedSize());
+			}
+		}
+		
+		if (totalSize > budget) {
+			logger.warn("Loaded knowledge bases of estimated size {} bytes exceed memory budget of {} bytes", totalSize, budget);
+		}
+		
+		return evictedCount;
+	}
+	
+	/**
+	 * Package method to override memory budget of loaded knowledge bases
+	 * @param budget Long memory budget in bytes. Zero if unlimited.
+	 */
+	void setKnowledgeBaseMemoryBudget(long budget) {
+		knowledgeBaseMemoryBudget = budget;
+	}
+	
+	/**
+	 * Method to get estimated memory used by loaded knowledge bases
+	 * @return Long estimated size in bytes
+	 */
+	public long getKnowledgeBaseMemory() {
+		long totalSize = 0;
+		
+		for(CompletableFuture<KnowledgeBase> loadFuture : knowledgeBases.values()) {
+			KnowledgeBase knowledgeBase = getLoadedKnowledgeBase(loadFuture);
+			if (knowledgeBase != null) {
+				totalSize += knowledgeBase.getEstimatedSize();
+			}
+		}
+		
+		return totalSize;
+	}
+	
+	/**
+	 * Method to get count of knowledge base loads and reloads since start
+	 * @return Long count
+	 */
+	public long getKnowledgeBaseLoadCount() {
+		return knowledgeBaseLoadCount.get();
+	}
+	
+	/**
+	 * Method to get count of knowledge base requests served without loading since start
+	 * @return Long count
+	 */
+	public long getKnowledgeBaseHitCount() {
+		return knowledgeBaseHitCount.get();
+	}
+	
+	/**
+	 * Method to get count of knowledge bases unloaded to stay within the memory budget since start
+	 * @return Long count
+	 */
+	public long getEvictedKnowledgeBaseCount() {
+		return evictedKnowledgeBaseCount.get();
+	}
+	
+	/**
+	 * Thread-safe method to validate session selections on the calling thread, subject to the 
+	 * admission limits of the session knowledge base.
+	 * @param session Session object with queued selections
+	 * @return Validated session
+	 * @throws ValidationRejectedException if not admitted, with the session unchanged
+	 * @throws EngineException
+	 */
+	public Session validate(Session session) throws EngineException {
+		validate(session, new CancellationToken());
+		return session;
+	}
+	
+	/**
+	 * Helper method to validate session selections once admitted by the gate of the session knowledge base
+	 * @param session Session object with queued selections
+	 * @param token CancellationToken to stop validation
+	 * @throws EngineException
+	 */
+	private void validate(Session session, CancellationToken token) throws EngineException {
+		// Copy cached result for the same knowledge base version and input selections, bypassing admission
+		SessionResultCache cache = resultCache;
+		String cacheKey = getResultCacheKey(cache, session);
+		if (restoreCachedResult(session, cache, cacheKey)) {
+			return;
+		}
+		
+		ValidationGate gate = getValidationGate(session.getKnowledgeBase().getName());
+		
+		gate.acquire(session.getKnowledgeBase().getName(), session.getSessionId(), token);
+		try {
+			validateAndCacheResult(session, token, cache, cacheKey);
+		}
+		finally {
+			gate.release();
+		}
+	}
+	
+	/**
+	 * Helper method to validate session selections once admitted, checking the result cache first
+	 * @param session Session object with queued selections
+	 * @param token CancellationToken to stop validation
+	 * @throws EngineException
+	 */
+	private void validateAdmitted(Session session, CancellationToken token) throws EngineException {
+		SessionResultCache cache = resultCache;
+		String cacheKey = getResultCacheKey(cache, session);
+		if (!restoreCachedResult(session, cache, cacheKey)) {
+			validateAndCacheResult(session, token, cache, cacheKey);
+		}
+	}
+	
+	/**
+	 * Helper method to copy a cached result into a session
+	 * @param session Session object with queued selections
+	 * @param cache SessionResultCache object
+	 * @param cacheKey String key of result, or null if the result is not cacheable
+	 * @return True if restored from a cached result, false otherwise
+	 * @throws EngineException
+	 */
+	private static boolean restoreCachedResult(Session session, SessionResultCache cache, String cacheKey) throws EngineException {
+		if (cacheKey == null) {
+			return false;
+		}
+		
+		Session template = cache.get(cacheKey);
+		if (template == null) {
+			return false;
+		}
+		
+		session.restoreFrom(template);
+		return true;
+	}
+	
+	/**
+	 * Helper method to validate session selections and cache the result
+	 * @param session Session object with queued selections
+	 * @param token CancellationToken to stop validation
+	 * @param cache SessionResultCache object
+	 * @param cacheKey String key of result, or null if the result is not cacheable
+	 * @throws EngineException
+	 */
+	private static void validateAndCacheResult(Session session, CancellationToken token, SessionResultCache cache, String cacheKey) throws EngineException {
+		session.validateSelections(token);
+		
+		// Cache a copy of the result, since the session may be modified later
+		if (cacheKey != null) {
+			cache.put(cacheKey, session.fork());
+		}
+	}
+	
+	/**
+	 * Helper method to get result cache key for a session
+	 * @param cache SessionResultCache object
+	 * @param session Session object with queued selections
+	 * @return String key of knowledge base name, version and canonical input selections, or null if the result is not cacheable
+	 */
+	private static String getResultCacheKey(SessionResultCache cache, Session session) {
+		// Selection listeners are only notified during validation, and optimized results depend on the time budget
+		if (!cache.isEnabled() || session.hasSelectionListener() || session.getOptimizationBudget() > 0) {
+			return null;
+		}
+		
+		String canonicalSelections = session.getCanonicalSelections();
+		if (canonicalSelections == null) {
+			return null;
+		}
+		
+		return getResultCacheKeyPrefix(session.getKnowledgeBase().getName()) + session.getKnowledgeBase().getVersion() + canonicalSelections;
+	}
+	
+	/**
+	 * Helper method to get prefix of result cache keys for a knowledge base
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return String key prefix
+	 */
+	private static String getResultCacheKeyPrefix(String knowledgeBaseName) {
+		return knowledgeBaseName + "#";
+	}
+	
+	/**
+	 * Package method to override validation result cache limits. Discards cached results and metrics.
+	 * @param maximumSize Integer maximum number of cached results. Zero if results are not cached.
+	 * @param timeToLive Long time to live of cached results in milliseconds. Zero if results do not expire.
+	 */
+	void setResultCacheLimits(int maximumSize, long timeToLive) {
+		resultCache = new SessionResultCache(maximumSize, timeToLive);
+	}
+	
+	/**
+	 * Method to get count of cached validation results
+	 * @return Integer count
+	 */
+	public int getResultCacheSize() {
+		return resultCache.size();
+	}
+	
+	/**
+	 * Method to get count of validations served from the result cache
+	 * @return Long count
+	 */
+	public long getResultCacheHitCount() {
+		return resultCache.getHitCount();
+	}
+	
+	/**
+	 * Method to get count of cacheable validations not served from the result cache
+	 * @return Long count
+	 */
+	public long getResultCacheMissCount() {
+		return resultCache.getMissCount();
+	}
+	
+	/**
+	 * Method to get count of validation results evicted from the result cache for size or age
+	 * @return Long count
+	 */
+	public long getEvictedResultCount() {
+		return resultCache.getEvictedCount();
+	}
+	
+	/**
+	 * Method to get ratio of cacheable validations served from the result cache
+	 * @return Double ratio between 0 and 1, zero if there were no cacheable validations
+	 */
+	public double getResultCacheHitRatio() {
+		long hits = resultCache.getHitCount();
+		long total = hits + resultCache.getMissCount();
+		
+		return total > 0 ? (double) hits / total : 0;
+	}
+	
+	/**
+	 * Thread-safe method to validate session selections asynchronously on the validation executor, 
+	 * subject to the admission limits of the session knowledge base. Admission is decided before the 
+	 * validation is submitted to the executor, so validations rejected when the wait queue is full 
+	 * complete immediately, and waiting validations are submitted once admitted instead of holding an 
+	 * executor thread. Cancelling the returned future before validation starts skips the validation, 
+	 * and cancelling it during validation stops validation as described for {@link Session#validateSelections(CancellationToken)}.
+	 * @param session Session object with queued selections
+	 * @return CompletableFuture of validated session. Completes exceptionally if validation fails or is rejected.
+	 */
+	public CompletableFuture<Session> validateAsync(final Session session) {
+		final CompletableFuture<Session> validationFuture = new CompletableFuture<Session>();
+		final CancellationToken token = new CancellationToken();
+		
+		// Decide admission before submitting, rejecting immediately if the wait queue is full
+		final ValidationGate gate;
+		final ValidationGate.Admission admission;
+		try {
+			gate = getValidationGate(session.getKnowledgeBase().getName());
+			admission = gate.requestAdmission(session.getKnowledgeBase().getName(), session.getSessionId());
+		}
+		catch(ValidationRejectedException e) {
+			rejectedValidationCount.incrementAndGet();
+			validationFuture.completeExceptionally(e);
+			return validationFuture;
+		}
+		catch(RuntimeException e) {
+			failedValidationCount.incrementAndGet();
+			validationFuture.completeExceptionally(e);
+			return validationFuture;
+		}
+		queuedValidationCount.incrementAndGet();
+		
+		// Propagate cancellation of future to running validation, or withdraw it if still waiting for admission
+		validationFuture.whenComplete(new BiConsumer<Session, Throwable>() {
+			@Override
+			public void accept(Session result, Throwable exception) {
+				if (validationFuture.isCancelled()) {
+					token.cancel();
+					if (gate.withdraw(admission)) {
+						queuedValidationCount.decrementAndGet();
+						cancelledValidationCount.incrementAndGet();
+					}
+				}
+			}
+		});
+		
+		// Submit validation once admitted
+		final Runnable validation = new Runnable() {
+			@Override
+			public void run() {
+				queuedValidationCount.decrementAndGet();
+				
+				// Skip if cancelled while queued
+				if (validationFuture.isDone()) {
+					gate.release();
+					cancelledValidationCount.incrementAndGet();
+					return;
+				}
+				
+				// Release admission before completing, so the next validation is admitted by the time the caller is notified
+				Throwable failure = null;
+				activeValidationCount.incrementAndGet();
+				try {
+					validateAdmitted(session, token);
+				}
+				catch(ValidationCancelledException e) {
+					cancelledValidationCount.incrementAndGet();
+					failure = e;
+				}
+				catch(EngineException | RuntimeException e) {
+					failedValidationCount.incrementAndGet();
+					failure = e;
+				}
+				finally {
+					activeValidationCount.decrementAndGet();
+					gate.release();
+				}
+				
+				if (failure == null) {
+					completedValidationCount.incrementAndGet();
+					validationFuture.complete(session);
+				}
+				else {
+					validationFuture.completeExceptionally(failure);
+				}
+			}
+		};
+		admission.whenComplete(new BiConsumer<Void, Throwable>() {
+			@Override
+			public void accept(Void result, Throwable exception) {
+				// Rejected after waiting beyond the admission timeout
+				if (exception != null) {
+					queuedValidationCount.decrementAndGet();
+					rejectedValidationCount.incrementAndGet();
+					validationFuture.completeExceptionally(exception);
+					return;
+				}
+				
+				try {
+					getValidationExecutor().execute(validation);
+				}
+				catch(RejectedExecutionException e) {
+					queuedValidationCount.decrementAndGet();
+					failedValidationCount.incrementAndGet();
+					gate.release();
+					validationFuture.completeExceptionally(e);
+				}
+			}
+		});
+		
+		return validationFuture;
+	}
+	
+	/**
+	 * Thread-safe method to set the executor for asynchronous validation, replacing the executor 
+	 * created from properties. The previous executor is not shut down.
+	 * @param executor Executor for asynchronous validation
+	 */
+	public void setValidationExecutor(Executor executor) {
+		validationExecutor = executor;
+	}
+	
+	/**
+	 * Package method to get the executor for asynchronous validation, creating it from properties if not set
+	 * @return Executor for asynchronous validation
+	 */
+	Executor getValidationExecutor() {
+		Executor executor = validationExecutor;
+		
+		if (executor == null) {
+			synchronized(this) {
+				if (validationExecutor == null) {
+					validationExecutor = createValidationExecutor();
+				}
+				executor = validationExecutor;
+			}
+		}
+		
+		return executor;
+	}
+	
+	/**
+	 * Helper method to create executor for asynchronous validation from properties
+	 * @return Executor for asynchronous validation
+	 */
+	private Executor createValidationExecutor() {
+		String executorType = properties.getProperty(Constants.VALIDATION_EXECUTOR, Constants.POOL_EXECUTOR).trim();
+		int threadCount = Integer.parseInt(properties.getProperty(Constants.VALIDATION_THREADS, 
+											String.valueOf(Runtime.getRuntime().availableProcessors())).trim());
+		
+		// Fork/join pool
+		if (Constants.FORK_JOIN_EXECUTOR.equalsIgnoreCase(executorType)) {
+			logger.info("Using fork/join pool with parallelism {} for asynchronous validation", threadCount);
+			return new ForkJoinPool(threadCount);
+		}
+		
+		// Virtual threads, looked up reflectively since they need a newer JDK
+		if (Constants.VIRTUAL_EXECUTOR.equalsIgnoreCase(executorType)) {
+			try {
+				Executor executor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+				logger.info("Using virtual threads for asynchronous validation");
+				return executor;
+			}
+			catch(ReflectiveOperationException e) {
+				logger.warn("Virtual threads not available, using thread pool for asynchronous validation");
+			}
+		}
+		
+		// Bounded thread pool
+		logger.info("Using thread pool of {} threads for asynchronous validation", threadCount);
+		return Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Validation-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Method to get count of asynchronous validations waiting to start
+	 * @return Integer count
+	 */
+	public int getQueuedValidationCount() {
+		return queuedValidationCount.get();
+	}
+	
+	/**
+	 * Method to get count of asynchronous validations running
+	 * @return Integer count
+	 */
+	public int getActiveValidationCount() {
+		return activeValidationCount.get();
+	}
+	
+	/**
+	 * Method to get count of asynchronous validations completed successfully
+	 * @return Long count
+	 */
+	public long getCompletedValidationCount() {
+		return completedValidationCount.get();
+	}
+	
+	/**
+	 * Method to get count of asynchronous validations completed with an exception
+	 * @return Long count
+	 */
+	public long getFailedValidationCount() {
+		return failedValidationCount.get();
+	}
+	
+	/**
+	 * Method to get count of asynchronous validations cancelled before they started or while running
+	 * @return Long count
+	 */
+	public long getCancelledValidationCount() {
+		return cancelledValidationCount.get();
+	}
+	
+	/**
+	 * Method to get count of asynchronous validations rejected by admission control
+	 * @return Long count
+	 */
+	public long getRejectedValidationCount() {
+		return rejectedValidationCount.get();
+	}
+	
+	/**
+	 * Thread-safe method to set admission limits for validations of a knowledge base, replacing 
+	 * limits from properties. Validations already admitted or waiting keep the previous limits.
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @param maximumRunning Integer maximum number of concurrently running validations, zero if unlimited
+	 * @param maximumQueued Integer maximum number of validations waiting for admission, zero to reject immediately
+	 * @param timeout Long maximum wait for admission in milliseconds, zero to wait without limit
+	 */
+	public void setValidationLimits(String knowledgeBaseName, int maximumRunning, int maximumQueued, long timeout) {
+		validationGates.put(knowledgeBaseName, new ValidationGate(maximumRunning, maximumQueued, timeout));
+	}
+	
+	/**
+	 * Package method to get the validation admission gate for a knowledge base, creating it from properties if needed
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return ValidationGate object
+	 */
+	ValidationGate getValidationGate(String knowledgeBaseName) {
+		ValidationGate gate = validationGates.get(knowledgeBaseName);
+		
+		if (gate == null) {
+			ValidationGate newGate = new ValidationGate(
+					(int) getValidationLimit(Constants.MAX_CONCURRENT_VALIDATIONS, knowledgeBaseName), 
+					(int) getValidationLimit(Constants.MAX_QUEUED_VALIDATIONS, knowledgeBaseName), 
+					getValidationLimit(Constants.ADMISSION_TIMEOUT, knowledgeBaseName));
+			gate = validationGates.putIfAbsent(knowledgeBaseName, newGate);
+			if (gate == null) {
+				gate = newGate;
+			}
+		}
+		
+		return gate;
+	}
+	
+	/**
+	 * Helper method to get an admission limit property, preferring the override for the knowledge base
+	 * @param propertyName String name of limit property
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return Long limit value, zero if not specified or invalid
+	 */
+	private long getValidationLimit(String propertyName, String knowledgeBaseName) {
+		String value = properties.getProperty(propertyName + "." + knowledgeBaseName, properties.getProperty(propertyName, "0"));
+		
+		try {
+			return Long.parseLong(value.trim());
+		}
+		catch(NumberFormatException e) {
+			logger.warn("Ignoring invalid value {} for property {}", value, propertyName);
+			return 0;
+		}
+	}
+	
+	/**
+	 * Method to get count of validations of a knowledge base waiting for admission
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return Integer count
+	 */
+	public int getQueuedValidationCount(String knowledgeBaseName) {
+		ValidationGate gate = validationGates.get(knowledgeBaseName);
+		return gate != null ? gate.getQueuedCount() : 0;
+	}
+	
+	/**
+	 * Method to get count of admitted validations of a knowledge base running
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return Integer count
+	 */
+	public int getRunningValidationCount(String knowledgeBaseName) {
+		ValidationGate gate = validationGates.get(knowledgeBaseName);
+		return gate != null ? gate.getRunningCount() : 0;
+	}
+	
+	/**
+	 * Method to get count of validations of a knowledge base rejected by admission control
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return Long count
+	 */
+	public long getRejectedValidationCount(String knowledgeBaseName) {
+		ValidationGate gate = validationGates.get(knowledgeBaseName);
+		return gate != null ? gate.getRejectedCount() : 0;
+	}
+	
+	/**
+	 * Thread-safe method to load knowledge bases ahead of session creation. Knowledge bases 
+	 * are loaded concurrently, and already loaded knowledge bases are not reloaded. 
+	 * @param knowledgeBaseNames String names of knowledge bases
+	 * @throws EngineException if any knowledge base fails to load
+	 */
+	public void preload(String... knowledgeBaseNames) throws EngineException {
+		if (knowledgeBaseNames.length == 0) {
+			return;
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(knowledgeBaseNames.length);
+		try {
+			// Submit load task for each knowledge base
+			List<Future<KnowledgeBase>> loadTasks = new ArrayList<Future<KnowledgeBase>>();
+			for(final String knowledgeBaseName : knowledgeBaseNames) {
+				loadTasks.add(executor.submit(new Callable<KnowledgeBase>() {
+					@Override
+					public KnowledgeBase call() throws EngineException {
+						return getKnowledgeBase(knowledgeBaseName);
+					}
+				}));
+			}
+			
+			// Wait for all loads
+			for(Future<KnowledgeBase> loadTask : loadTasks) {
+				loadTask.get();
+			}
+		}
+		catch(ExecutionException e) {
+			if (e.getCause() instanceof EngineException) {
+				throw (EngineException) e.getCause();
+			}
+			throw new EngineException("Exception preloading knowledge base: " + e.getCause(), Constants.EMPTY);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngineException("Interrupted preloading knowledge bases", Constants.EMPTY);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Thread-safe method to warm up the engine. Preloads knowledge bases, then repeatedly validates
+	 * synthetic sessions that select each parent model object alone and up to a bounded number of them 
+	 * together, so the validation code paths are compiled before serving requests. Synthetic sessions 
+	 * are not registered. The engine is only reported warm if at least one validation completed.
+	 * @param iterations Integer number of times to validate the synthetic sessions
+	 * @param knowledgeBaseNames String names of knowledge bases
+	 * @return Long warm-up time in milliseconds
+	 * @throws EngineException if any knowledge base fails to load
+	 */
+	public long warmUp(int iterations, String... knowledgeBaseNames) throws EngineException {
+		long startTime = System.nanoTime();
+		int validationCount = 0;
+		int failedCount = 0;
+		
+		preload(knowledgeBaseNames);
+		
+		for(String knowledgeBaseName : knowledgeBaseNames) {
+			KnowledgeBase knowledgeBase = getKnowledgeBase(knowledgeBaseName);
+			List<ModelObject> parentObjects = knowledgeBase.getDescendantModelObjects(knowledgeBase.getBaseObjectClass());
+			List<ModelObject> combinedObjects = parentObjects.subList(0, Math.min(parentObjects.size(), WARM_UP_COMBINED_SELECTIONS));
+			
+			for(int i=0; i < iterations; i++) {
+				// Validate each parent model object alone
+				for(ModelObject parentObject : parentObjects) {
+					failedCount += warmUpValidation(knowledgeBase, Collections.singletonList(parentObject)) ? 0 : 1;
+					validationCount++;
+				}
+				
+				// Validate a bounded number of parent model objects together
+				failedCount += warmUpValidation(knowledgeBase, combinedObjects) ? 0 : 1;
+				validationCount++;
+			}
+		}
+		
+		long warmUpTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		
+		// Only report warm if validation code paths were actually exercised
+		if (failedCount > 0) {
+			logger.warn("{} of {} warm-up validations of knowledge bases {} failed", failedCount, validationCount, Arrays.toString(knowledgeBaseNames));
+		}
+		if (failedCount < validationCount) {
+			warm = true;
+		}
+		logger.info("Warmed up knowledge bases {} with {} validations in {} ms", Arrays.toString(knowledgeBaseNames), validationCount - failedCount, warmUpTime);
+		
+		return warmUpTime;
+	}
+	
+	/**
+	 * Helper method to validate a synthetic session for warm-up. Validation exceptions are logged and ignored.
+	 * @param knowledgeBase KnowledgeBase for session
+	 * @param selections List of ModelObject to select once each
+	 * @return True if validation completed, false if it threw an exception
+	 */
+	private static boolean warmUpValidation(KnowledgeBase knowledgeBase, List<ModelObject> selections) {
+		Session session = new Session(knowledgeBase);
+		
+		try {
+			for(ModelObject selection : selections) {
+				session.createAndQueueSelection(new InputSelection(selection.getObjectId(), 1));
+			}
+			session.validateSelections();
+			return true;
+		}
+		catch(EngineException e) {
+			logger.debug("Ignoring warm-up validation exception: {}", e.getMessage());
+			return false;
+		}
+		finally {
+			session.prepareForDeletion();
+		}
+	}
+	
+	/**
+	 * Method to check if engine warm-up completed, for use by readiness checks 
+	 * @return True if warmed up, false otherwise
+	 */
+	public boolean isWarm() {
+		return warm;
+	}
+	
+	/**
+	 * Helper method to get a knowledge base from a load future if loaded successfully
+	 * @param loadFuture CompletableFuture of knowledge base load, or null
+	 * @return KnowledgeBase loaded, or null if not loaded yet or load failed
+	 */
+	private static KnowledgeBase getLoadedKnowledgeBase(CompletableFuture<KnowledgeBase> loadFuture) {
+		if (loadFuture != null && loadFuture.isDone() && !loadFuture.isCompletedExceptionally()) {
+			return loadFuture.join();
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Thread-safe method to reload a knowledge base from its model data. The new version is built without 
+	 * holding locks and then swapped in atomically, so new sessions use the new version while existing 
+	 * sessions continue with the version they were created with. If loading fails, the current version 
+	 * remains in use.
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return KnowledgeBase current version after reload
+	 * @throws EngineException
+	 */
+	public KnowledgeBase reloadKnowledgeBase(String knowledgeBaseName) throws EngineException {
+		// Build new version
+		KnowledgeBase newKnowledgeBase = new KnowledgeBase(knowledgeBaseName, properties, knowledgeBaseVersion.incrementAndGet());
+		
+		// Swap unless a concurrent reload already installed a later version
+		CompletableFuture<KnowledgeBase> newLoadFuture = CompletableFuture.completedFuture(newKnowledgeBase);
+		while(true) {
+			CompletableFuture<KnowledgeBase> currentLoadFuture = knowledgeBases.get(knowledgeBaseName);
+			if (currentLoadFuture == null) {
+				if (knowledgeBases.putIfAbsent(knowledgeBaseName, newLoadFuture) == null) {
+					break;
+				}
+				continue;
+			}
+			
+			KnowledgeBase currentKnowledgeBase = getLoadedKnowledgeBase(currentLoadFuture);
+			if (currentKnowledgeBase != null && currentKnowledgeBase.getVersion() > newKnowledgeBase.getVersion()) {
+				return currentKnowledgeBase;
+			}
+			if (knowledgeBases.replace(knowledgeBaseName, currentLoadFuture, newLoadFuture)) {
+				break;
+			}
+		}
+		
+		knowledgeBaseLoadCount.incrementAndGet();
+		sessionPools.remove(knowledgeBaseName);
+		resultCache.remove(getResultCacheKeyPrefix(knowledgeBaseName));
+		logger.info("Reloaded knowledge base {} as version {}", knowledgeBaseName, newKnowledgeBase.getVersion());
+		
+		// Stay within memory budget, keeping the knowledge base just reloaded
+		if (knowledgeBaseMemoryBudget > 0) {
+			evictKnowledgeBases(knowledgeBaseName);
+		}
+		return newKnowledgeBase;
+	}
+	
+	/**
+	 * Method to get current version of a loaded knowledge base
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return Long version of knowledge base, or zero if not loaded
+	 */
+	public long getKnowledgeBaseVersion(String knowledgeBaseName) {
+		KnowledgeBase knowledgeBase = getLoadedKnowledgeBase(knowledgeBases.get(knowledgeBaseName));
+		
+		return knowledgeBase != null ? knowledgeBase.getVersion() : 0;
+	}
+	
+	/**
+	 * Thread-safe method to start watching the model path for changes. Loaded knowledge bases whose 
+	 * model folder changes are reloaded in the background. Has no effect if already watching.
+	 * @throws IOException
+	 */
+	public synchronized void startModelWatcher() throws IOException {
+		if (modelWatcherThread != null) {
+			return;
+		}
+		
+		// Register model path and existing knowledge base folders
+		final Path modelPath = Paths.get(properties.getProperty(Constants.MODEL_PATH));
+		final WatchService watchService = modelPath.getFileSystem().newWatchService();
+		modelPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+		File[] modelFolders = modelPath.toFile().listFiles();
+		if (modelFolders != null) {
+			for(File modelFolder : modelFolders) {
+				if (modelFolder.isDirectory()) {
+					registerModelFolder(watchService, modelFolder.toPath());
+				}
+			}
+		}
+		
+		// Start watcher thread
+		modelWatchService = watchService;
+		modelWatcherThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watchModelPath(watchService, modelPath);
+			}
+		}, "KnowledgeBaseWatcher");
+		modelWatcherThread.setDaemon(true);
+		modelWatcherThread.start();
+		
+		logger.info("Started watching model path {}", modelPath);
+	}
+	
+	/**
+	 * Thread-safe method to stop watching the model path for changes
+	 */
+	public synchronized void stopModelWatcher() {
+		if (modelWatcherThread == null) {
+			return;
+		}
+		
+		modelWatcherThread.interrupt();
+		try {
+			modelWatchService.close();
+		}
+		catch(IOException e) {
+			logger.warn("Exception closing model path watch service", e);
+		}
+		
+		modelWatcherThread = null;
+		modelWatchService = null;
+	}
+	
+	/**
+	 * Method to check if the model path is being watched for changes
+	 * @return True if watching, false otherwise
+	 */
+	public synchronized boolean isModelWatcherRunning() {
+		return modelWatcherThread != null;
+	}
+	
+	/**
+	 * Helper method to register a knowledge base model folder with the watch service
+	 * @param watchService WatchService for model path
+	 * @param modelFolder Path of knowledge base model folder
+	 * @throws IOException
+	 */
+	private static void registerModelFolder(WatchService watchService, Path modelFolder) throws IOException {
+		modelFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+	}
+	
+	/**
+	 * Helper method for watcher thread loop. Coalesces bursts of changes and reloads 
+	 * affected knowledge bases that are loaded.
+	 * @param watchService WatchService for model path
+	 * @param modelPath Path of models
+	 */
+	private void watchModelPath(WatchService watchService, Path modelPath) {
+		try {
+			while(!Thread.currentThread().isInterrupted()) {
+				// Wait for a change, then collect further changes until quiet
+				Set<String> changedKnowledgeBases = new HashSet<String>();
+				WatchKey key = watchService.take();
+				while(key != null) {
+					collectModelChanges(watchService, modelPath, key, changedKnowledgeBases);
+					key = watchService.poll(RELOAD_QUIET_PERIOD, TimeUnit.MILLISECONDS);
+				}
+				
+				// Reload changed knowledge bases that are loaded
+				for(String knowledgeBaseName : changedKnowledgeBases) {
+					if (knowledgeBases.containsKey(knowledgeBaseName)) {
+						try {
+							reloadKnowledgeBase(knowledgeBaseName);
+						}
+						catch(EngineException e) {
+							logger.error("Unable to reload knowledge base " + knowledgeBaseName + ", keeping current version", e);
+						}
+					}
+				}
+			}
+		}
+		catch(InterruptedException | ClosedWatchServiceException e) {
+			// Watcher stopped
+		}
+		
+		logger.info("Stopped watching model path {}", modelPath);
+	}
+	
+	/**
+	 * Helper method to collect names of knowledge bases changed by the events of a watch key. When 
+	 * events were lost to overflow, every loaded knowledge base is treated as changed.
+	 * @param watchService WatchService for model path
+	 * @param modelPath Path of models
+	 * @param key WatchKey signaled
+	 * @param changedKnowledgeBases Set of changed knowledge base names updated with the result
+	 */
+	private void collectModelChanges(WatchService watchService, Path modelPath, WatchKey key, Set<String> changedKnowledgeBases) {
+		Path folder = (Path) key.watchable();
+		
+		for(WatchEvent<?> event : key.pollEvents()) {
+			// Events were dropped, so any model folder may have changed or been created unseen
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				logger.warn("Model path watch events overflowed, reloading all loaded knowledge bases");
+				File[] modelFolders = modelPath.toFile().listFiles();
+				if (modelFolders != null) {
+					for(File modelFolder : modelFolders) {
+						if (modelFolder.isDirectory()) {
+							try {
+								registerModelFolder(watchService, modelFolder.toPath());
+							}
+							catch(IOException e) {
+								logger.warn("Unable to watch model folder " + modelFolder, e);
+							}
+						}
+					}
+				}
+				changedKnowledgeBases.addAll(knowledgeBases.keySet());
+				continue;
+			}
+			
+			// Changes directly under model path create or delete knowledge base folders
+			if (folder.equals(modelPath)) {
+				Path changedFolder = modelPath.resolve((Path) event.context());
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && changedFolder.toFile().isDirectory()) {
+					try {
+						registerModelFolder(watchService, changedFolder);
+					}
+					catch(IOException e) {
+						logger.warn("Unable to watch model folder " + changedFolder, e);
+					}
+				}
+				changedKnowledgeBases.add(changedFolder.getFileName().toString());
+			}
+			// ...otherwise a file in a knowledge base folder changed
+			else {
+				changedKnowledgeBases.add(folder.getFileName().toString());
+			}
+		}
+		
+		key.reset();
+	}
+	
+	/**
+	 * Thread-safe method to compile a knowledge base from its JSON model data into a binary snapshot 
+	 * under the snapshot path property. Later knowledge base loads use the snapshot while the JSON model
+	 * data is unchanged. Knowledge bases already loaded are not affected.
+	 * @param knowledgeBaseName String name of knowledge base
+	 * @return File of compiled snapshot
+	 * @throws EngineException
+	 */
+	public synchronized File compileKnowledgeBase(String knowledgeBaseName) throws EngineException {
+		File snapshotFile = KnowledgeBase.getSnapshotFile(knowledgeBaseName, properties);
+		if (snapshotFile == null) {
+			throw new EngineException("Property " + Constants.SNAPSHOT_PATH + " not specified for compiled snapshot", knowledgeBaseName);
+		}
+		
+		// Force load from JSON model data by removing snapshot path
+		Properties jsonProperties = new Properties();
+		jsonProperties.putAll(properties);
+		jsonProperties.remove(Constants.SNAPSHOT_PATH);
+		
+		// Create snapshot folder if needed and write snapshot
+		File snapshotFolder = snapshotFile.getAbsoluteFile().getParentFile();
+		if (!snapshotFolder.isDirectory() && !snapshotFolder.mkdirs()) {
+			throw new EngineException("Unable to create snapshot folder " + snapshotFolder.getPath(), knowledgeBaseName);
+		}
+		
+		// Fingerprint sources before loading them, so a source edited while loading makes the snapshot stale
+		long sourceFingerprint = KnowledgeBase.computeSourceFingerprint(knowledgeBaseName, jsonProperties);
+		new KnowledgeBase(knowledgeBaseName, jsonProperties).writeSnapshot(snapshotFile, sourceFingerprint);
+		
+		return snapshotFile;
+	}
+	
 	/**
 	 * Thread-safe method to remove/delete existing session  
 	 * @param session Session object to remove
@@ -128,10 +1550,8 @@ public final class SessionManager {
 		// Pre-procession session for deletion
 		session.prepareForDeletion();
 		
-		// Remove in thread-safe manner
-		synchronized(this) {
-			sessions.remove(session);
-		}		
+		// Remove from concurrent map
+		sessions.remove(session.getSessionId(), session);
 	}
 	
 	/**
@@ -144,19 +1564,49 @@ public final class SessionManager {
 	 * @throws EngineException
 	 */
 	public Session restoreSession(String filename) throws IOException, EngineException {
-		SavedSession savedSession = (SavedSession) Util.getObjectFromJson(FileUtils.readFileToString(new File(filename), Constants.UTF_8), SavedSession.class);
-				
-		Session restoredSession = createSession(savedSession.getknowledgeBaseName());
+		SavedSession savedSession = readSavedSession(filename);
 		
-		synchronized(this) {
-			sessions.add(restoredSession);
-		}
+		return queueSavedSelections(createSession(savedSession.getknowledgeBaseName()), savedSession);
+	}
+	
+	/**
+	 * Package method to restore session from JSON file saved with session inputs, without registering 
+	 * it as an in-progress session, for example for one-off batch validation. Does not trigger validation.
+	 * @param filename String name of JSON file to restore session from
+	 * @return Session object restored
+	 * @throws IOException
+	 * @throws EngineException
+	 */
+	Session restoreUnregisteredSession(String filename) throws IOException, EngineException {
+		SavedSession savedSession = readSavedSession(filename);
 		
+		return queueSavedSelections(new Session(getKnowledgeBase(savedSession.getknowledgeBaseName())), savedSession);
+	}
+	
+	/**
+	 * Helper method to read saved session JSON file
+	 * @param filename String name of JSON file
+	 * @return SavedSession read
+	 * @throws IOException
+	 * @throws EngineException
+	 */
+	private SavedSession readSavedSession(String filename) throws IOException, EngineException {
+		return (SavedSession) Util.getObjectFromJson(FileUtils.readFileToString(new File(filename), Constants.UTF_8), SavedSession.class);
+	}
+	
+	/**
+	 * Helper method to queue the input selections of a saved session
+	 * @param session Session object to queue selections in
+	 * @param savedSession SavedSession with input selections
+	 * @return Session object with selections queued
+	 * @throws EngineException
+	 */
+	private static Session queueSavedSelections(Session session, SavedSession savedSession) throws EngineException {
 		for(InputSelection restoredSelection : savedSession.getSelections()) {
-			restoredSession.createAndQueueSelection(restoredSelection);
+			session.createAndQueueSelection(restoredSelection);
 		}
 		
-		return restoredSession;
+		return session;
 	}
 	
 	/**
@@ -24,6 +24,7 @@
 package adragha.rules.engine;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -33,10 +34,12 @@ import java.util.Map;
  * Class for session object. Session objects are based on their corresponding
  * knowledge base model object. Each unit quantity of an input selection results
  * in a session object, and new session objects are created as necessary for 
- * satisfying needers during validation. Child needers and providers also
- * create associated session objects when the parent session object is created. 
- * For a parent object to be successfully validated, all its needer children must
- * be satisfied by appropriate providers.
+ * satisfying needers during validation. Child needers and providers are 
+ * materialized lazily as associated session objects: needers when the parent's
+ * needers are first requested, and each provider when it is first considered
+ * as a candidate or consumed. Until then, provider quantities are kept in a
+ * compact array on the parent. For a parent object to be successfully validated,
+ * all its needer children must be satisfied by appropriate providers.
  *   
  * @author adragha
  *
@@ -57,16 +60,28 @@ public final class SessionObject {
 	private Session session = null;
 	/** Reference to parent object. Non-null for needer and provider objects */
 	private SessionObject parentObject = null;
-	/** Counter used to assign unique ID to child objects */
-	private int childIdCounter = 0;
 	/** Map of single valued model properties specified on session object */
 	private Map<String, Object> valueProperties = new HashMap<String, Object>();
 	/** Map of list value model properties specified on session object */
 	private Map<String, List<?>> listProperties = new HashMap<String, List<?>>();
-	/** List of child needers on parent session object */
-	private List<SessionObject> childNeeders = new ArrayList<SessionObject>(0);
-	/** List of child providers on parent session object */
-	private List<SessionObject> childProviders = new ArrayList<SessionObject>(0);
+	/** List of child needer model objects on parent session object */
+	private List<ModelObject> neederModelObjects = Constants.EMPTY_OBJECT_LIST;
+	/** List of child provider model objects on parent session object */
+	private List<ModelObject> providerModelObjects = Constants.EMPTY_OBJECT_LIST;
+	/** List of child needers on parent session object. Null until materialized. */
+	private List<SessionObject> childNeeders = null;
+	/** Array of child providers on parent session object. Entries are null until materialized. */
+	private SessionObject[] childProviders = null;
+	/** Array of quantities provided by child providers that are yet to be materialized */
+	private double[] childProviderQuantities = null;
+	/** Count of child providers materialized so far */
+	private int materializedProviderCount = 0;
+	/** List of needers satisfied by this provider. Null until a needer is satisfied. */
+	private List<SessionObject> satisfiedNeeders = null;
+	/** Shared empty child provider array for child objects */
+	private static final SessionObject[] EMPTY_PROVIDERS = new SessionObject[0];
+	/** Shared empty child provider quantity array for child objects */
+	private static final double[] EMPTY_QUANTITIES = new double[0];
 	
 	/**
 	 * Package constructor to create a session object
@@ -77,6 +92,81 @@ public final class SessionObject {
 	 * @throws EngineException
 	 */
 	SessionObject(Session session, ModelObject modelObject, String sessionObjectId, SessionObject parentObject) throws EngineException {
+		initialize(session, modelObject, sessionObjectId, parentObject);
+	}
+	
+	/**
+	 * Package constructor to materialize a child needer or provider session object
+	 * @param parentObject SessionObject parent
+	 * @param modelObject ModelObject to be instantiated as this session object
+	 * @param sessionObjectId Unique object ID for session object
+	 */
+	SessionObject(SessionObject parentObject, ModelObject modelObject, String sessionObjectId) {
+		initializeChild(parentObject, modelObject, sessionObjectId);
+	}
+	
+	/**
+	 * Package constructor to copy the state of a session object into a forked session. References to other 
+	 * session objects are set afterwards by {@link #copyLinks(SessionObject, Map)}. Model data is shared.
+	 * @param session Session object the copy belongs to
+	 * @param original SessionObject to copy
+	 */
+	SessionObject(Session session, SessionObject original) {
+		this.session = session;
+		modelObject = original.modelObject;
+		sessionObjectId = original.sessionObjectId;
+		valueProperties.putAll(original.valueProperties);
+		listProperties.putAll(original.listProperties);
+		neederModelObjects = original.neederModelObjects;
+		providerModelObjects = original.providerModelObjects;
+		childProviderQuantities = original.childProviderQuantities.length > 0 ? original.childProviderQuantities.clone() : EMPTY_QUANTITIES;
+		childProviders = original.childProviders.length > 0 ? new SessionObject[original.childProviders.length] : EMPTY_PROVIDERS;
+		materializedProviderCount = original.materializedProviderCount;
+	}
+	
+	/**
+	 * Package method to set references to parent and child objects of a copied session object 
+	 * to the corresponding copies in the forked session
+	 * @param original SessionObject copied
+	 * @param copies Map of copies by original session object
+	 */
+	void copyLinks(SessionObject original, Map<SessionObject, SessionObject> copies) {
+		parentObject = original.parentObject != null ? copies.get(original.parentObject) : null;
+		
+		// Copy materialized needers, keeping them unmodifiable
+		if (original.childNeeders != null) {
+			List<SessionObject> needers = new ArrayList<SessionObject>(original.childNeeders.size());
+			for(SessionObject needer : original.childNeeders) {
+				needers.add(copies.get(needer));
+			}
+			childNeeders = needers.isEmpty() ? Collections.<SessionObject>emptyList() : Collections.unmodifiableList(needers);
+		}
+		
+		// Copy materialized providers
+		for(int i=0; i < childProviders.length; i++) {
+			if (original.childProviders[i] != null) {
+				childProviders[i] = copies.get(original.childProviders[i]);
+			}
+		}
+		
+		// Copy needers satisfied by this provider
+		if (original.satisfiedNeeders != null && original.satisfiedNeeders.size() > 0) {
+			satisfiedNeeders = new ArrayList<SessionObject>(original.satisfiedNeeders.size());
+			for(SessionObject needer : original.satisfiedNeeders) {
+				satisfiedNeeders.add(copies.get(needer));
+			}
+		}
+	}
+	
+	/**
+	 * Package method to initialize a newly allocated or re-used session object
+	 * @param session Session object
+	 * @param modelObject ModelObject to be instantiated as this session object
+	 * @param sessionObjectId Unique object ID for session object
+	 * @param parentObject SessionObject parent if applicable, null otherwise
+	 * @throws EngineException
+	 */
+	void initialize(Session session, ModelObject modelObject, String sessionObjectId, SessionObject parentObject) throws EngineException {
 		// Initialize fields
 		this.session = session;
 		this.modelObject = modelObject;
@@ -85,47 +175,137 @@ public final class SessionObject {
 
 		session.addToSession(this);
 
-		// For parent objects, create child objects
+		// For parent objects, record child model objects and provider quantities for lazy materialization
 		if (parentObject == null) {
-			childNeeders = createChildObjects(Constants.NEEDER_LIST);
-			// Sort needers to be in validation order
-			Collections.sort(childNeeders, session.getSessionObjectValidationOrderComparator());
+			KnowledgeBase knowledgeBase = session.getKnowledgeBase();
+			neederModelObjects = knowledgeBase.getModelObjects(modelObject.getListPropertyValue(Constants.NEEDER_LIST));
+			providerModelObjects = knowledgeBase.getModelObjects(modelObject.getListPropertyValue(Constants.PROVIDER_LIST));
 			
-			// Mark child lists unmodifiable
-			childNeeders = Collections.unmodifiableList(childNeeders);			
-			childProviders = Collections.unmodifiableList(createChildObjects(Constants.PROVIDER_LIST));
+			// Re-use child arrays of a recycled object if they have the right size
+			if (childProviders == null || childProviders.length != providerModelObjects.size()) {
+				childProviders = new SessionObject[providerModelObjects.size()];
+				childProviderQuantities = new double[providerModelObjects.size()];
+			}
+			for(int i=0; i < childProviderQuantities.length; i++) {
+				childProviderQuantities[i] = ((Double) providerModelObjects.get(i).getPropertyValue(Constants.QTY_PROVIDED)).doubleValue();
+			}
+		}
+		// Child objects have no children of their own
+		else {
+			initializeAsChild();
 		}
 	}
 	
 	/**
-	 * Helper method to create child needer and provider session objects for a parent object
-	 * @param listPropertyName String name of needer/provider list property
-	 * @return List of SessionObject that are children based on property value
-	 * @throws EngineException
+	 * Package method to initialize a newly allocated or re-used child needer or provider session object
+	 * @param parentObject SessionObject parent
+	 * @param modelObject ModelObject to be instantiated as this session object
+	 * @param sessionObjectId Unique object ID for session object
 	 */
-	private List<SessionObject> createChildObjects(String listPropertyName) throws EngineException {
-		List<SessionObject> children = new ArrayList<SessionObject>();
+	void initializeChild(SessionObject parentObject, ModelObject modelObject, String sessionObjectId) {
+		// Initialize fields
+		this.session = parentObject.session;
+		this.modelObject = modelObject;
+		this.sessionObjectId = sessionObjectId;
+		this.parentObject = parentObject;
 		
-		// Get list of children from model data
-		List<ModelObject> childObjects = session.getKnowledgeBase().getModelObjects(modelObject.getListPropertyValue(listPropertyName));
+		session.addToSession(this);
+		initializeAsChild();
+	}
+	
+	/**
+	 * Helper method to setup empty child collections on a child session object
+	 */
+	private void initializeAsChild() {
+		neederModelObjects = Constants.EMPTY_OBJECT_LIST;
+		providerModelObjects = Constants.EMPTY_OBJECT_LIST;
+		childNeeders = Collections.emptyList();
+		childProviders = EMPTY_PROVIDERS;
+		childProviderQuantities = EMPTY_QUANTITIES;
+	}
+	
+	/**
+	 * Package method to clear session object data after removal from session so it can be re-used.
+	 * Child arrays are retained for re-use, but references to other objects are dropped.  
+	 */
+	void clear() {
+		session = null;
+		modelObject = null;
+		sessionObjectId = null;
+		parentObject = null;
+		valueProperties.clear();
+		listProperties.clear();
+		neederModelObjects = Constants.EMPTY_OBJECT_LIST;
+		providerModelObjects = Constants.EMPTY_OBJECT_LIST;
+		childNeeders = null;
+		Arrays.fill(childProviders, null);
+		materializedProviderCount = 0;
+		satisfiedNeeders = null;
+	}
+	
+	/**
+	 * Package method to release materialized child objects and then self to the session arena for re-use.
+	 * Object must have been removed from the session first.
+	 * @param arena SessionObjectArena to release objects to
+	 */
+	void releaseTo(SessionObjectArena arena) {
+		// Release needers
+		if (childNeeders != null) {
+			for(SessionObject child : childNeeders) {
+				arena.release(child);
+			}
+		}
 		
-		// Create child session object for each child
-		for(ModelObject child : childObjects) {
-			String childId = getObjectId() + ":" + getNextChildId();
-			children.add(new SessionObject(session, child, childId, this));
+		// Release providers
+		for(SessionObject child : childProviders) {
+			if (child != null) {
+				arena.release(child);
+			}
 		}
 		
-		return children;
+		// Release self
+		arena.release(this);
 	}
 	
 	/**
-	 * Helper method to get a child index that is unique amongst the parent's children 
-	 * @return Integer index for child
+	 * Helper method to create child needer session objects for a parent object on first use
 	 */
-	private String getNextChildId() {
-		childIdCounter++;
-		 
-		return Integer.toString(childIdCounter);
+	private void materializeChildNeeders() {
+		List<SessionObject> needers = new ArrayList<SessionObject>(neederModelObjects.size());
+		
+		// Create child session object for each child needer
+		for(int i=0; i < neederModelObjects.size(); i++) {
+			needers.add(session.getObjectArena().obtainChild(this, neederModelObjects.get(i), getChildId(i)));
+		}
+		
+		// Sort needers to be in validation order
+		Collections.sort(needers, session.getSessionObjectValidationOrderComparator());
+		
+		// Mark child list unmodifiable
+		childNeeders = Collections.unmodifiableList(needers);
+	}
+	
+	/**
+	 * Helper method to create a child provider session object for a parent object on first use
+	 * @param index Integer index of child provider
+	 * @return SessionObject for child provider
+	 */
+	private SessionObject materializeChildProvider(int index) {
+		// Child provider IDs follow the needer IDs
+		SessionObject provider = session.getObjectArena().obtainChild(this, providerModelObjects.get(index), getChildId(neederModelObjects.size() + index));
+		childProviders[index] = provider;
+		materializedProviderCount++;
+		
+		return provider;
+	}
+	
+	/**
+	 * Helper method to get a child ID that is unique amongst the parent's children
+	 * @param index Integer position of child in the needer list followed by the provider list 
+	 * @return String ID for child
+	 */
+	private String getChildId(int index) {
+		return getObjectId() + ":" + Integer.toString(index + 1);
 	}
 
 	/**
@@ -143,8 +323,12 @@ public final class SessionObject {
 			return objectStatus;
 		}
 		
+		// If parent object with needers yet to be materialized, none of them can have been validated
+		if (childNeeders == null && neederModelObjects.size() > 0) {
+			objectStatus = ValidationStatus.UNVALIDATED;
+		}
 		// If parent object, return combined status of all needers
-		if (getChildNeeders().size() > 0) {
+		else if (neederModelObjects.size() > 0) {
 			ValidationStatus combinedNeederStatus = ValidationStatus.SUCCESSFUL;
 			for(SessionObject needer : getChildNeeders()) {
 				if (needer.getValidationStatus() != ValidationStatus.SUCCESSFUL) {
@@ -230,17 +414,21 @@ public final class SessionObject {
 	}
 
 	/**
-	 * Helper method to remove child objects prior to removal of self 
+	 * Helper method to remove materialized child objects prior to removal of self 
 	 */
 	void prepareForRemoval() {
 		// Remove needers
-		for(SessionObject child : childNeeders) {
-			session.removeFromSession(child);
+		if (childNeeders != null) {
+			for(SessionObject child : childNeeders) {
+				session.removeFromSession(child);
+			}
 		}
 		
 		// Remove providers
 		for(SessionObject child : childProviders) {
-			session.removeFromSession(child);
+			if (child != null) {
+				session.removeFromSession(child);
+			}
 		}
 	}	
 	
@@ -253,19 +441,142 @@ public final class SessionObject {
 	}
 	
 	/**
-	 * Method to get unmodifiable list of child needer session objects
+	 * Method to get unmodifiable list of child needer session objects. Materializes needers on first call.
 	 * @return List of SessionObject needers
 	 */
 	public List<SessionObject> getChildNeeders() {
+		if (childNeeders == null) {
+			materializeChildNeeders();
+		}
+		
 		return childNeeders;
 	}
 
 	/**
-	 * Method to get unmodifiable list of child provider session objects
+	 * Package method to get needers satisfied by this provider, most recently satisfied last
+	 * @return Unmodifiable list of SessionObject needers. Always non-null.
+	 */
+	List<SessionObject> getSatisfiedNeeders() {
+		if (satisfiedNeeders == null) {
+			return Collections.emptyList();
+		}
+		
+		return Collections.unmodifiableList(satisfiedNeeders);
+	}
+	
+	/**
+	 * Package method to record a needer satisfied by this provider
+	 * @param needer SessionObject for child needer
+	 */
+	void addSatisfiedNeeder(SessionObject needer) {
+		if (satisfiedNeeders == null) {
+			satisfiedNeeders = new ArrayList<SessionObject>(2);
+		}
+		satisfiedNeeders.add(needer);
+	}
+	
+	/**
+	 * Package method to forget a needer no longer satisfied by this provider
+	 * @param needer SessionObject for child needer
+	 */
+	void removeSatisfiedNeeder(SessionObject needer) {
+		if (satisfiedNeeders == null) {
+			return;
+		}
+		
+		// Search from the end, since needers are usually released in reverse order of satisfaction
+		for(int i = satisfiedNeeders.size() - 1; i >= 0; i--) {
+			if (satisfiedNeeders.get(i) == needer) {
+				satisfiedNeeders.remove(i);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Method to get unmodifiable list of child provider session objects. Materializes all providers.
 	 * @return List of SessionObject providers
 	 */
 	public List<SessionObject> getChildProviders() {
-		return childProviders;
+		for(int i=0; i < childProviders.length; i++) {
+			getChildProvider(i);
+		}
+		
+		return Collections.unmodifiableList(Arrays.asList(childProviders));
+	}
+	
+	/**
+	 * Method to get count of child providers, whether materialized or not
+	 * @return Integer count
+	 */
+	public int getChildProviderCount() {
+		return childProviders.length;
+	}
+	
+	/**
+	 * Method to get count of child providers materialized as session objects
+	 * @return Integer count
+	 */
+	public int getMaterializedProviderCount() {
+		return materializedProviderCount;
+	}
+	
+	/**
+	 * Method to check if a child provider has been materialized as a session object
+	 * @param index Integer index of child provider
+	 * @return true if materialized, false otherwise
+	 */
+	boolean isChildProviderMaterialized(int index) {
+		return childProviders[index] != null;
+	}
+	
+	/**
+	 * Method to get child provider session object by index. Materializes provider on first call.
+	 * @param index Integer index of child provider
+	 * @return SessionObject for child provider
+	 */
+	public SessionObject getChildProvider(int index) {
+		if (childProviders[index] == null) {
+			return materializeChildProvider(index);
+		}
+		
+		return childProviders[index];
+	}
+	
+	/**
+	 * Method to check if a child provider can satisfy a needer without materializing it
+	 * @param index Integer index of child provider
+	 * @param protocolType String type of protocol needed
+	 * @param quantityNeeded Quantity of protocol needed
+	 * @return true if provider has the protocol type and enough quantity, false otherwise
+	 */
+	boolean canChildProviderSatisfy(int index, String protocolType, double quantityNeeded) {
+		// Use materialized provider values if they exist
+		if (childProviders[index] != null) {
+			return protocolType.equals(childProviders[index].getPropertyValue(Constants.PROTOCOL_TYPE))
+				   &&
+				   ((Double) childProviders[index].getPropertyValue(Constants.QTY_PROVIDED)).doubleValue() >= quantityNeeded;
+		}
+		
+		// Else use model value and compact quantity
+		return protocolType.equals(providerModelObjects.get(index).getPropertyValue(Constants.PROTOCOL_TYPE))
+			   &&
+			   childProviderQuantities[index] >= quantityNeeded;
+	}
+	
+	/**
+	 * Method to get remaining quantity of a child provider without materializing it
+	 * @param index Integer index of child provider
+	 * @return Double remaining quantity provided
+	 */
+	double getChildProviderQuantity(int index) {
+		// Use materialized provider value if it exists
+		if (childProviders[index] != null) {
+			return ((Double) childProviders[index].getPropertyValue(Constants.QTY_PROVIDED)).doubleValue();
+		}
+		
+		// Else use compact quantity
+		return childProviderQuantities[index];
 	}
 	
 	/**
@@ -353,9 +664,9 @@ public final class SessionObject {
 		sb.append(Constants.EOL);
 		
 		// Display child needers and their satisfying providers if they exist
-		if (childNeeders.size() > 0) {
+		if (neederModelObjects.size() > 0) {
 			sb.append(tab).append("NEEDERS:").append(Constants.EOL);
-			for(SessionObject needer : childNeeders) {
+			for(SessionObject needer : getChildNeeders()) {
 				sb.append(needer.printDetails("\t", skipProviders));
 				String satisfyingModelObjectId = (String) needer.getPropertyValue(Constants.SATISFYING_PROVIDER_MODEL_ID);
 				sb.append("\t\tSatisfying Provider = ").append(needer.getPropertyValue(Constants.SATISFYING_PROVIDER_MODEL_ID));
@@ -367,11 +678,20 @@ public final class SessionObject {
 		}
 
 		// Display all child providers separately based on optional flag
-		if (!skipProviders && childProviders.size() > 0) {
+		if (!skipProviders && childProviders.length > 0) {
 			sb.append(tab).append("PROVIDERS:").append(Constants.EOL);
-			for(SessionObject provider : childProviders) {
-				sb.append(provider.printDetails("\t", skipProviders));
-				sb.append("\t\tUnused Quantity = ").append(provider.getPropertyValue(Constants.QTY_PROVIDED));
+			for(int i=0; i < childProviders.length; i++) {
+				SessionObject provider = childProviders[i];
+				// Print materialized provider details
+				if (provider != null) {
+					sb.append(provider.printDetails("\t", skipProviders));
+					sb.append("\t\tUnused Quantity = ").append(provider.getPropertyValue(Constants.QTY_PROVIDED));
+				}
+				// Print details of provider yet to be materialized without creating it
+				else {
+					sb.append("\t").append(providerModelObjects.get(i).getObjectId()).append(" (ID = ").append(getChildId(neederModelObjects.size() + i)).append(")").append(Constants.EOL);
+					sb.append("\t\tUnused Quantity = ").append(childProviderQuantities[i]);
+				}
 				sb.append(Constants.EOL);
 			}
 		}
@@ -0,0 +1,134 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.util.Stack;
+
+/**
+ * Class for a per-session arena of session objects. Speculative provider parents
+ * removed while backtracking are released to the arena along with their child
+ * objects, and are re-used for subsequently created session objects instead of 
+ * being left for garbage collection. The arena is not thread-safe and is only 
+ * accessed by the thread validating its session. 
+ * 
+ * @author adragha
+ *
+ */
+final class SessionObjectArena {
+	/** Maximum number of released session objects retained for re-use */
+	static final int MAXIMUM_FREE_OBJECTS = 1024;
+	
+	/** Free list of released session objects */
+	private Stack<SessionObject> freeObjects = new Stack<SessionObject>();
+	/** Count of session objects allocated by the arena */
+	private long allocatedCount = 0;
+	/** Count of session objects re-used from the free list */
+	private long reusedCount = 0;
+	
+	/**
+	 * Method to get a parent session object, re-using a released object if available
+	 * @param session Session object
+	 * @param modelObject ModelObject to be instantiated as the session object
+	 * @param sessionObjectId Unique object ID for session object
+	 * @return SessionObject for parent
+	 * @throws EngineException
+	 */
+	SessionObject obtainParent(Session session, ModelObject modelObject, String sessionObjectId) throws EngineException {
+		// Re-use released object if one exists
+		if (freeObjects.size() > 0) {
+			SessionObject object = freeObjects.pop();
+			object.initialize(session, modelObject, sessionObjectId, null);
+			reusedCount++;
+			return object;
+		}
+		
+		// Else allocate a new one
+		allocatedCount++;
+		return new SessionObject(session, modelObject, sessionObjectId, null);
+	}
+	
+	/**
+	 * Method to get a child session object, re-using a released object if available
+	 * @param parentObject SessionObject parent
+	 * @param modelObject ModelObject to be instantiated as the child session object
+	 * @param sessionObjectId Unique object ID for child session object
+	 * @return SessionObject for child
+	 */
+	SessionObject obtainChild(SessionObject parentObject, ModelObject modelObject, String sessionObjectId) {
+		// Re-use released object if one exists
+		if (freeObjects.size() > 0) {
+			SessionObject object = freeObjects.pop();
+			object.initializeChild(parentObject, modelObject, sessionObjectId);
+			reusedCount++;
+			return object;
+		}
+		
+		// Else allocate a new one
+		allocatedCount++;
+		return new SessionObject(parentObject, modelObject, sessionObjectId);
+	}
+	
+	/**
+	 * Method to release a session object that has been removed from its session for re-use
+	 * @param object SessionObject released
+	 */
+	void release(SessionObject object) {
+		// Clear object data, and retain object if within limit
+		object.clear();
+		if (freeObjects.size() < MAXIMUM_FREE_OBJECTS) {
+			freeObjects.push(object);
+		}
+	}
+	
+	/**
+	 * Method to get count of session objects allocated by the arena
+	 * @return Long count
+	 */
+	long getAllocatedCount() {
+		return allocatedCount;
+	}
+	
+	/**
+	 * Method to get count of session objects re-used by the arena
+	 * @return Long count
+	 */
+	long getReusedCount() {
+		return reusedCount;
+	}
+
+	/**
+	 * Method to get count of released session objects available for re-use
+	 * @return Integer count
+	 */
+	int getFreeCount() {
+		return freeObjects.size();
+	}
+
+	/**
+	 * Method to discard all released session objects
+	 */
+	void clear() {
+		freeObjects.clear();
+	}
+}
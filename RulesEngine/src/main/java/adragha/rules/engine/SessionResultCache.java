@@ -0,0 +1,186 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Package class for a bounded cache of validated sessions keyed by knowledge base version 
+ * and canonical input selections. Cached sessions are templates that are never modified, and 
+ * are copied into requesting sessions on a hit. Least recently used results are evicted beyond 
+ * the maximum size, and results older than the time to live are evicted on access.
+ * 
+ * @author adragha
+ *
+ */
+final class SessionResultCache {
+	/** Maximum number of cached results. Zero if caching is disabled. */
+	private final int maximumSize;
+	/** Time to live of cached results in milliseconds. Zero if results do not expire. */
+	private final long timeToLive;
+	/** Cached results in least recently used first order */
+	private final Map<String, CachedResult> results;
+	
+	/** Count of lookups served from cache */
+	private final AtomicLong hitCount = new AtomicLong();
+	/** Count of lookups not served from cache */
+	private final AtomicLong missCount = new AtomicLong();
+	/** Count of results evicted for size or age */
+	private final AtomicLong evictedCount = new AtomicLong();
+	
+	/**
+	 * Constructor for session result cache
+	 * @param maximumSize Integer maximum number of cached results, zero to disable caching
+	 * @param timeToLive Long time to live of cached results in milliseconds, zero if results do not expire
+	 */
+	SessionResultCache(int maximumSize, long timeToLive) {
+		this.maximumSize = Math.max(0, maximumSize);
+		this.timeToLive = Math.max(0, timeToLive);
+		results = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+				if (size() > SessionResultCache.this.maximumSize) {
+					evictedCount.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+	
+	/**
+	 * Method to check if caching is enabled
+	 * @return true if enabled
+	 */
+	boolean isEnabled() {
+		return maximumSize > 0;
+	}
+	
+	/**
+	 * Method to get cached result, recording a hit or miss
+	 * @param key String cache key
+	 * @return Session template, or null if not cached or expired
+	 */
+	synchronized Session get(String key) {
+		CachedResult result = results.get(key);
+		
+		// Evict expired result
+		if (result != null && timeToLive > 0 && System.currentTimeMillis() - result.cachedTime > timeToLive) {
+			results.remove(key);
+			evictedCount.incrementAndGet();
+			result = null;
+		}
+		
+		if (result == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return result.template;
+	}
+	
+	/**
+	 * Method to cache result, evicting the least recently used result if over the maximum size
+	 * @param key String cache key
+	 * @param template Session template, which must not be modified once cached
+	 */
+	synchronized void put(String key, Session template) {
+		if (isEnabled()) {
+			results.put(key, new CachedResult(template));
+		}
+	}
+	
+	/**
+	 * Method to remove cached results with keys starting with the prefix specified
+	 * @param keyPrefix String key prefix
+	 * @return Integer count of results removed
+	 */
+	synchronized int remove(String keyPrefix) {
+		int removedCount = 0;
+		
+		for(Iterator<String> keys = results.keySet().iterator(); keys.hasNext(); ) {
+			if (keys.next().startsWith(keyPrefix)) {
+				keys.remove();
+				removedCount++;
+			}
+		}
+		
+		return removedCount;
+	}
+	
+	/**
+	 * Method to get number of cached results
+	 * @return Integer count
+	 */
+	synchronized int size() {
+		return results.size();
+	}
+	
+	/**
+	 * Method to get count of lookups served from cache
+	 * @return Long count
+	 */
+	long getHitCount() {
+		return hitCount.get();
+	}
+	
+	/**
+	 * Method to get count of lookups not served from cache
+	 * @return Long count
+	 */
+	long getMissCount() {
+		return missCount.get();
+	}
+	
+	/**
+	 * Method to get count of results evicted for size or age
+	 * @return Long count
+	 */
+	long getEvictedCount() {
+		return evictedCount.get();
+	}
+	
+	/**
+	 * Holder for cached session template and time it was cached
+	 */
+	private static final class CachedResult {
+		/** Validated session template */
+		private final Session template;
+		/** Time result was cached in milliseconds */
+		private final long cachedTime = System.currentTimeMillis();
+		
+		/**
+		 * Constructor for cached result
+		 * @param template Session template
+		 */
+		private CachedResult(Session template) {
+			this.template = template;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class for compact, immutable snapshot of a solution of a session, holding the quantity 
+ * of parent session objects per model object and their total price. Solutions with the 
+ * same quantities have the same canonical form and are deemed duplicates.
+ * 
+ * @author adragha
+ *
+ */
+public final class SolutionSnapshot {
+	/** Number of solution in order found, starting from 1 */
+	private final int solutionNumber;
+	/** Quantity of parent session objects by model object ID, in sorted order */
+	private final Map<String, Integer> quantities;
+	/** Total price of parent session objects */
+	private final double price;
+	/** Total quantity of parent session objects */
+	private final int partCount;
+	
+	/**
+	 * Constructor to take snapshot of a solution from the parent session objects of a session
+	 * @param solutionNumber Integer number of solution in order found
+	 * @param parentObjects Iterable of parent session objects in the session
+	 */
+	SolutionSnapshot(int solutionNumber, Iterable<SessionObject> parentObjects) {
+		this.solutionNumber = solutionNumber;
+		
+		// Sum quantities and prices of parent objects by model object
+		Map<String, Integer> solutionQuantities = new TreeMap<String, Integer>();
+		double solutionPrice = 0;
+		int solutionPartCount = 0;
+		for(SessionObject object : parentObjects) {
+			String modelObjectId = object.getModelObject().getObjectId();
+			Integer quantity = solutionQuantities.get(modelObjectId);
+			solutionQuantities.put(modelObjectId, (quantity != null ? quantity : 0) + 1);
+			solutionPrice += ((Double) object.getPropertyValue(Constants.PRICE)).doubleValue();
+			solutionPartCount++;
+		}
+		
+		quantities = Collections.unmodifiableMap(solutionQuantities);
+		price = solutionPrice;
+		partCount = solutionPartCount;
+	}
+	
+	/**
+	 * Method to get number of solution in order found
+	 * @return Integer solution number, starting from 1
+	 */
+	public int getSolutionNumber() {
+		return solutionNumber;
+	}
+	
+	/**
+	 * Method to get quantity of parent session objects by model object ID
+	 * @return Unmodifiable map of quantities in sorted order of model object ID
+	 */
+	public Map<String, Integer> getQuantities() {
+		return quantities;
+	}
+	
+	/**
+	 * Method to get total price of parent session objects
+	 * @return Double price
+	 */
+	public double getPrice() {
+		return price;
+	}
+	
+	/**
+	 * Method to get total quantity of parent session objects
+	 * @return Integer part count
+	 */
+	public int getPartCount() {
+		return partCount;
+	}
+	
+	/**
+	 * Method to get canonical form of solution, which is the same for duplicate solutions
+	 * @return String canonical form
+	 */
+	public String getCanonicalForm() {
+		return quantities.toString();
+	}
+	
+	/**
+	 * Method to get printable solution summary
+	 * @return String summary
+	 */
+	@Override
+	public String toString() {
+		return "Solution " + solutionNumber + ": " + quantities.toString() + ", Parts = " + partCount + ", Price = " + price;
+	}
+}
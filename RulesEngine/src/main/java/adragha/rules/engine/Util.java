@@ -23,14 +23,20 @@
  */
 package adragha.rules.engine;
 
+import java.io.EOFException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 /**
  * Class for static utility methods
@@ -59,6 +65,38 @@ public final class Util {
 		return gson.fromJson(json, objectClass);
 	}
 
+	/**
+	 * Utility method to create java object by streaming JSON data from a reader, without
+	 * first reading the whole content into a string. Does not close the reader.
+	 * @param reader Reader for JSON content
+	 * @param objectClass Class type of java object
+	 * @return Object created, or null if the content is empty
+	 * @throws IOException
+	 * @throws EngineException
+	 */
+	public static <T> T getObjectFromJson(Reader reader, Class<T> objectClass) throws IOException, EngineException {
+		// Lenient like string parsing, since model files begin with a license comment
+		JsonReader jsonReader = new JsonReader(reader);
+		jsonReader.setLenient(true);
+		
+		// Return null for empty content, consistent with parsing an empty string
+		try {
+			jsonReader.peek();
+		}
+		catch(EOFException e) {
+			return null;
+		}
+		
+		T object = gson.fromJson(jsonReader, objectClass);
+		
+		// Reject trailing content after the JSON document
+		if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+			throw new EngineException("Unexpected content after JSON document", Constants.EMPTY);
+		}
+		
+		return object;
+	}
+
 	/**
 	 * Utility method to write Java object to a file in JSON format
 	 * @param filename String name of file
@@ -78,7 +116,8 @@ public final class Util {
 	}	
 	
 	/**
-	 * Utility method to make unmodifiable a map containing lists as values  
+	 * Utility method to make unmodifiable a map containing lists as values, along with any maps 
+	 * and lists nested in the list elements
 	 * @param mapOfLists Map of List values
 	 * @return Map of List values that is unmodifiable
 	 */
@@ -90,9 +129,9 @@ public final class Util {
 			for(Map.Entry<String, List<?>> mvEntry : mapOfLists.entrySet()) {
 				List<?> value = mvEntry.getValue();
 				
-				// Mark each list value as unmodifiable
+				// Mark each list value and its nested values as unmodifiable
 				if (value != null) {
-					value = Collections.unmodifiableList(value);
+					value = (List<?>) getUnmodifiableValue(value);
 				}
 				
 				unmodifiableListMap.put(mvEntry.getKey(), value); 
@@ -102,4 +141,42 @@ public final class Util {
 		// Return an unmodifiable map
 		return Collections.unmodifiableMap(unmodifiableListMap);
 	}
+	
+	/**
+	 * Utility method to make unmodifiable a map of property values, along with any maps and lists nested in the values
+	 * @param valueMap Map of property values
+	 * @return Map of property values that is unmodifiable, or null if the map is null
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> getUnmodifiableValueMap(Map<String, Object> valueMap) {
+		return (Map<String, Object>) getUnmodifiableValue(valueMap);
+	}
+	
+	/**
+	 * Utility method to make a property value unmodifiable. Maps and lists are copied recursively 
+	 * into unmodifiable maps and lists in the same order, while other values are returned as is.
+	 * @param value Object property value
+	 * @return Object value that is unmodifiable
+	 */
+	public static Object getUnmodifiableValue(Object value) {
+		// Copy map entries in order with unmodifiable values
+		if (value instanceof Map) {
+			Map<Object, Object> unmodifiableMap = new LinkedHashMap<Object, Object>();
+			for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				unmodifiableMap.put(entry.getKey(), getUnmodifiableValue(entry.getValue()));
+			}
+			return Collections.unmodifiableMap(unmodifiableMap);
+		}
+		
+		// Copy list elements in order with unmodifiable values
+		if (value instanceof List) {
+			List<Object> unmodifiableList = new ArrayList<Object>(((List<?>) value).size());
+			for(Object element : (List<?>) value) {
+				unmodifiableList.add(getUnmodifiableValue(element));
+			}
+			return Collections.unmodifiableList(unmodifiableList);
+		}
+		
+		return value;
+	}
 }
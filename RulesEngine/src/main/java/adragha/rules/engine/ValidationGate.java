@@ -0,0 +1,289 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Package class for admission control of validations against one knowledge base. At most 
+ * a maximum number of validations run concurrently, at most a maximum number wait for 
+ * admission in arrival order, and the rest are rejected. Waiting validations are rejected 
+ * if not admitted within the timeout. Admission is decided without blocking when requested, 
+ * and a waiting validation is admitted by the release of a running one, so asynchronous 
+ * validations do not hold executor threads while waiting.
+ * 
+ * @author adragha
+ *
+ */
+final class ValidationGate {
+	/** Interval in milliseconds to check the cancellation token of a blocked validation waiting for admission */
+	private static final long CANCELLATION_POLL_INTERVAL = 10;
+	
+	/** Maximum number of concurrently running validations. Zero if unlimited. */
+	private final int maximumRunning;
+	/** Maximum number of validations waiting for admission. Zero to reject immediately. */
+	private final int maximumQueued;
+	/** Maximum wait for admission in milliseconds. Zero to wait without limit. */
+	private final long timeout;
+	
+	/** Queue of validations waiting for admission in arrival order. Guarded by this gate. */
+	private final ArrayDeque<Admission> waitingAdmissions = new ArrayDeque<Admission>();
+	/** Count of free running validation slots. Guarded by this gate. */
+	private int availableCount;
+	/** Count of admitted validations running. Guarded by this gate. */
+	private int runningCount = 0;
+	/** Count of validations admitted */
+	private final AtomicLong admittedCount = new AtomicLong();
+	/** Count of validations rejected */
+	private final AtomicLong rejectedCount = new AtomicLong();
+	
+	/**
+	 * Constructor for validation gate
+	 * @param maximumRunning Integer maximum number of concurrently running validations, zero if unlimited
+	 * @param maximumQueued Integer maximum number of validations waiting for admission
+	 * @param timeout Long maximum wait for admission in milliseconds, zero to wait without limit
+	 */
+	ValidationGate(int maximumRunning, int maximumQueued, long timeout) {
+		this.maximumRunning = Math.max(0, maximumRunning);
+		this.maximumQueued = Math.max(0, maximumQueued);
+		this.timeout = Math.max(0, timeout);
+		availableCount = this.maximumRunning;
+	}
+	
+	/**
+	 * Method to request admission of a validation without blocking. The validation is either admitted 
+	 * immediately, rejected immediately if the wait queue is full, or queued. A queued admission completes 
+	 * on the thread releasing the validation it replaces, or exceptionally with ValidationRejectedException 
+	 * if it waited beyond the timeout, which is checked whenever a running validation is released. Each 
+	 * admission that completes normally must be followed by {@link #release()}.
+	 * @param knowledgeBaseName String name of knowledge base for exception reporting
+	 * @param sessionId String ID of session for exception reporting
+	 * @return Admission future completed once admitted
+	 * @throws ValidationRejectedException if the queue is full
+	 */
+	Admission requestAdmission(String knowledgeBaseName, String sessionId) throws ValidationRejectedException {
+		Admission admission = new Admission(knowledgeBaseName, sessionId);
+		
+		synchronized(this) {
+			// Admit immediately if unlimited or a slot is free without overtaking waiting validations
+			if (maximumRunning == 0 || (availableCount > 0 && waitingAdmissions.isEmpty())) {
+				admit();
+			}
+			// ...or join the bounded wait queue, or reject if full
+			else if (waitingAdmissions.size() < maximumQueued) {
+				waitingAdmissions.add(admission);
+				return admission;
+			}
+			else {
+				rejectedCount.incrementAndGet();
+				throw new ValidationRejectedException("Validation rejected, " + maximumRunning + " running and " + waitingAdmissions.size() + " queued", 
+													  knowledgeBaseName, sessionId);
+			}
+		}
+		
+		admission.complete(null);
+		return admission;
+	}
+	
+	/**
+	 * Method to withdraw a queued admission, for example when its validation is cancelled
+	 * @param admission Admission requested
+	 * @return True if withdrawn, false if already admitted or rejected, in which case an admitted validation must still be released
+	 */
+	synchronized boolean withdraw(Admission admission) {
+		return waitingAdmissions.remove(admission);
+	}
+	
+	/**
+	 * Method to wait for admission of a validation. Each successful call must be followed by {@link #release()}.
+	 * @param knowledgeBaseName String name of knowledge base for exception reporting
+	 * @param sessionId String ID of session for exception reporting
+	 * @throws ValidationRejectedException if the queue is full or admission timed out
+	 * @throws ValidationCancelledException if interrupted while waiting
+	 */
+	void acquire(String knowledgeBaseName, String sessionId) throws EngineException {
+		acquire(knowledgeBaseName, sessionId, null);
+	}
+	
+	/**
+	 * Method to wait for admission of a validation, checking a cancellation token while waiting. 
+	 * Each successful call must be followed by {@link #release()}.
+	 * @param knowledgeBaseName String name of knowledge base for exception reporting
+	 * @param sessionId String ID of session for exception reporting
+	 * @param token CancellationToken to check while waiting, or null to only check for thread interruption
+	 * @throws ValidationRejectedException if the queue is full or admission timed out
+	 * @throws ValidationCancelledException if cancelled or interrupted while waiting
+	 */
+	void acquire(String knowledgeBaseName, String sessionId, CancellationToken token) throws EngineException {
+		Admission admission = requestAdmission(knowledgeBaseName, sessionId);
+		long startTime = System.nanoTime();
+		
+		try {
+			while(true) {
+				try {
+					admission.get(CANCELLATION_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+					return;
+				}
+				catch(TimeoutException e) {
+					// Stop waiting if cancelled or timed out, unless admitted meanwhile
+					if (token != null && token.isCancellationRequested() && withdraw(admission)) {
+						throw new ValidationCancelledException("Validation cancelled waiting for admission", knowledgeBaseName, sessionId);
+					}
+					if (timeout > 0 && System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(timeout) && withdraw(admission)) {
+						rejectedCount.incrementAndGet();
+						throw new ValidationRejectedException("Validation rejected after waiting " + timeout + " ms for admission", knowledgeBaseName, sessionId);
+					}
+				}
+			}
+		}
+		catch(ExecutionException e) {
+			throw (EngineException) e.getCause();
+		}
+		catch(InterruptedException e) {
+			// Pass admission on if it was granted while interrupted
+			if (!withdraw(admission)) {
+				release();
+			}
+			Thread.currentThread().interrupt();
+			throw new ValidationCancelledException("Validation interrupted waiting for admission", knowledgeBaseName, sessionId);
+		}
+	}
+	
+	/**
+	 * Helper method to record admission of a validation. Call while holding the gate lock.
+	 */
+	private void admit() {
+		if (maximumRunning > 0) {
+			availableCount--;
+		}
+		admittedCount.incrementAndGet();
+		runningCount++;
+	}
+	
+	/**
+	 * Method to release admission of a finished validation, admitting the next waiting validation if any.
+	 * Waiting validations that timed out are rejected.
+	 */
+	void release() {
+		Admission nextAdmission = null;
+		List<Admission> expiredAdmissions = new ArrayList<Admission>(0);
+		
+		synchronized(this) {
+			runningCount--;
+			if (maximumRunning == 0) {
+				return;
+			}
+			availableCount++;
+			
+			// Hand the free slot to the longest waiting validation that has not timed out
+			while((nextAdmission = waitingAdmissions.poll()) != null) {
+				if (timeout > 0 && System.nanoTime() - nextAdmission.queuedTime >= TimeUnit.MILLISECONDS.toNanos(timeout)) {
+					rejectedCount.incrementAndGet();
+					expiredAdmissions.add(nextAdmission);
+					continue;
+				}
+				admit();
+				break;
+			}
+		}
+		
+		// Complete admissions outside the lock, since completion runs the callbacks of waiting validations
+		for(Admission expiredAdmission : expiredAdmissions) {
+			expiredAdmission.completeExceptionally(new ValidationRejectedException("Validation rejected after waiting " + timeout + " ms for admission", 
+																				   expiredAdmission.knowledgeBaseName, expiredAdmission.sessionId));
+		}
+		if (nextAdmission != null) {
+			nextAdmission.complete(null);
+		}
+	}
+	
+	/**
+	 * Method to get maximum number of concurrently running validations
+	 * @return Integer maximum, zero if unlimited
+	 */
+	int getMaximumRunning() {
+		return maximumRunning;
+	}
+	
+	/**
+	 * Method to get count of validations waiting for admission
+	 * @return Integer count
+	 */
+	synchronized int getQueuedCount() {
+		return waitingAdmissions.size();
+	}
+	
+	/**
+	 * Method to get count of admitted validations running
+	 * @return Integer count
+	 */
+	synchronized int getRunningCount() {
+		return runningCount;
+	}
+	
+	/**
+	 * Method to get count of validations admitted
+	 * @return Long count
+	 */
+	long getAdmittedCount() {
+		return admittedCount.get();
+	}
+	
+	/**
+	 * Method to get count of validations rejected
+	 * @return Long count
+	 */
+	long getRejectedCount() {
+		return rejectedCount.get();
+	}
+	
+	/**
+	 * Package class for a requested admission, completed once the validation is admitted
+	 */
+	static final class Admission extends CompletableFuture<Void> {
+		/** Name of knowledge base for exception reporting */
+		private final String knowledgeBaseName;
+		/** ID of session for exception reporting */
+		private final String sessionId;
+		/** Time admission was requested as a System.nanoTime() value */
+		private final long queuedTime = System.nanoTime();
+		
+		/**
+		 * Constructor for admission
+		 * @param knowledgeBaseName String name of knowledge base for exception reporting
+		 * @param sessionId String ID of session for exception reporting
+		 */
+		Admission(String knowledgeBaseName, String sessionId) {
+			this.knowledgeBaseName = knowledgeBaseName;
+			this.sessionId = sessionId;
+		}
+	}
+}
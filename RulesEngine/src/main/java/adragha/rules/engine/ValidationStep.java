@@ -25,10 +25,8 @@ package adragha.rules.engine;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.Stack;
 
 import adragha.rules.engine.SessionObject.ValidationStatus;
@@ -94,6 +92,8 @@ final class ValidationStep {
 	private int alternativeIndex = 0;
 	/** Flag to indicate a new provider parent was created */
 	private SessionObject newProviderParentCreated = null;
+	/** Existing child provider used to satisfy the target object, if in that stage */
+	private SessionObject existingProviderUsed = null;
 	/** Auto-assigned step ID */
 	private int stepId = 0;
 
@@ -159,6 +159,68 @@ final class ValidationStep {
 		return stage;
 	}
 	
+	/**
+	 * Method to get index of provider alternative chosen by a satisfied step
+	 * @return Integer index of alternative in valid, sorted alternatives list
+	 */
+	int getChosenAlternative() {
+		return alternativeIndex - 1;
+	}
+	
+	/**
+	 * Method to get existing child provider used by a satisfied step in 'EXISTING' or 'EXISTING_AFTER_NEW' stage
+	 * @return SessionObject for child provider used, or null
+	 */
+	SessionObject getExistingProviderUsed() {
+		return existingProviderUsed;
+	}
+	
+	/**
+	 * Helper method to satisfy step the way it was satisfied in a solution found before, without computing its 
+	 * alternatives. An 'EXISTING' step recorded as 'NEW' is replaced with the 'NEW' step. Alternatives are computed 
+	 * only if the step is validated again after backtracking, which continues with the alternative after the recorded one.
+	 * @param recordedStage ValidationStage of recorded step
+	 * @param recordedAlternative Integer index of alternative chosen by recorded step
+	 * @param existingProvider SessionObject for existing child provider to use in 'EXISTING' or 'EXISTING_AFTER_NEW' stage
+	 * @param newProvider ModelObject for provider parent to create in 'NEW' stage
+	 * @return true if step was satisfied as recorded or replaced, false if the solution could not be replayed
+	 * @throws EngineException
+	 */
+	boolean replay(ValidationStage recordedStage, int recordedAlternative, SessionObject existingProvider, ModelObject newProvider) throws EngineException {
+		// Skip existing providers if the recorded step created a new provider
+		if (stage == ValidationStage.EXISTING && recordedStage == ValidationStage.NEW) {
+			session.replaceDisjunctionStep(new ValidationStep(session, targetObject, parentStep, ValidationStage.NEW));
+			return true;
+		}
+		if (stage != recordedStage) {
+			return false;
+		}
+		
+		// Process 'NEW' stage
+		if (stage == ValidationStage.NEW) {
+			alternativeIndex = recordedAlternative + 1;
+			createNewProvider(newProvider);
+			return true;
+		}
+		
+		// Process 'EXISTING or EXISTING_AFTER_NEW' stage if the provider can still satisfy the needer
+		double quantityNeeded = ((Double) targetObject.getPropertyValue(Constants.QTY_NEEDED)).doubleValue();
+		SessionObject existingObjectContext = existingProvider.getParentObject() != null ? existingProvider.getParentObject() : existingProvider;
+		if (existingObjectContext.getValidationStatus() == ValidationStatus.FAILED
+			||
+			!targetObject.getPropertyValue(Constants.PROTOCOL_TYPE).equals(existingProvider.getPropertyValue(Constants.PROTOCOL_TYPE))
+			||
+			((Double) existingProvider.getPropertyValue(Constants.QTY_PROVIDED)).doubleValue() < quantityNeeded
+		   ) 
+		{
+			return false;
+		}
+		alternativeIndex = recordedAlternative + 1;
+		useExistingProvider(existingProvider, quantityNeeded);
+		
+		return true;
+	}
+	
 	/**
 	 * Helper method to validate individual step. Initial attempt is to find valid existing 
 	 * providers. If that fails, new providers are created in a separate step followed by a 
@@ -204,34 +266,12 @@ final class ValidationStep {
 		if(cachedExistingProviders.size() > alternativeIndex) {
 			// Get handle on provider
 			SessionObject existingProvider = cachedExistingProviders.get(alternativeIndex);
-			// Get handle on provider parent
-			SessionObject existingObjectContext = existingProvider.getParentObject() != null ? existingProvider.getParentObject() : existingProvider;
 
 			// Increment provider index for next call to this method
 			alternativeIndex++;
 
-			// Consume provider quantity, and update needer, and provider session object properties using reversible changes
-			updateObjectValue(targetObject, Constants.QTY_NEEDED, Double.valueOf(0.0));
-			double remainingQuantity = ((Double) existingProvider.getPropertyValue(Constants.QTY_PROVIDED)).doubleValue() - quantityNeeded;
-			// Update remaining quantity on child provider
-			updateObjectValue(existingProvider, Constants.QTY_PROVIDED, Double.valueOf(remainingQuantity));
-			// Set satisfying child provider type on child needer
-			updateObjectValue(targetObject, Constants.SATISFYING_PROVIDER_MODEL_ID, existingProvider.getModelObject().getObjectId());
-			// Set satisfying child provider ID on child needer
-			updateObjectValue(targetObject, Constants.SATISFYING_PROVIDER_ID, existingProvider.getObjectId());
-			// Set validation status of child needer as successful
-			updateObjectValue(targetObject, Constants.VALIDATION_STATUS, ValidationStatus.SUCCESSFUL.toString());
-			// Confirm validation step and move it to the processed stack
-			session.confirmValidationStep(existingProvider); 
-				
-			// If the provider parent is a previously un-validated input selection, validate it next 
-			if (existingObjectContext != targetObject.getParentObject()
-				&&
-			    existingObjectContext.getValidationStatus() != ValidationStatus.SUCCESSFUL
-			   ) 
-			{
-				session.addParentToValidationStack(existingObjectContext, this);
-			}	
+			// Use provider to satisfy needer
+			useExistingProvider(existingProvider, quantityNeeded);
 		}
 		// If no existing providers alternatives remain, add validation steps to create a new provider and use it if permitted
 		else {
@@ -250,6 +290,43 @@ final class ValidationStep {
 		}
 	}
 
+	/**
+	 * Helper method to satisfy step with an existing child provider
+	 * @param existingProvider SessionObject for child provider
+	 * @param quantityNeeded Quantity of protocol needed to satisfy needer
+	 * @throws EngineException
+	 */
+	private void useExistingProvider(SessionObject existingProvider, double quantityNeeded) throws EngineException {
+		// Get handle on provider parent
+		SessionObject existingObjectContext = existingProvider.getParentObject() != null ? existingProvider.getParentObject() : existingProvider;
+		existingProviderUsed = existingProvider;
+
+		// Consume provider quantity, and update needer, and provider session object properties using reversible changes
+		updateObjectValue(targetObject, Constants.QTY_NEEDED, Double.valueOf(0.0));
+		double remainingQuantity = ((Double) existingProvider.getPropertyValue(Constants.QTY_PROVIDED)).doubleValue() - quantityNeeded;
+		// Update remaining quantity on child provider
+		updateObjectValue(existingProvider, Constants.QTY_PROVIDED, Double.valueOf(remainingQuantity));
+		// Set satisfying child provider type on child needer
+		updateObjectValue(targetObject, Constants.SATISFYING_PROVIDER_MODEL_ID, existingProvider.getModelObject().getObjectId());
+		// Set satisfying child provider ID on child needer
+		updateObjectValue(targetObject, Constants.SATISFYING_PROVIDER_ID, existingProvider.getObjectId());
+		// Record child needer on satisfying child provider
+		addSatisfiedNeeder(existingProvider, targetObject);
+		// Set validation status of child needer as successful
+		updateObjectValue(targetObject, Constants.VALIDATION_STATUS, ValidationStatus.SUCCESSFUL.toString());
+		// Confirm validation step and move it to the processed stack
+		session.confirmValidationStep(existingProvider); 
+			
+		// If the provider parent is a previously un-validated input selection, validate it next 
+		if (existingObjectContext != targetObject.getParentObject()
+			&&
+		    existingObjectContext.getValidationStatus() != ValidationStatus.SUCCESSFUL
+		   ) 
+		{
+			session.addParentToValidationStack(existingObjectContext, this);
+		}	
+	}
+
 	/**
 	 * Helper method to validate individual step by creating new provider. 
 	 * @param quantityNeeded Quantity of protocol needed to satisfy needer
@@ -267,18 +344,14 @@ final class ValidationStep {
 		
 		// Get next alternative on new list
 		if(cachedNewProviders.size() > alternativeIndex) {
-			// Get new provider parent created
-			newProviderParentCreated = session.createSessionObject(cachedNewProviders.get(alternativeIndex).getObjectId());
+			// Get new provider parent to create
+			ModelObject newProvider = cachedNewProviders.get(alternativeIndex);
 			
 			// Increment provider index for next call to this method
 			alternativeIndex++;
 
-			// Confirm validation step and move it to the processed stack
-			session.confirmValidationStep(newProviderParentCreated); 
-
-			// Add follow-up steps in reverse order - first validate new provider parent, then consume provider created for this needer			
-			session.addNeederValidationStep(new ValidationStep(session, targetObject, this, ValidationStage.EXISTING_AFTER_NEW));			
-			session.addParentToValidationStack(newProviderParentCreated, this);					
+			// Create provider parent to satisfy needer
+			createNewProvider(newProvider);
 		}
 		// Fail validation step if no alternatives remain
 		else {
@@ -286,6 +359,31 @@ final class ValidationStep {
 		}		
 	}
 
+	/**
+	 * Helper method to satisfy step by creating a new provider parent
+	 * @param newProvider ModelObject for provider parent
+	 * @throws EngineException
+	 */
+	private void createNewProvider(ModelObject newProvider) throws EngineException {
+		// Get new provider parent created
+		newProviderParentCreated = session.createSessionObject(newProvider.getObjectId());
+
+		// Confirm validation step and move it to the processed stack
+		session.confirmValidationStep(newProviderParentCreated); 
+
+		// Add follow-up steps in reverse order - first validate new provider parent, then consume provider created for this needer			
+		session.addNeederValidationStep(new ValidationStep(session, targetObject, this, ValidationStage.EXISTING_AFTER_NEW));			
+		session.addParentToValidationStack(newProviderParentCreated, this);					
+	}
+
+	/**
+	 * Package method to get provider parent created by a step in 'NEW' stage
+	 * @return SessionObject for provider parent created, or null
+	 */
+	SessionObject getNewProviderParentCreated() {
+		return newProviderParentCreated;
+	}
+	
 	/**
 	 * Package method to get validation step target session object, i.e., child needer
 	 * @return SessionObject for child needer
@@ -344,29 +442,20 @@ final class ValidationStep {
 		// Allocate return list
 		List<SessionObject> existingProviders = new ArrayList<SessionObject>();
 		
-		// To compute potential providers, first get existing provider parent model objects
-		List<ModelObject> matchingDataObjects = new ArrayList<ModelObject>();
-		for (Object classId : targetObject.getListPropertyValue(Constants.PROVIDER_CLASS_ID_LIST)) {
-			ModelClass applicableClass = session.getKnowledgeBase().getModelClass(classId);
-			applicableClass.computeRecursiveDescendantData(matchingDataObjects);
-		}
+		// To compute potential providers, first get unique existing provider parent model objects
+		List<ModelObject> uniqueDataObjects = session.getKnowledgeBase().getUniqueDescendantModelObjects(targetObject.getListPropertyValue(Constants.PROVIDER_CLASS_ID_LIST));
 
-		// Reduce to unique model object list and get existing session objects that match it
-		Set<ModelObject> uniqueDataObjects = new HashSet<ModelObject>(matchingDataObjects);
+		// Get existing session objects that match the unique model object list
 		for (ModelObject modelObject : uniqueDataObjects) {
 			for (SessionObject object : session.getSessionObjects(modelObject)) {
 				// If stage is 'EXISTING_AFTER_NEW', restrict choice to newly created provider (as the others have already been tried unsuccessfully)				
 				if (stage != ValidationStage.EXISTING_AFTER_NEW || object == parentStep.newProviderParentCreated) {
 					// If a non-failed provider parent...
 					if (object.getValidationStatus() != ValidationStatus.FAILED) {
-						for (SessionObject provider : object.getChildProviders()) {
-							// If child provider that can satisfy needer exists, then add it to the return list
-							if (protocolType.equals(provider.getPropertyValue(Constants.PROTOCOL_TYPE))
-								&&
-							    ((Double) provider.getPropertyValue(Constants.QTY_PROVIDED)).doubleValue() >= quantityNeeded
-							   ) 
-							{
-								existingProviders.add(provider);
+						for (int i=0; i < object.getChildProviderCount(); i++) {
+							// If child provider that can satisfy needer exists, then materialize it and add it to the return list
+							if (object.canChildProviderSatisfy(i, protocolType, quantityNeeded)) {
+								existingProviders.add(object.getChildProvider(i));
 							}
 						}
 					}
@@ -382,6 +471,7 @@ final class ValidationStep {
 			Map<ModelObject, IRule> rules = session.getApplicableRules(needer);
 			// Apply filtering and/or sorting by each rule to existing providers list
 			for(Map.Entry<ModelObject, IRule> entry : rules.entrySet()) {
+				session.checkCancellation();
 				existingProviders = entry.getValue().getExistingProviders(needer, existingProviders, entry.getKey());
 			}
 		}
@@ -402,15 +492,10 @@ final class ValidationStep {
 		// Allocate return list
 		List<ModelObject> newProviders = new ArrayList<ModelObject>();
 
-		// To compute potential new providers, first get provider parent model objects
-		List<ModelObject> matchingDataObjects = new ArrayList<ModelObject>();
-		for (Object classId : targetObject.getListPropertyValue(Constants.PROVIDER_CLASS_ID_LIST)) {
-			ModelClass applicableClass = session.getKnowledgeBase().getModelClass(classId);
-			applicableClass.computeRecursiveDescendantData(matchingDataObjects);
-		}
+		// To compute potential new providers, first get unique provider parent model objects
+		List<ModelObject> uniqueDataObjects = session.getKnowledgeBase().getUniqueDescendantModelObjects(targetObject.getListPropertyValue(Constants.PROVIDER_CLASS_ID_LIST));
 
-		// Reduce to unique model object list and find ones that have child providers that could satisfy needer
-		Set<ModelObject> uniqueDataObjects = new HashSet<ModelObject>(matchingDataObjects);
+		// Find the ones that have child providers that could satisfy needer
 		for (ModelObject modelObject : uniqueDataObjects) {
 			List<ModelObject> childProviders = session.getKnowledgeBase().getModelObjects(modelObject.getListPropertyValue(Constants.PROVIDER_LIST));
 			for (ModelObject childProvider :childProviders) {
@@ -434,6 +519,7 @@ final class ValidationStep {
 			Map<ModelObject, IRule> rules = session.getApplicableRules(needer);
 			// Apply filtering and/or sorting by each rule to new provider parent model object list
 			for(Map.Entry<ModelObject, IRule> entry : rules.entrySet()) {
+				session.checkCancellation();
 				newProviders = entry.getValue().getNewProviders(needer, newProviders, entry.getKey());
 			}
 		}
@@ -545,6 +631,45 @@ final class ValidationStep {
 		}
 	}	
 
+	/**
+	 * Inner class that extends abstract class to capture a needer recorded as satisfied by a provider
+	 */
+	private class SatisfiedNeederChange extends ReversibleChange {
+		/** Needer satisfied */
+		SessionObject needer = null;
+
+		/**
+		 * Constructor for satisfied needer change
+		 * @param changedObject SessionObject provider that changed
+		 * @param needer SessionObject needer satisfied
+		 */
+		SatisfiedNeederChange(SessionObject changedObject, SessionObject needer) {
+			this.changedObject = changedObject;
+			this.needer = needer;
+		}
+
+		/**
+		 * Implementation of reversal method
+		 */
+		@Override
+		void reverseChange() {
+			changedObject.removeSatisfiedNeeder(needer);
+		}
+	}	
+
+	/**
+	 * Helper method to record a needer as satisfied by a provider for future reversal
+	 * @param provider SessionObject for child provider
+	 * @param needer SessionObject for child needer
+	 */
+	void addSatisfiedNeeder(SessionObject provider, SessionObject needer) {
+		// Add to validation step stack
+		undoStack.push(new SatisfiedNeederChange(provider, needer));
+
+		// Update provider with satisfied needer
+		provider.addSatisfiedNeeder(needer);
+	}
+
 	/**
 	 * Helper method to update object value after preserving current value for future reversal
 	 * @param object SessionObject being changed
@@ -594,9 +719,11 @@ final class ValidationStep {
 			undoStack.pop().reverseChange();
 		}
 		
-		// If new provider was created previously, remove it from the session
+		// If new provider was created previously, remove it from the session and recycle it
 		if(newProviderParentCreated != null) {
-			session.removeFromSession(newProviderParentCreated);
+			session.recycleSessionObject(newProviderParentCreated);
+			newProviderParentCreated = null;
 		}
+		existingProviderUsed = null;
 	}
 }
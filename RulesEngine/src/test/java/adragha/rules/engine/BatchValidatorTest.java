@@ -0,0 +1,124 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import adragha.rules.engine.BatchValidator.BatchResult;
+
+/**
+ * Test class for {@link adragha.rules.engine.BatchValidator}.
+ * 
+ * @author adragha
+ *
+ */
+public class BatchValidatorTest {
+    /** Session manager set during setUp() */
+	private SessionManager manager;
+	
+    /** Save path property set during setUp() */
+	private String savePath;
+	
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		manager = SessionManager.getManager();
+		savePath = manager.getProperty(Constants.SAVE_PATH);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.BatchValidator#validate(java.lang.Iterable, java.io.Writer)}.
+	 * @throws IOException 
+	 */
+	@Test
+	public final void testValidate() throws IOException {
+		List<File> files = new ArrayList<File>();
+		for(int i=1; i <= 5; i++) {
+			files.add(new File(savePath + "test0" + i + "_input.json"));
+		}
+		files.add(new File(savePath + "missing_input.json"));
+		
+		StringWriter output = new StringWriter();
+		int sessionCount = manager.getSessionCount();
+		BatchResult result = new BatchValidator(manager, 4).validate(files, output);
+		
+		// Missing file fails, and session with a failed selection is invalid
+		assertEquals(6, result.getValidationCount());
+		assertEquals(1, result.getFailureCount());
+		assertEquals(1, result.getInvalidCount());
+		assertTrue(output.toString().contains("test03_input.json INVALID"));
+		assertEquals(sessionCount, manager.getSessionCount());
+		for(int i=1; i <= 5; i++) {
+			String outputReference = FileUtils.readFileToString(new File(savePath + "test0" + i + "_output.txt"), Constants.UTF_8).replaceAll("\r\n", "\n");
+			assertTrue(output.toString().contains(outputReference));
+		}
+		assertTrue(output.toString().contains("missing_input.json FAILED"));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.BatchValidator#validateFolder(java.io.File, java.io.Writer)}.
+	 * @throws IOException 
+	 */
+	@Test
+	public final void testValidateFolder() throws IOException {
+		File folder = new File("target" + File.separator + "batch");
+		folder.mkdirs();
+		FileUtils.copyFile(new File(savePath + "test01_input.json"), new File(folder, "test01_input.json"));
+		
+		BatchResult result = new BatchValidator(manager, 2).validateFolder(folder, new StringWriter());
+		assertEquals(1, result.getValidationCount());
+		assertEquals(0, result.getFailureCount());
+		assertEquals(0, result.getInvalidCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.BatchValidator.BatchResult#getLatencyPercentile(double)}.
+	 * @throws IOException 
+	 */
+	@Test
+	public final void testGetLatencyPercentile() throws IOException {
+		List<File> files = new ArrayList<File>();
+		for(int i=1; i <= 5; i++) {
+			files.add(new File(savePath + "test0" + i + "_input.json"));
+		}
+		BatchResult result = new BatchValidator(manager, 2).validate(files, new StringWriter());
+		
+		assertTrue(result.getLatencyPercentile(50) <= result.getLatencyPercentile(100));
+		assertTrue(result.getLatencyPercentile(100) > 0);
+		assertTrue(result.getThroughput() > 0);
+		assertEquals(0, new BatchResult().getLatencyPercentile(50), 0);
+	}
+}
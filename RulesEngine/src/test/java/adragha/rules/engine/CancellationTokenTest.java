@@ -0,0 +1,79 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link adragha.rules.engine.CancellationToken}.
+ * 
+ * @author adragha
+ *
+ */
+public class CancellationTokenTest {
+
+	/**
+	 * Test method for {@link adragha.rules.engine.CancellationToken#cancel()}.
+	 */
+	@Test
+	public final void testCancel() {
+		CancellationToken token = new CancellationToken();
+		assertFalse(token.isCancelled());
+		token.cancel();
+		assertTrue(token.isCancelled());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.CancellationToken#withTimeout(long, java.util.concurrent.TimeUnit)}.
+	 */
+	@Test
+	public final void testWithTimeout() {
+		assertTrue(CancellationToken.withTimeout(0, TimeUnit.MILLISECONDS).isDeadlineExceeded());
+		assertFalse(CancellationToken.withTimeout(1, TimeUnit.HOURS).isDeadlineExceeded());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.CancellationToken#isDeadlineExceeded()}.
+	 */
+	@Test
+	public final void testIsDeadlineExceeded() {
+		assertFalse(new CancellationToken().isDeadlineExceeded());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.CancellationToken#isCancellationRequested()}.
+	 */
+	@Test
+	public final void testIsCancellationRequested() {
+		CancellationToken token = CancellationToken.withTimeout(1, TimeUnit.HOURS);
+		assertFalse(token.isCancellationRequested());
+		token.cancel();
+		assertTrue(token.isCancellationRequested());
+		assertTrue(CancellationToken.withTimeout(0, TimeUnit.MILLISECONDS).isCancellationRequested());
+	}
+}
@@ -0,0 +1,142 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Stress test class to run the full scenarios concurrently over the same shared knowledge base 
+ * and rule instances, comparing each validation output to the single-threaded reference output
+ * 
+ * @author adragha
+ *
+ */
+public class ConcurrentScenarioTest {
+	/** Names of scenarios with saved inputs and reference outputs */
+	private static final String[] TEST_NAMES = { "test01", "test02", "test03", "test04", "test05" };
+	/** Number of concurrent validation threads */
+	private static final int THREAD_COUNT = 8;
+	/** Number of scenario rounds run by each thread */
+	private static final int ROUND_COUNT = 10;
+	
+	/** Session manager set during setUp() */
+	private SessionManager manager;
+	
+	/** Save path property set during setUp() */
+	private String savePath;
+	
+	/** Reference outputs by scenario index set during setUp() */
+	private String[] outputReferences;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		manager = SessionManager.getManager();
+		savePath = manager.getProperty(Constants.SAVE_PATH);
+		outputReferences = new String[TEST_NAMES.length];
+		for(int i=0; i < TEST_NAMES.length; i++) {
+			outputReferences[i] = FileUtils.readFileToString(new File(savePath + TEST_NAMES[i] + "_output.txt"), Constants.UTF_8).replaceAll("\r\n", "\n");
+		}
+	}
+
+	/**
+	 * Test concurrent validation of all scenarios, with each thread starting on a different scenario
+	 * 
+	 * @throws Exception 
+	 */
+	@Test
+	public void testConcurrentValidation() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for(int t=0; t < THREAD_COUNT; t++) {
+				final int offset = t;
+				results.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						int mismatchCount = 0;
+						for(int round=0; round < ROUND_COUNT; round++) {
+							int i = (offset + round) % TEST_NAMES.length;
+							Session session = manager.restoreSession(savePath + TEST_NAMES[i] + "_input.json");
+							session.validateSelections();
+							if (!outputReferences[i].equals(session.printOutput())) {
+								mismatchCount++;
+							}
+							manager.removeSession(session);
+						}
+						return mismatchCount;
+					}
+				}));
+			}
+			
+			// Every validation must match its single-threaded reference output
+			for(Future<Integer> result : results) {
+				assertEquals(0, result.get().intValue());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Test that the shared knowledge base is finalized and unchanged by concurrent validation
+	 * 
+	 * @throws Exception 
+	 */
+	@Test
+	public void testSharedKnowledgeBaseUnchanged() throws Exception {
+		Session session = manager.restoreSession(savePath + TEST_NAMES[0] + "_input.json");
+		KnowledgeBase knowledgeBase = session.getKnowledgeBase();
+		manager.removeSession(session);
+		assertTrue(knowledgeBase.isFinalized());
+		
+		int objectCount = knowledgeBase.getModelObjectCount();
+		int[] ruleCounts = new int[objectCount];
+		for(int i=0; i < objectCount; i++) {
+			ruleCounts[i] = knowledgeBase.getModelObject(i).getApplicableRules().size();
+		}
+		
+		testConcurrentValidation();
+		
+		assertEquals(objectCount, knowledgeBase.getModelObjectCount());
+		for(int i=0; i < objectCount; i++) {
+			assertEquals(ruleCounts[i], knowledgeBase.getModelObject(i).getApplicableRules().size());
+		}
+	}
+}
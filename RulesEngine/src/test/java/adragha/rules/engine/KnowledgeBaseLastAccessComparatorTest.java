@@ -0,0 +1,69 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import adragha.rules.engine.comparator.KnowledgeBaseLastAccessComparator;
+
+/**
+ * Test class for {@link adragha.rules.engine.comparator.KnowledgeBaseLastAccessComparator}.
+ * 
+ * @author adragha
+ *
+ */
+public class KnowledgeBaseLastAccessComparatorTest {
+
+	/**
+	 * Test method for {@link adragha.rules.engine.comparator.KnowledgeBaseLastAccessComparator#compare(adragha.rules.engine.KnowledgeBase, adragha.rules.engine.KnowledgeBase)}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testCompare() throws Exception {
+		FileInputStream in = new FileInputStream("engine.properties");
+		Properties properties = new Properties();
+		properties.load(in);
+		in.close();
+		KnowledgeBase kB1 = new KnowledgeBase("TestKB", properties);
+		KnowledgeBase kB2 = new KnowledgeBase("TestKB", properties);
+		Thread.sleep(5);
+		kB1.touch();
+
+		List<KnowledgeBase> sortList = new ArrayList<KnowledgeBase>();
+		sortList.add(kB1);
+		sortList.add(kB2);
+		
+		Collections.sort(sortList, new KnowledgeBaseLastAccessComparator());
+		assertSame(kB2, sortList.get(0));
+	}
+
+}
@@ -0,0 +1,105 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link adragha.rules.engine.KnowledgeBaseSnapshot}.
+ * 
+ * @author adragha
+ *
+ */
+public class KnowledgeBaseSnapshotTest {
+	/** Test knowledge base loaded by setUp() method */
+	private KnowledgeBase kB;
+	/** Snapshot file written by setUp() method */
+	private File snapshotFile;
+	
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		FileInputStream in = new FileInputStream("engine.properties");
+		Properties properties = new Properties();
+		properties.load(in);
+		in.close();
+		kB = new KnowledgeBase("TestKB", properties);
+		snapshotFile = new File("target", "KnowledgeBaseSnapshotTest" + Constants.SNAPSHOT_EXT);
+		KnowledgeBaseSnapshot.write(kB, snapshotFile);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBaseSnapshot#open(java.io.File, java.lang.String, long)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testOpen() throws EngineException {
+		assertNotNull(KnowledgeBaseSnapshot.open(snapshotFile, "TestKB", kB.getSourceFingerprint()));
+		assertNull(KnowledgeBaseSnapshot.open(snapshotFile, "TestKB", kB.getSourceFingerprint() + 1));
+		assertNull(KnowledgeBaseSnapshot.open(snapshotFile, "OtherKB", kB.getSourceFingerprint()));
+		assertNull(KnowledgeBaseSnapshot.open(new File("target", "missing" + Constants.SNAPSHOT_EXT), "TestKB", kB.getSourceFingerprint()));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBaseSnapshot#open(java.io.File, java.lang.String, long)} with unknown format.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testOpenUnknownFormat() throws Exception {
+		File badFile = new File("target", "KnowledgeBaseSnapshotTestBad" + Constants.SNAPSHOT_EXT);
+		FileOutputStream out = new FileOutputStream(badFile);
+		out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+		out.close();
+		assertNull(KnowledgeBaseSnapshot.open(badFile, "TestKB", kB.getSourceFingerprint()));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBaseSnapshot#readModelClasses()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testReadModelClasses() throws EngineException {
+		KnowledgeBaseSnapshot snapshot = KnowledgeBaseSnapshot.open(snapshotFile, "TestKB", kB.getSourceFingerprint());
+		assertEquals(kB.getModelClassCount(), snapshot.readModelClasses().size());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBaseSnapshot#write(adragha.rules.engine.KnowledgeBase, java.io.File)}.
+	 */
+	@Test
+	public final void testWrite() {
+		assertTrue(snapshotFile.length() > 0);
+		assertFalse(new File(snapshotFile.getPath() + ".tmp").exists());
+	}
+}
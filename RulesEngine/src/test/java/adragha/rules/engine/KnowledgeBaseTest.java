@@ -25,10 +25,15 @@ package adragha.rules.engine;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -107,6 +112,66 @@ public class KnowledgeBaseTest {
 		assertTrue(kB.getModelObjects(Arrays.asList("universal_maximum_filter")).size() == 1);
 	}
 
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getModelClass(int)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetModelClassInt() throws EngineException {
+		ModelClass modelClass = kB.getModelClass("Controller");
+		assertTrue(kB.getModelClass(modelClass.getClassIndex()) == modelClass);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getModelObject(int)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetModelObjectInt() throws EngineException {
+		ModelObject modelObject = kB.getModelObject("pcix_controller");
+		assertTrue(kB.getModelObject(modelObject.getObjectIndex()) == modelObject);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getModelObjectCount()}.
+	 */
+	@Test
+	public final void testGetModelObjectCount() {
+		assertTrue(kB.getModelObjectCount() > 0);
+		assertTrue(kB.getModelClassCount() > 0);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getBaseObjectClass()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetBaseObjectClass() throws EngineException {
+		assertTrue(kB.getModelObject("pcix_controller").isDescendant(kB.getBaseObjectClass()));
+		assertFalse(kB.getModelObject("controller_slot").isDescendant(kB.getBaseObjectClass()));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getDescendantModelObjects(adragha.rules.engine.ModelClass)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetDescendantModelObjects() throws EngineException {
+		List<ModelObject> expected = new ArrayList<ModelObject>();
+		kB.getModelClass("BaseRule").computeRecursiveDescendantData(expected);
+		List<ModelObject> result = kB.getDescendantModelObjects(kB.getModelClass("BaseRule"));
+		assertTrue(result.size() == expected.size() && result.containsAll(expected));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getUniqueDescendantModelObjects(java.util.List)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetUniqueDescendantModelObjects() throws EngineException {
+		assertTrue(kB.getUniqueDescendantModelObjects(Arrays.asList("Backplane", "Backplane")).size() == 3);
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getRuleClass(java.lang.Object)}.
 	 */
@@ -114,4 +179,208 @@ public class KnowledgeBaseTest {
 	public final void testGetRuleClass() {
 		assertNotNull(kB.getRuleClass("adragha.rules.engine.common.PropertyValueFilter"));
 	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getSourceFingerprint()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testGetSourceFingerprint() throws Exception {
+		assertEquals(kB.getSourceFingerprint(), new KnowledgeBase("TestKB", loadProperties()).getSourceFingerprint());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getModelParseFileCount()}.
+	 */
+	@Test
+	public final void testGetModelParseFileCount() {
+		assertEquals(kB.getModelClassCount(), kB.getModelParseFileCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getModelParseBytes()}.
+	 */
+	@Test
+	public final void testGetModelParseBytes() {
+		assertTrue(kB.getModelParseBytes() > 0);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getModelParseTime()}.
+	 */
+	@Test
+	public final void testGetModelParseTime() {
+		assertTrue(kB.getModelParseTime() > 0);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#isLoadedFromSnapshot()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testIsLoadedFromSnapshot() throws Exception {
+		assertFalse(kB.isLoadedFromSnapshot());
+		
+		Properties properties = loadProperties();
+		properties.setProperty(Constants.SNAPSHOT_PATH, "target");
+		kB.writeSnapshot(KnowledgeBase.getSnapshotFile("TestKB", properties));
+		assertTrue(new KnowledgeBase("TestKB", properties).isLoadedFromSnapshot());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#isLoadedFromSnapshot()} with a snapshot 
+	 * whose header is valid but whose body is corrupt.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testIsLoadedFromSnapshotCorrupt() throws Exception {
+		Properties properties = loadProperties();
+		properties.setProperty(Constants.SNAPSHOT_PATH, "target" + File.separator + "corrupt");
+		File snapshotFile = KnowledgeBase.getSnapshotFile("TestKB", properties);
+		snapshotFile.getParentFile().mkdirs();
+		kB.writeSnapshot(snapshotFile);
+		
+		// Truncate snapshot body, keeping the header
+		byte[] bytes = FileUtils.readFileToByteArray(snapshotFile);
+		FileUtils.writeByteArrayToFile(snapshotFile, Arrays.copyOf(bytes, bytes.length / 2));
+		
+		// Knowledge base is loaded from JSON instead
+		KnowledgeBase jsonKB = new KnowledgeBase("TestKB", properties);
+		assertFalse(jsonKB.isLoadedFromSnapshot());
+		assertTrue(jsonKB.isFinalized());
+		assertEquals(kB.getModelClassCount(), jsonKB.getModelClassCount());
+		assertEquals(kB.getModelObjectCount(), jsonKB.getModelObjectCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#writeSnapshot(java.io.File)}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testWriteSnapshot() throws Exception {
+		Properties properties = loadProperties();
+		properties.setProperty(Constants.SNAPSHOT_PATH, "target");
+		kB.writeSnapshot(KnowledgeBase.getSnapshotFile("TestKB", properties));
+		KnowledgeBase snapshotKB = new KnowledgeBase("TestKB", properties);
+		
+		// Compare model and cached rule applicability
+		assertEquals(kB.getModelObjectCount(), snapshotKB.getModelObjectCount());
+		for(int i=0; i < kB.getModelObjectCount(); i++) {
+			ModelObject modelObject = kB.getModelObject(i);
+			ModelObject snapshotObject = snapshotKB.getModelObject(i);
+			assertEquals(modelObject.getObjectId(), snapshotObject.getObjectId());
+			assertEquals(modelObject.getModelClass().getClassId(), snapshotObject.getModelClass().getClassId());
+			assertEquals(modelObject.getApplicableRules().size(), snapshotObject.getApplicableRules().size());
+			for(int j=0; j < modelObject.getApplicableRules().size(); j++) {
+				assertEquals(modelObject.getApplicableRules().get(j).getObjectId(), snapshotObject.getApplicableRules().get(j).getObjectId());
+			}
+		}
+		
+		// Compare validation results
+		Session session = new Session(kB);
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		session.validateSelections();
+		Session snapshotSession = new Session(snapshotKB);
+		snapshotSession.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		snapshotSession.validateSelections();
+		assertEquals(session.printOutput(), snapshotSession.printOutput());
+	}
+	
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#KnowledgeBase(java.lang.String, java.util.Properties)} with sequential model file parsing.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testKnowledgeBaseSequentialLoad() throws Exception {
+		Properties properties = loadProperties();
+		properties.setProperty(Constants.LOAD_THREADS, "1");
+		KnowledgeBase sequentialKB = new KnowledgeBase("TestKB", properties);
+		
+		assertEquals(kB.getModelObjectCount(), sequentialKB.getModelObjectCount());
+		for(int i=0; i < kB.getModelObjectCount(); i++) {
+			assertEquals(kB.getModelObject(i).getObjectId(), sequentialKB.getModelObject(i).getObjectId());
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#KnowledgeBase(java.lang.String, java.util.Properties)} with invalid model file.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testFailureKnowledgeBaseInvalidFile() throws Exception {
+		File modelFolder = new File("target" + File.separator + "InvalidKB");
+		modelFolder.mkdirs();
+		FileUtils.writeStringToFile(new File(modelFolder, "Invalid.json"), "{ \"valueProperties\": [", Constants.UTF_8);
+		
+		Properties properties = loadProperties();
+		properties.setProperty(Constants.MODEL_PATH, "target");
+		try {
+			new KnowledgeBase("InvalidKB", properties);
+			fail("Expected EngineException");
+		}
+		catch(EngineException e) {
+			assertTrue(e.getMessage().contains("Invalid.json"));
+		}
+	}
+	
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#isFinalized()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testIsFinalized() throws Exception {
+		assertTrue(kB.isFinalized());
+		assertTrue(kB.getModelClass("BaseObject").isFinalized());
+		assertTrue(kB.getModelObject("universal_maximum_filter").isFinalized());
+		
+		Properties properties = loadProperties();
+		properties.setProperty(Constants.SNAPSHOT_PATH, "target");
+		kB.writeSnapshot(KnowledgeBase.getSnapshotFile("TestKB", properties));
+		KnowledgeBase snapshotKB = new KnowledgeBase("TestKB", properties);
+		assertTrue(snapshotKB.isLoadedFromSnapshot() && snapshotKB.isFinalized());
+		assertTrue(snapshotKB.getModelObject(0).isFinalized());
+	}
+	
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#getEstimatedSize()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testGetEstimatedSize() throws Exception {
+		KnowledgeBase baseKB = new KnowledgeBase("MissingKB", loadProperties());
+		assertTrue(baseKB.getEstimatedSize() > 0);
+		assertTrue(kB.getEstimatedSize() > baseKB.getEstimatedSize());
+	}
+	
+	/**
+	 * Test method for modification of a finalized model class hierarchy.
+	 * @throws EngineException 
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public final void testFailureModifyFinalizedModelClass() throws EngineException {
+		kB.getModelClass("BaseObject").setParentClass(kB.getModelClass("BaseRule"));
+	}
+	
+	/**
+	 * Test method for modification of finalized cached rule applicability.
+	 * @throws EngineException 
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public final void testFailureModifyFinalizedModelObject() throws EngineException {
+		ModelObject rule = kB.getModelObject("universal_maximum_filter");
+		kB.getModelObject("pcix_controller").setApplicableRules(Arrays.asList(rule));
+	}
+	
+	/**
+	 * Helper method to load test properties
+	 * @return Properties loaded from engine properties file
+	 * @throws IOException
+	 */
+	private static Properties loadProperties() throws IOException {
+		FileInputStream in = new FileInputStream("engine.properties");
+		Properties properties = new Properties();
+		properties.load(in);
+		in.close();
+		return properties;
+	}
 }
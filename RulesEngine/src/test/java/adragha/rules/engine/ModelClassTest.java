@@ -33,6 +33,8 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 
+import adragha.rules.engine.comparator.ModelClassIdComparator;
+
 /**
  * Test class for {@link adragha.rules.engine.ModelClass}.
  * 
@@ -125,6 +127,22 @@ public class ModelClassTest {
 		assertTrue(!baseModelClass.isDescendant(derivedModelClass) && derivedModelClass.isDescendant(baseModelClass));
 	}
 
+	/**
+	 * Test method for {@link adragha.rules.engine.ModelClass#indexHierarchy(java.util.List, java.util.List, adragha.rules.engine.comparator.ModelClassIdComparator)}.
+	 */
+	@Test
+	public final void testIndexHierarchy() {
+		List<ModelClass> indexedClasses = new ArrayList<ModelClass>();
+		List<ModelObject> indexedObjects = new ArrayList<ModelObject>();
+		baseModelClass.initialize();
+		baseModelClass.setParentClass(null);
+		derivedModelClass.initialize();		
+		derivedModelClass.setParentClass(baseModelClass);
+		baseModelClass.indexHierarchy(indexedClasses, indexedObjects, new ModelClassIdComparator());
+		assertTrue(baseModelClass.getClassIndex() == 0 && derivedModelClass.getClassIndex() == 1);
+		assertTrue(derivedModelClass.isDescendant(baseModelClass) && !baseModelClass.isDescendant(derivedModelClass));
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.ModelClass#getModelObjects()}.
 	 */
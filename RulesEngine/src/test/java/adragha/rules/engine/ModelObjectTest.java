@@ -26,6 +26,10 @@ package adragha.rules.engine;
 import static org.junit.Assert.*;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
@@ -89,6 +93,34 @@ public class ModelObjectTest {
 		assertTrue(Constants.BASE_OBJECT_CLASS.equals(modelObject.getListPropertyValue(Constants.APPLICABLE_CLASS_ID_LIST).get(0)));
 	}
 
+	/**
+	 * Test method for {@link adragha.rules.engine.ModelObject#finalizeModel()}.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public final void testFinalizeModel() {
+		Map<String, Object> nestedValue = new HashMap<String, Object>();
+		nestedValue.put("test_key", "test_value");
+		Map<String, Object> valueProperties = new HashMap<String, Object>();
+		valueProperties.put("test_nested", nestedValue);
+		Map<String, List<?>> listProperties = new HashMap<String, List<?>>();
+		List<Object> listValue = new ArrayList<Object>();
+		listValue.add(new ArrayList<Object>());
+		listProperties.put("test_list", listValue);
+		
+		// Maps and lists nested in property values can not be modified once finalized
+		ModelObject modelObject = new ModelObject(valueProperties, listProperties);
+		modelObject.finalizeModel();
+		assertEquals(nestedValue, modelObject.getPropertyValue("test_nested"));
+		try {
+			((List<?>) modelObject.getListPropertyValue("test_list").get(0)).clear();
+			fail("Nested list modified");
+		}
+		catch(UnsupportedOperationException e) {
+			// Expected
+		}
+		((Map<?, ?>) modelObject.getPropertyValue("test_nested")).clear();
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.ModelObject#getObjectId()}.
 	 */
@@ -0,0 +1,169 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import adragha.rules.engine.SessionObject.ValidationStatus;
+
+/**
+ * Test class for {@link adragha.rules.engine.SelectionMemo}.
+ * 
+ * @author adragha
+ *
+ */
+public class SelectionMemoTest {
+	/** Test session created by setUp() method */
+	private Session session;
+	
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		session = manager.createSession("TestKB");
+	}
+	
+	/**
+	 * Helper method to load engine properties used by tests
+	 * @return Properties loaded from engine properties file
+	 * @throws Exception
+	 */
+	private static Properties loadProperties() throws Exception {
+		FileInputStream in = new FileInputStream("engine.properties");
+		Properties properties = new Properties();
+		properties.load(in);
+		in.close();
+		return properties;
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SelectionMemo#compareObjectIds(java.lang.String, java.lang.String)}.
+	 */
+	@Test
+	public final void testCompareObjectIds() {
+		assertEquals(0, SelectionMemo.compareObjectIds("1001", "1001"));
+		assertTrue(SelectionMemo.compareObjectIds("1001", "1002") < 0);
+		assertTrue(SelectionMemo.compareObjectIds("1002", "1001") > 0);
+		
+		// Same order as IDs of child providers, which follow the parent ID with a ':' separator
+		assertTrue(SelectionMemo.compareObjectIds("10010", "1001") < 0);
+		assertTrue(SelectionMemo.compareObjectIds("999", "1000") > 0);
+		assertEquals(Integer.signum("10010:10011:1".compareTo("1001:1002:1")), Integer.signum(SelectionMemo.compareObjectIds("10010", "1001")));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SelectionMemo#areRulesReplayable(java.util.Collection)}.
+	 */
+	@Test
+	public final void testAreRulesReplayable() {
+		List<IRule> rules = new ArrayList<IRule>(session.getKnowledgeBase().getRuleClasses());
+		assertFalse(rules.isEmpty());
+		assertTrue(SelectionMemo.areRulesReplayable(rules));
+		
+		// Custom rules may depend on any session state, so successful validations are not replayed
+		rules.add(new IRule() {
+			/**
+			 * Default implementation of interface. Does not filter or sort candidates.
+			 */
+			@Override
+			public List<SessionObject> getExistingProviders(SessionObject needer, List<SessionObject> existingCandidateProviders, ModelObject rule) {
+				return existingCandidateProviders;
+			}
+			
+			/**
+			 * Default implementation of interface. Does not filter or sort candidates.
+			 */
+			@Override
+			public List<ModelObject> getNewProviders(SessionObject needer, List<ModelObject> newCandidateProviders, ModelObject rule) {
+				return newCandidateProviders;
+			}
+		});
+		assertFalse(SelectionMemo.areRulesReplayable(rules));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SelectionMemo#isReplayable(adragha.rules.engine.SessionObject)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testIsReplayable() throws EngineException {
+		SessionObject controller = session.createSessionObject("pcix_controller");
+		assertTrue(SelectionMemo.isReplayable(controller));
+		
+		// Selection with a needer already validated is not replayable
+		controller.getChildNeeders().get(0).setPropertyValue(Constants.VALIDATION_STATUS, ValidationStatus.SUCCESSFUL.toString());
+		assertFalse(SelectionMemo.isReplayable(controller));
+		
+		// Selection with providers is not replayable
+		assertFalse(SelectionMemo.isReplayable(session.createSessionObject("pcix_backplane_3_slot")));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#isSelectionMemoEnabled()} disabled by property.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testSelectionMemoDisabled() throws Exception {
+		Properties properties = loadProperties();
+		properties.setProperty(Constants.SELECTION_MEMO, Constants.FALSE);
+		Session disabled = new Session(new KnowledgeBase("TestKB", properties));
+		assertFalse(disabled.getKnowledgeBase().isSelectionMemoEnabled());
+		
+		// Every selection is searched, with the same output as when identical selections are replayed
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 12));
+		session.validateSelections();
+		disabled.createAndQueueSelection(new InputSelection("pcie_controller", 12));
+		disabled.validateSelections();
+		assertTrue(session.getReplayedSelectionCount() > 0);
+		assertEquals(0, disabled.getReplayedSelectionCount());
+		assertEquals(session.printOutput(), disabled.printOutput());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.KnowledgeBase#KnowledgeBase(java.lang.String, java.util.Properties)} with invalid memo property.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testFailureSelectionMemoInvalid() throws Exception {
+		Properties properties = loadProperties();
+		properties.setProperty(Constants.SELECTION_MEMO, "maybe");
+		try {
+			new KnowledgeBase("TestKB", properties);
+			fail("Expected EngineException");
+		}
+		catch(EngineException e) {
+			assertTrue(e.getMessage().contains(Constants.SELECTION_MEMO));
+		}
+	}
+}
@@ -27,6 +27,18 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -66,6 +78,301 @@ public class SessionManagerTest {
 		assertNotNull(SessionManager.getManager().createSession("TestKB"));
 	}
 
+	/**
+	 * Contention benchmark for {@link adragha.rules.engine.SessionManager#createSession(java.lang.String)}
+	 * with many threads creating and removing sessions concurrently. Logs session creation throughput.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testCreateSessionContention() throws Exception {
+		final SessionManager manager = SessionManager.getManager();
+		final int threadCount = 32;
+		final int sessionsPerThread = 200;
+		final AtomicInteger created = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		
+		// Create threads that wait for a common start signal
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		List<Future<Void>> results = new ArrayList<Future<Void>>();
+		for(int i=0; i < threadCount; i++) {
+			results.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					start.await();
+					for(int j=0; j < sessionsPerThread; j++) {
+						manager.removeSession(manager.createSession("TestKB"));
+						created.incrementAndGet();
+					}
+					return null;
+				}
+			}));
+		}
+		
+		// Run and wait for all threads
+		long startTime = System.nanoTime();
+		start.countDown();
+		for(Future<Void> result : results) {
+			result.get();
+		}
+		long elapsedTime = System.nanoTime() - startTime;
+		executor.shutdown();
+		
+		assertEquals(threadCount * sessionsPerThread, created.get());
+		SessionManager.logger.info("Created {} sessions on {} threads in {} ms ({} sessions/s)", created.get(), threadCount, 
+				elapsedTime / 1000000, (long) (created.get() / (elapsedTime / 1e9)));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#validateAsync(adragha.rules.engine.Session)}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testValidateAsync() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		Session session = manager.createSession("TestKB");
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		Session expected = manager.createSession("TestKB");
+		expected.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		expected.validateSelections();
+		
+		long completedCount = manager.getCompletedValidationCount();
+		assertSame(session, manager.validateAsync(session).get());
+		assertEquals(expected.printOutput(), session.printOutput());
+		assertTrue(manager.getCompletedValidationCount() > completedCount);
+		manager.removeSession(session);
+		manager.removeSession(expected);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#validateAsync(adragha.rules.engine.Session)} with failure.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testFailureValidateAsync() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		long failedCount = manager.getFailedValidationCount();
+		
+		try {
+			manager.validateAsync(null).get();
+			fail("Expected ExecutionException");
+		}
+		catch(ExecutionException e) {
+			assertTrue(e.getCause() instanceof NullPointerException);
+		}
+		assertTrue(manager.getFailedValidationCount() > failedCount);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#getCancelledValidationCount()} and 
+	 * {@link adragha.rules.engine.SessionManager#getQueuedValidationCount()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testGetCancelledValidationCount() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		Executor previousExecutor = manager.getValidationExecutor();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		final CountDownLatch release = new CountDownLatch(1);
+		
+		manager.setValidationExecutor(executor);
+		try {
+			// Block executor thread so that validation stays queued
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						release.await();
+					}
+					catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			
+			Session session = manager.createSession("TestKB");
+			session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+			long cancelledCount = manager.getCancelledValidationCount();
+			CompletableFuture<Session> future = manager.validateAsync(session);
+			assertTrue(manager.getQueuedValidationCount() > 0);
+			assertTrue(future.cancel(true));
+			
+			// Release executor and wait for cancelled validation to be skipped
+			release.countDown();
+			executor.shutdown();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+			assertTrue(manager.getCancelledValidationCount() > cancelledCount);
+			assertTrue(session.getSessionObjectCount(session.getKnowledgeBase().getModelObject("pcie_controller")) > 0);
+			assertEquals(0, manager.getActiveValidationCount());
+			manager.removeSession(session);
+		}
+		finally {
+			manager.setValidationExecutor(previousExecutor);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#validate(adragha.rules.engine.Session)}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testValidate() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		Session session = manager.createSession("TestKB");
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		
+		String unvalidatedOutput = session.printOutput();
+		
+		assertSame(session, manager.validate(session));
+		assertFalse(unvalidatedOutput.equals(session.printOutput()));
+		assertEquals(0, manager.getRunningValidationCount("TestKB"));
+		manager.removeSession(session);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#setValidationLimits(java.lang.String, int, int, long)}
+	 * with validations rejected immediately and after waiting.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testSetValidationLimits() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		Session session = manager.createSession("TestKB");
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		String unvalidatedOutput = session.printOutput();
+		
+		try {
+			// Occupy the only permit so the validation is rejected without waiting
+			manager.setValidationLimits("TestKB", 1, 0, 0);
+			ValidationGate gate = manager.getValidationGate("TestKB");
+			gate.acquire("TestKB", "Test Session");
+			assertEquals(1, manager.getRunningValidationCount("TestKB"));
+			try {
+				manager.validate(session);
+				fail("Expected ValidationRejectedException");
+			}
+			catch(ValidationRejectedException e) {
+				assertEquals(1, manager.getRejectedValidationCount("TestKB"));
+			}
+			
+			// Rejected asynchronously as well, with the session unchanged
+			long rejectedCount = manager.getRejectedValidationCount();
+			try {
+				manager.validateAsync(session).get();
+				fail("Expected ExecutionException");
+			}
+			catch(ExecutionException e) {
+				assertTrue(e.getCause() instanceof ValidationRejectedException);
+			}
+			assertTrue(manager.getRejectedValidationCount() > rejectedCount);
+			assertEquals(unvalidatedOutput, session.printOutput());
+			gate.release();
+			
+			// Wait in queue until timeout while the permit stays occupied
+			manager.setValidationLimits("TestKB", 1, 1, 50);
+			manager.getValidationGate("TestKB").acquire("TestKB", "Test Session");
+			try {
+				manager.validate(session);
+				fail("Expected ValidationRejectedException");
+			}
+			catch(ValidationRejectedException e) {
+				assertEquals(0, manager.getQueuedValidationCount("TestKB"));
+			}
+			
+			// Admitted once the permit is released
+			manager.getValidationGate("TestKB").release();
+			manager.validate(session);
+			assertFalse(unvalidatedOutput.equals(session.printOutput()));
+		}
+		finally {
+			manager.setValidationLimits("TestKB", 0, 0, 0);
+			manager.removeSession(session);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#validateAsync(adragha.rules.engine.Session)}
+	 * with validations waiting for admission without holding an executor thread.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testValidateAsyncAdmission() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		Executor previousExecutor = manager.getValidationExecutor();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Session session = manager.createSession("TestKB");
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		String unvalidatedOutput = session.printOutput();
+		
+		manager.setValidationExecutor(executor);
+		try {
+			// Occupy the only permit so the validation waits for admission
+			manager.setValidationLimits("TestKB", 1, 1, 0);
+			ValidationGate gate = manager.getValidationGate("TestKB");
+			gate.acquire("TestKB", "Test Session");
+			CompletableFuture<Session> future = manager.validateAsync(session);
+			assertEquals(1, manager.getQueuedValidationCount("TestKB"));
+			
+			// Queue full, so the next validation is rejected before it is submitted
+			CompletableFuture<Session> rejectedFuture = manager.validateAsync(manager.createSession("TestKB"));
+			assertTrue(rejectedFuture.isCompletedExceptionally());
+			
+			// Executor thread is free while the validation waits
+			final CountDownLatch executed = new CountDownLatch(1);
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					executed.countDown();
+				}
+			});
+			assertTrue(executed.await(10, TimeUnit.SECONDS));
+			assertFalse(future.isDone());
+			
+			// Cancelled validation is withdrawn from the queue
+			assertTrue(future.cancel(true));
+			assertEquals(0, manager.getQueuedValidationCount("TestKB"));
+			assertEquals(unvalidatedOutput, session.printOutput());
+			
+			// Waiting validation is submitted once the permit is released
+			future = manager.validateAsync(session);
+			gate.release();
+			assertSame(session, future.get(10, TimeUnit.SECONDS));
+			assertFalse(unvalidatedOutput.equals(session.printOutput()));
+			assertEquals(0, manager.getRunningValidationCount("TestKB"));
+		}
+		finally {
+			manager.setValidationLimits("TestKB", 0, 0, 0);
+			manager.setValidationExecutor(previousExecutor);
+			executor.shutdownNow();
+			manager.removeSession(session);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#preload(java.lang.String[])}.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testPreload() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		manager.preload("TestKB");
+		assertTrue(manager.getKnowledgeBaseVersion("TestKB") > 0);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#warmUp(int, java.lang.String[])}.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testWarmUp() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		int sessionCount = manager.getSessionCount();
+		assertTrue(manager.warmUp(2, "TestKB") >= 0);
+		assertTrue(manager.isWarm());
+		assertEquals(sessionCount, manager.getSessionCount());
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.SessionManager#removeSession(adragha.rules.engine.Session)}.
 	 * @throws IOException 
@@ -78,6 +385,282 @@ public class SessionManagerTest {
 		manager.removeSession(session);		
 	}
 
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#reloadKnowledgeBase(java.lang.String)}.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testReloadKnowledgeBase() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		Session oldSession = manager.createSession("TestKB");
+		KnowledgeBase reloaded = manager.reloadKnowledgeBase("TestKB");
+		Session newSession = manager.createSession("TestKB");
+		
+		assertTrue(reloaded.getVersion() > oldSession.getKnowledgeBase().getVersion());
+		assertSame(reloaded, newSession.getKnowledgeBase());
+		manager.removeSession(oldSession);
+		manager.removeSession(newSession);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#evictKnowledgeBases()}.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testEvictKnowledgeBases() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		Session testSession = manager.createSession("TestKB");
+		Session session = null;
+		
+		try {
+			// Budget smaller than any knowledge base keeps only those in use and the latest loaded
+			manager.setKnowledgeBaseMemoryBudget(1);
+			long loadCount = manager.getKnowledgeBaseLoadCount();
+			long evictedCount = manager.getEvictedKnowledgeBaseCount();
+			manager.getKnowledgeBase("EvictKB1");
+			manager.getKnowledgeBase("EvictKB2");
+			assertEquals(loadCount + 2, manager.getKnowledgeBaseLoadCount());
+			assertTrue(manager.getEvictedKnowledgeBaseCount() > evictedCount);
+			assertEquals(0, manager.getKnowledgeBaseVersion("EvictKB1"));
+			assertTrue(manager.getKnowledgeBaseVersion("TestKB") > 0);
+			
+			// Knowledge base with in-progress session is kept, unloaded one is loaded on demand
+			session = manager.createSession("EvictKB2");
+			manager.getKnowledgeBase("EvictKB1");
+			assertEquals(loadCount + 3, manager.getKnowledgeBaseLoadCount());
+			assertTrue(manager.getKnowledgeBaseVersion("EvictKB1") > 0 && manager.getKnowledgeBaseVersion("EvictKB2") > 0);
+			
+			// Loaded knowledge base is a hit
+			long hitCount = manager.getKnowledgeBaseHitCount();
+			manager.getKnowledgeBase("EvictKB1");
+			assertEquals(hitCount + 1, manager.getKnowledgeBaseHitCount());
+			assertTrue(manager.getKnowledgeBaseMemory() > 0);
+			
+			// Explicit eviction unloads only the knowledge base not in use
+			assertEquals(1, manager.evictKnowledgeBases());
+			assertEquals(0, manager.getKnowledgeBaseVersion("EvictKB1"));
+			assertTrue(manager.getKnowledgeBaseVersion("EvictKB2") > 0);
+			
+			// Unloaded once no longer in use
+			manager.removeSession(session);
+			assertEquals(1, manager.evictKnowledgeBases());
+			assertEquals(0, manager.getKnowledgeBaseVersion("EvictKB2"));
+		}
+		finally {
+			manager.setKnowledgeBaseMemoryBudget(0);
+			manager.removeSession(testSession);
+			if (session != null) {
+				manager.removeSession(session);
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#borrowSession(java.lang.String)} and 
+	 * {@link adragha.rules.engine.SessionManager#returnSession(adragha.rules.engine.Session)}.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testBorrowSession() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		Session expected = manager.createSession("TestKB");
+		expected.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		expected.validateSelections();
+		String expectedOutput = expected.printOutput();
+		manager.removeSession(expected);
+		
+		try {
+			// Not pooled when pooling is disabled
+			manager.setPooledSessionLimit(0);
+			Session session = manager.borrowSession("TestKB");
+			manager.returnSession(session);
+			assertEquals(0, manager.getPooledSessionCount());
+			assertNotSame(session, manager.borrowSession("TestKB"));
+			
+			// Pooled session is reset and re-used
+			manager.setPooledSessionLimit(1);
+			long reusedCount = manager.getReusedSessionCount();
+			session = manager.borrowSession("TestKB");
+			session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+			session.validateSelections();
+			manager.returnSession(session);
+			assertEquals(1, manager.getPooledSessionCount());
+			
+			// Returning the same session twice is rejected
+			try {
+				manager.returnSession(session);
+				fail("Expected EngineException");
+			}
+			catch(EngineException e) {
+				assertEquals(1, manager.getPooledSessionCount());
+			}
+			
+			String sessionId = session.getSessionId();
+			Session reused = manager.borrowSession("TestKB");
+			assertSame(session, reused);
+			assertFalse(sessionId.equals(reused.getSessionId()));
+			assertEquals(reusedCount + 1, manager.getReusedSessionCount());
+			assertEquals(0, manager.getPooledSessionCount());
+			reused.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+			reused.validateSelections();
+			assertEquals(expectedOutput, reused.printOutput());
+			
+			// Session beyond pool limit is discarded
+			manager.returnSession(reused);
+			manager.returnSession(manager.borrowSession("TestKB"));
+			manager.returnSession(new Session(reused.getKnowledgeBase()));
+			assertEquals(1, manager.getPooledSessionCount());
+		}
+		finally {
+			manager.setPooledSessionLimit(0);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#validate(adragha.rules.engine.Session)} with results cached.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testValidateCached() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		Session expected = new Session(manager.getKnowledgeBase("TestKB"));
+		expected.createAndQueueSelection(new InputSelection("pcie_controller", 2));
+		expected.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		expected.validateSelections();
+		
+		try {
+			manager.setResultCacheLimits(2, 0);
+			
+			// First validation is cached, and the same selections in any split are served from cache
+			Session first = new Session(expected.getKnowledgeBase());
+			first.createAndQueueSelection(new InputSelection("pcie_controller", 2));
+			first.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+			manager.validate(first);
+			assertEquals(expected.printOutput(), first.printOutput());
+			assertEquals(1, manager.getResultCacheSize());
+			assertEquals(1, manager.getResultCacheMissCount());
+			
+			Session second = new Session(expected.getKnowledgeBase());
+			second.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+			manager.validate(second);
+			assertEquals(expected.printOutput(), second.printOutput());
+			assertEquals(1, manager.getResultCacheHitCount());
+			assertEquals(0.5, manager.getResultCacheHitRatio(), 0.0001);
+			
+			// Cached result is not shared with sessions served from it
+			second.addSelection(new InputSelection("pcix_controller", 3), null);
+			Session third = new Session(expected.getKnowledgeBase());
+			third.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+			manager.validate(third);
+			assertEquals(expected.printOutput(), third.printOutput());
+			assertEquals(2, manager.getResultCacheHitCount());
+			
+			// Least recently used result is evicted beyond the maximum size
+			for(int quantity=1; quantity <= 2; quantity++) {
+				Session session = new Session(expected.getKnowledgeBase());
+				session.createAndQueueSelection(new InputSelection("pcix_controller", quantity));
+				manager.validate(session);
+			}
+			assertEquals(2, manager.getResultCacheSize());
+			assertEquals(1, manager.getEvictedResultCount());
+		}
+		finally {
+			manager.setResultCacheLimits(0, 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#validate(adragha.rules.engine.Session)} with a registered 
+	 * session served from cached results.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testValidateCachedRegisteredSession() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		
+		try {
+			manager.setResultCacheLimits(2, 0);
+			Session first = manager.createSession("TestKB");
+			first.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+			manager.validate(first);
+			
+			// Session served from cache keeps its ID and can still be found and removed
+			int sessionCount = manager.getSessionCount();
+			Session second = manager.createSession("TestKB");
+			String sessionId = second.getSessionId();
+			second.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+			manager.validate(second);
+			assertEquals(1, manager.getResultCacheHitCount());
+			assertEquals(first.printOutput(), second.printOutput());
+			assertEquals(sessionId, second.getSessionId());
+			assertSame(second, manager.getSession(sessionId));
+			assertEquals(sessionCount + 1, manager.getSessionCount());
+			manager.removeSession(second);
+			assertNull(manager.getSession(sessionId));
+			assertEquals(sessionCount, manager.getSessionCount());
+			manager.removeSession(first);
+		}
+		finally {
+			manager.setResultCacheLimits(0, 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#getKnowledgeBaseVersion(java.lang.String)}.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetKnowledgeBaseVersion() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		manager.removeSession(manager.createSession("TestKB"));
+		assertTrue(manager.getKnowledgeBaseVersion("TestKB") > 0);
+		assertEquals(0, manager.getKnowledgeBaseVersion("MissingKB"));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#startModelWatcher()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testStartModelWatcher() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		manager.removeSession(manager.createSession("TestKB"));
+		long version = manager.getKnowledgeBaseVersion("TestKB");
+		
+		manager.startModelWatcher();
+		try {
+			assertTrue(manager.isModelWatcherRunning());
+			
+			// Touch a model file and wait for background reload
+			File modelFile = new File(manager.getProperty(Constants.MODEL_PATH) + File.separator + "TestKB").listFiles()[0];
+			modelFile.setLastModified(System.currentTimeMillis());
+			for(int i=0; i < 100 && manager.getKnowledgeBaseVersion("TestKB") == version; i++) {
+				Thread.sleep(100);
+			}
+			assertTrue(manager.getKnowledgeBaseVersion("TestKB") > version);
+		}
+		finally {
+			manager.stopModelWatcher();
+		}
+		assertFalse(manager.isModelWatcherRunning());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#compileKnowledgeBase(java.lang.String)} without snapshot path.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test(expected = EngineException.class)
+	public final void testFailureCompileKnowledgeBase() throws IOException, EngineException {
+		SessionManager.getManager().compileKnowledgeBase("TestKB");
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.SessionManager#restoreSession(java.lang.String)}.
 	 * @throws IOException 
@@ -86,7 +669,178 @@ public class SessionManagerTest {
 	@Test
 	public final void testRestoreSession() throws IOException, EngineException {
 		SessionManager manager = SessionManager.getManager();
-		assertNotNull(manager.restoreSession(manager.getProperty(Constants.SAVE_PATH) + "test01_input.json"));
+		int sessionCount = manager.getSessionCount();
+		Session session = manager.restoreSession(manager.getProperty(Constants.SAVE_PATH) + "test01_input.json");
+		assertNotNull(session);
+		assertEquals(sessionCount + 1, manager.getSessionCount());
+		manager.removeSession(session);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#getSession(java.lang.String)}.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetSession() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		Session session = manager.createSession("TestKB");
+		assertSame(session, manager.getSession(session.getSessionId()));
+		manager.removeSession(session);
+		assertNull(manager.getSession(session.getSessionId()));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#evictSessions()} with idle time to live.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testEvictSessionsIdle() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		Session session = manager.createSession("TestKB");
+		Thread.sleep(20);
+		
+		manager.setSessionLimits(10, 0);
+		try {
+			assertTrue(manager.evictSessions() > 0);
+			assertNull(manager.getSession(session.getSessionId()));
+		}
+		finally {
+			manager.setSessionLimits(0, 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#evictSessions()} with maximum session count.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testEvictSessionsMaximum() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		Session oldSession = manager.createSession("TestKB");
+		Thread.sleep(5);
+		
+		manager.setSessionLimits(0, 1);
+		try {
+			Session newSession = manager.createSession("TestKB");
+			assertEquals(1, manager.getSessionCount());
+			assertNull(manager.getSession(oldSession.getSessionId()));
+			assertSame(newSession, manager.getSession(newSession.getSessionId()));
+			manager.removeSession(newSession);
+		}
+		finally {
+			manager.setSessionLimits(0, 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#evictSessions()} concurrently with validation.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testEvictSessionsDuringValidation() throws Exception {
+		final SessionManager manager = SessionManager.getManager();
+		final Session session = manager.createSession("TestKB");
+		final boolean[] evictedDuringValidation = new boolean[] { true };
+		session.setSelectionListener(new ISelectionListener() {
+			@Override
+			public void selectionValidated(Session listenedSession, SessionObject selection, boolean successful, List<SessionObject> createdObjects) {
+				try {
+					Thread.sleep(5);
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				manager.evictSessions();
+				evictedDuringValidation[0] = listenedSession.isEvicted();
+			}
+		});
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		
+		manager.setSessionLimits(1, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			// Session being validated is skipped by eviction
+			session.validateSelections();
+			assertFalse(evictedDuringValidation[0]);
+			
+			// Idle session is evicted, after which it cannot be changed or validated
+			Thread.sleep(5);
+			manager.evictSessions();
+			assertTrue(session.isEvicted());
+			assertNull(manager.getSession(session.getSessionId()));
+			try {
+				session.validateSelections();
+				fail("Evicted session validated");
+			}
+			catch(EngineException e) {
+				assertTrue(e.getMessage().contains("evicted"));
+			}
+			
+			// Concurrent validations either complete or fail cleanly on an evicted session
+			manager.setSessionLimits(1, 1);
+			List<Future<Boolean>> validations = new ArrayList<Future<Boolean>>();
+			for(int i=0; i < 16; i++) {
+				validations.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						Session validatedSession = manager.createSession("TestKB");
+						try {
+							validatedSession.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+							validatedSession.validateSelections();
+							return true;
+						}
+						catch(EngineException e) {
+							assertTrue(validatedSession.isEvicted());
+							return false;
+						}
+					}
+				}));
+			}
+			for(Future<Boolean> validation : validations) {
+				validation.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			manager.setSessionLimits(0, 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#getEvictedSessionCount()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testGetEvictedSessionCount() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		long evictedCount = manager.getEvictedSessionCount();
+		manager.createSession("TestKB");
+		Thread.sleep(20);
+		
+		manager.setSessionLimits(10, 0);
+		try {
+			manager.evictSessions();
+			assertTrue(manager.getEvictedSessionCount() > evictedCount);
+		}
+		finally {
+			manager.setSessionLimits(0, 0);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionManager#getSessionObjectCount()}.
+	 * @throws IOException 
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetSessionObjectCount() throws IOException, EngineException {
+		SessionManager manager = SessionManager.getManager();
+		Session session = manager.createSession("TestKB");
+		long objectCount = manager.getSessionObjectCount();
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		assertTrue(manager.getSessionObjectCount() > objectCount);
+		manager.removeSession(session);
 	}
 
 	/**
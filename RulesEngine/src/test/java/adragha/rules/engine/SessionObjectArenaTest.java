@@ -0,0 +1,104 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link adragha.rules.engine.SessionObjectArena}.
+ * 
+ * @author adragha
+ *
+ */
+public class SessionObjectArenaTest {
+	/** Test session created by setUp() method */
+	private Session session;
+	
+	/** Test arena created by setUp() method */
+	private SessionObjectArena arena;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		SessionManager manager = SessionManager.getManager();
+		session = manager.createSession("TestKB");
+		arena = new SessionObjectArena();
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionObjectArena#obtainParent(adragha.rules.engine.Session, adragha.rules.engine.ModelObject, java.lang.String)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testObtainParent() throws EngineException {
+		SessionObject object = arena.obtainParent(session, session.getKnowledgeBase().getModelObject("pcie_controller"), "1001");
+		assertTrue("1001".equals(object.getObjectId()));
+		assertTrue(arena.getAllocatedCount() == 1);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionObjectArena#obtainChild(adragha.rules.engine.SessionObject, adragha.rules.engine.ModelObject, java.lang.String)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testObtainChild() throws EngineException {
+		SessionObject parent = arena.obtainParent(session, session.getKnowledgeBase().getModelObject("pcie_backplane_2_slot"), "1001");
+		SessionObject child = arena.obtainChild(parent, session.getKnowledgeBase().getModelObject("controller_slot"), "1001:2");
+		assertTrue(child.getParentObject() == parent);
+		assertTrue(arena.getAllocatedCount() == 2);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionObjectArena#release(adragha.rules.engine.SessionObject)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testRelease() throws EngineException {
+		SessionObject object = arena.obtainParent(session, session.getKnowledgeBase().getModelObject("pcie_controller"), "1001");
+		session.removeFromSession(object);
+		arena.release(object);
+		assertTrue(arena.getFreeCount() == 1);
+		assertTrue(arena.obtainParent(session, session.getKnowledgeBase().getModelObject("pcix_controller"), "1002") == object);
+		assertTrue("pcix_controller".equals(object.getModelObject().getObjectId()));
+		assertTrue(arena.getReusedCount() == 1);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionObjectArena#clear()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testClear() throws EngineException {
+		SessionObject object = arena.obtainParent(session, session.getKnowledgeBase().getModelObject("pcie_controller"), "1001");
+		session.removeFromSession(object);
+		arena.release(object);
+		arena.clear();
+		assertTrue(arena.getFreeCount() == 0);
+	}
+}
@@ -144,6 +144,45 @@ public class SessionObjectTest {
 		object.getChildNeeders().remove(0);
 	}
 
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionObject#getChildProviders()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetChildProviders() throws EngineException {
+		SessionObject object = session.createSessionObject("pcie_backplane_2_slot");
+		ModelObject childProviderModelObject = session.getKnowledgeBase().getModelObject("controller_slot");
+		assertTrue(session.getSessionObjects(childProviderModelObject).size() == 0);
+		assertTrue(object.getChildProviders().size() == 2);
+		assertTrue(session.getSessionObjects(childProviderModelObject).size() == 2);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionObject#getChildProvider(int)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetChildProvider() throws EngineException {
+		SessionObject object = session.createSessionObject("pcie_backplane_2_slot");
+		SessionObject childProvider = object.getChildProvider(1);
+		assertTrue("1001:3".equals(childProvider.getObjectId()));
+		assertTrue(childProvider == object.getChildProvider(1));
+		assertTrue(object.getMaterializedProviderCount() == 1);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionObject#canChildProviderSatisfy(int, java.lang.String, double)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testCanChildProviderSatisfy() throws EngineException {
+		SessionObject object = session.createSessionObject("pcie_backplane_2_slot");
+		assertTrue(object.canChildProviderSatisfy(0, "PCISlot", 1.0));
+		assertFalse(object.canChildProviderSatisfy(0, "PCISlot", 2.0));
+		assertFalse(object.canChildProviderSatisfy(0, "BackplaneBay", 1.0));
+		assertTrue(object.getMaterializedProviderCount() == 0);
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.SessionObject#getSession()}.
 	 * @throws EngineException 
@@ -0,0 +1,112 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link adragha.rules.engine.SessionResultCache}.
+ * 
+ * @author adragha
+ *
+ */
+public class SessionResultCacheTest {
+	/** Test session template created by setUp() method */
+	private Session template;
+	
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		template = new Session(SessionManager.getManager().getKnowledgeBase("TestKB"));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionResultCache#get(java.lang.String)}.
+	 */
+	@Test
+	public final void testGet() {
+		SessionResultCache cache = new SessionResultCache(2, 0);
+		assertNull(cache.get("A"));
+		cache.put("A", template);
+		assertSame(template, cache.get("A"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionResultCache#put(java.lang.String, adragha.rules.engine.Session)}.
+	 */
+	@Test
+	public final void testPut() {
+		SessionResultCache cache = new SessionResultCache(2, 0);
+		cache.put("A", template);
+		cache.put("B", template);
+		cache.get("A");
+		cache.put("C", template);
+		
+		// Least recently used result is evicted
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictedCount());
+		assertNull(cache.get("B"));
+		assertSame(template, cache.get("A"));
+		
+		// Nothing is cached when disabled
+		cache = new SessionResultCache(0, 0);
+		assertFalse(cache.isEnabled());
+		cache.put("A", template);
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionResultCache#get(java.lang.String)} with expired results.
+	 * @throws InterruptedException 
+	 */
+	@Test
+	public final void testGetExpired() throws InterruptedException {
+		SessionResultCache cache = new SessionResultCache(2, 5);
+		cache.put("A", template);
+		Thread.sleep(20);
+		assertNull(cache.get("A"));
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.getEvictedCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SessionResultCache#remove(java.lang.String)}.
+	 */
+	@Test
+	public final void testRemove() {
+		SessionResultCache cache = new SessionResultCache(3, 0);
+		cache.put("KB1#1{a=1}", template);
+		cache.put("KB1#1{a=2}", template);
+		cache.put("KB2#1{a=1}", template);
+		assertEquals(2, cache.remove("KB1#"));
+		assertEquals(1, cache.size());
+	}
+}
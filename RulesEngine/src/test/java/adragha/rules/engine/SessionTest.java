@@ -25,6 +25,11 @@ package adragha.rules.engine;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -132,6 +137,41 @@ public class SessionTest {
 		assertTrue(session.getSessionObjects(session.getKnowledgeBase().getModelObject("pcie_controller")).size() == 2);
 	}
 
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#recycleSessionObject(adragha.rules.engine.SessionObject)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testRecycleSessionObject() throws EngineException {
+		SessionObject recycleObject = session.createSessionObject("pcie_backplane_2_slot");
+		recycleObject.getChildProviders();
+		session.recycleSessionObject(recycleObject);
+		assertTrue(session.getSessionObjectCount(session.getKnowledgeBase().getModelObject("controller_slot")) == 0);
+		assertTrue(session.createSessionObject("pcie_controller") == recycleObject);
+		assertTrue(session.getReusedObjectCount() == 1);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#getAllocatedObjectCount()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetAllocatedObjectCount() throws EngineException {
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+		assertTrue(session.getAllocatedObjectCount() == 3);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#getReusedObjectCount()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetReusedObjectCount() throws EngineException {
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		session.validateSelections();
+		assertTrue(session.getReusedObjectCount() > 0);
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.Session#prepareForDeletion()}.
 	 * @throws EngineException 
@@ -153,6 +193,564 @@ public class SessionTest {
 		assertNotNull(session.getSessionObject("pcie_controller", "1001"));
 	}
 
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#validateSelections(adragha.rules.engine.CancellationToken)}
+	 * with cancelled token, followed by resumed validation.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testValidateSelectionsCancelled() throws EngineException {
+		Session expected = new Session(session.getKnowledgeBase());
+		expected.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		expected.validateSelections();
+		
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		try {
+			session.validateSelections(token);
+			fail("Expected ValidationCancelledException");
+		}
+		catch(ValidationCancelledException e) {
+			assertEquals("Validation cancelled", e.getMessage());
+		}
+		assertFalse(session.isValidationInProgress());
+		
+		// Resume validation
+		session.validateSelections(new CancellationToken());
+		assertEquals(expected.printOutput(), session.printOutput());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#validateSelections(adragha.rules.engine.CancellationToken)}
+	 * with deadline exceeded.
+	 * @throws EngineException 
+	 */
+	@Test(expected = ValidationCancelledException.class)
+	public final void testValidateSelectionsDeadline() throws EngineException {
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		session.validateSelections(CancellationToken.withTimeout(0, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#validateSelections(adragha.rules.engine.CancellationToken)}
+	 * with deadlines at varying points of validation, each followed by resumed validation.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testValidateSelectionsResumed() throws EngineException {
+		Session expected = new Session(session.getKnowledgeBase());
+		expected.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+		expected.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		expected.validateSelections();
+		
+		for(long timeout = 0; timeout <= 6400; timeout = timeout == 0 ? 50 : timeout * 2) {
+			Session cancelled = new Session(session.getKnowledgeBase());
+			cancelled.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+			cancelled.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+			try {
+				cancelled.validateSelections(CancellationToken.withTimeout(timeout, TimeUnit.MICROSECONDS));
+			}
+			catch(ValidationCancelledException e) {
+				cancelled.validateSelections();
+			}
+			assertEquals(expected.printOutput(), cancelled.printOutput());
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#addSelection(adragha.rules.engine.InputSelection, adragha.rules.engine.CancellationToken)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testAddSelection() throws EngineException {
+		Session expected = new Session(session.getKnowledgeBase());
+		expected.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+		expected.validateSelections();
+		expected.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		expected.validateSelections();
+		
+		// Add one selection at a time to a validated session
+		session.addSelection(new InputSelection("pcie_controller", 3), null);
+		String firstOutput = session.printOutput();
+		long allocatedCount = session.getAllocatedObjectCount();
+		session.addSelection(new InputSelection("pcix_controller", 13), null);
+		assertEquals(expected.printOutput(), session.printOutput());
+		assertFalse(firstOutput.equals(session.printOutput()));
+		assertTrue(session.getAllocatedObjectCount() > allocatedCount);
+		assertEquals(2, session.getInputSelections().size());
+		
+		// Previously validated selections keep their solution
+		for(SessionObject object : session.getSessionObjects(session.getKnowledgeBase().getModelObject("pcie_controller"))) {
+			assertTrue(firstOutput.contains(object.printDetails(Constants.EMPTY, false)));
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#removeSelection(adragha.rules.engine.InputSelection, adragha.rules.engine.CancellationToken)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testRemoveSelection() throws EngineException {
+		Session expected = new Session(session.getKnowledgeBase());
+		expected.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+		expected.validateSelections();
+		
+		// Removing the last selection leaves the solution of the first one, with orphaned providers removed 
+		session.addSelection(new InputSelection("pcie_controller", 3), null);
+		session.addSelection(new InputSelection("pcix_controller", 13), null);
+		session.removeSelection(new InputSelection("pcix_controller", 13), null);
+		assertEquals(expected.printOutput(), session.printOutput());
+		assertEquals(0, session.getSessionObjectCount(session.getKnowledgeBase().getModelObject("pcix_backplane_3_slot")));
+		assertEquals(1, session.getInputSelections().size());
+		
+		// Partial removal keeps the rest of the selection
+		session.addSelection(new InputSelection("pcix_controller", 5), null);
+		session.removeSelection(new InputSelection("pcix_controller", 2), null);
+		assertEquals(3, session.getSessionObjectCount(session.getKnowledgeBase().getModelObject("pcix_controller")));
+		assertEquals(3, session.getInputSelections().get(1).getSelectionQuantity());
+		assertFalse(session.printOutput().contains(ValidationStatus.FAILED.toString()));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#removeSelection(adragha.rules.engine.InputSelection, adragha.rules.engine.CancellationToken)}
+	 * with needers of remaining objects losing their satisfying provider.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testRemoveSelectionRepair() throws EngineException {
+		ModelObject drawer = session.getKnowledgeBase().getModelObject("pciex_slot_drawer");
+		session.addSelection(new InputSelection("pciex_slot_drawer", 1), null);
+		String selectedDrawerId = session.getSessionObjects(drawer).get(0).getObjectId();
+		session.addSelection(new InputSelection("pcix_controller", 3), null);
+		assertEquals(1, session.getSessionObjectCount(drawer));
+		Session fork = session.fork();
+		
+		// Backplane in the selected drawer is moved to a new drawer
+		session.removeSelection(new InputSelection("pciex_slot_drawer", 1), null);
+		assertEquals(1, session.getSessionObjectCount(drawer));
+		assertFalse(selectedDrawerId.equals(session.getSessionObjects(drawer).get(0).getObjectId()));
+		for(SessionObject backplane : session.getSessionObjects(session.getKnowledgeBase().getModelObject("pcix_backplane_3_slot"))) {
+			assertEquals(ValidationStatus.SUCCESSFUL, backplane.getValidationStatus());
+		}
+		assertEquals(1, session.getInputSelections().size());
+		
+		// Fork finds the needers satisfied by the selected drawer the same way
+		fork.removeSelection(new InputSelection("pciex_slot_drawer", 1), null);
+		assertEquals(session.printOutput(), fork.printOutput());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#removeSelection(adragha.rules.engine.InputSelection, adragha.rules.engine.CancellationToken)}
+	 * with more than the quantity selected.
+	 * @throws EngineException 
+	 */
+	@Test(expected = EngineException.class)
+	public final void testFailureRemoveSelection() throws EngineException {
+		session.addSelection(new InputSelection("pcie_controller", 3), null);
+		session.removeSelection(new InputSelection("pcie_controller", 4), null);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#setOptimizationBudget(long)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testSetOptimizationBudget() throws EngineException {
+		KnowledgeBase knowledgeBase = session.getKnowledgeBase();
+		Session firstSolution = new Session(knowledgeBase);
+		firstSolution.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		firstSolution.validateSelections();
+		assertEquals(1, firstSolution.getSessionObjectCount(knowledgeBase.getModelObject("pcie_backplane_2_slot")));
+		
+		// Cheaper backplane found after the first solution is used instead
+		session.setOptimizationBudget(60000);
+		assertEquals(60000, session.getOptimizationBudget());
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 4));
+		session.validateSelections();
+		assertEquals(0, session.getSessionObjectCount(knowledgeBase.getModelObject("pcie_backplane_2_slot")));
+		assertEquals(2, session.getSessionObjectCount(knowledgeBase.getModelObject("pcix_backplane_3_slot")));
+		assertFalse(session.printOutput().contains(ValidationStatus.FAILED.toString()));
+		
+		// Search is deterministic
+		Session optimized = new Session(knowledgeBase);
+		optimized.setOptimizationBudget(60000);
+		optimized.createAndQueueSelection(new InputSelection("pcie_controller", 4));
+		optimized.validateSelections();
+		assertEquals(session.printOutput(), optimized.printOutput());
+		
+		// Budget is cleared on reset
+		session.reset();
+		assertEquals(0, session.getOptimizationBudget());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#setOptimizationBudget(long)} with a small budget, 
+	 * which must stop the search promptly and still validate every input selection.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testSetOptimizationBudgetSmall() throws EngineException {
+		session.setOptimizationBudget(1);
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 12));
+		long start = System.currentTimeMillis();
+		session.validateSelections();
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		
+		String output = session.printOutput();
+		assertFalse(output.contains(ValidationStatus.FAILED.toString()));
+		assertFalse(output.contains(ValidationStatus.UNVALIDATED.toString()));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#enumerateSolutions(int, adragha.rules.engine.ISolutionListener, adragha.rules.engine.CancellationToken)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testEnumerateSolutions() throws EngineException {
+		final List<SolutionSnapshot> solutions = new ArrayList<SolutionSnapshot>();
+		ISolutionListener listener = new ISolutionListener() {
+			@Override
+			public void solutionFound(Session listenedSession, SolutionSnapshot solution) {
+				assertEquals(session, listenedSession);
+				solutions.add(solution);
+			}
+		};
+		Session expected = new Session(session.getKnowledgeBase());
+		expected.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		expected.validateSelections();
+		
+		// Distinct solutions are streamed in order found, with the first one matching validation
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		assertEquals(2, session.enumerateSolutions(10, listener, null));
+		assertEquals(2, solutions.size());
+		assertEquals(1, solutions.get(0).getQuantities().get("pcie_backplane_2_slot").intValue());
+		assertEquals(1, solutions.get(1).getQuantities().get("pcix_backplane_3_slot").intValue());
+		assertEquals(3, solutions.get(0).getPartCount());
+		assertEquals(750.0, solutions.get(0).getPrice(), 0.0001);
+		assertEquals(700.0, solutions.get(1).getPrice(), 0.0001);
+		assertFalse(solutions.get(0).getCanonicalForm().equals(solutions.get(1).getCanonicalForm()));
+		
+		// Session is left with its selections queued
+		session.validateSelections();
+		assertEquals(expected.printOutput(), session.printOutput());
+		
+		// Enumeration stops at the maximum
+		solutions.clear();
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 1));
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 2));
+		assertEquals(1, session.enumerateSolutions(1, listener, null));
+		assertEquals(1, solutions.size());
+		assertEquals(1, solutions.get(0).getSolutionNumber());
+		
+		// Once the alternatives of the later selection are exhausted, the earlier selection takes a different alternative
+		solutions.clear();
+		Session twoSelections = new Session(session.getKnowledgeBase());
+		twoSelections.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		twoSelections.createAndQueueSelection(new InputSelection("pcix_controller", 1));
+		assertEquals(5, twoSelections.enumerateSolutions(10, new ISolutionListener() {
+			@Override
+			public void solutionFound(Session listenedSession, SolutionSnapshot solution) {
+				solutions.add(solution);
+			}
+		}, null));
+		assertEquals(1, solutions.get(0).getQuantities().get("pcie_backplane_2_slot").intValue());
+		assertEquals(1, solutions.get(1).getQuantities().get("pcie_backplane_2_slot").intValue());
+		assertNull(solutions.get(2).getQuantities().get("pcie_backplane_2_slot"));
+		assertEquals(1, solutions.get(2).getQuantities().get("pcix_backplane_3_slot").intValue());
+		
+		// No solutions stream if a selection cannot be satisfied
+		solutions.clear();
+		Session failing = new Session(session.getKnowledgeBase());
+		failing.createAndQueueSelection(new InputSelection("large_pci_backplane_2_slot", 1));
+		assertEquals(0, failing.enumerateSolutions(10, listener, null));
+		assertTrue(solutions.isEmpty());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#enumerateSolutions(int, adragha.rules.engine.ISolutionListener, adragha.rules.engine.CancellationToken)}
+	 * with invalid arguments.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testFailureEnumerateSolutions() throws EngineException {
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		String queuedOutput = session.printOutput();
+		ISolutionListener listener = new ISolutionListener() {
+			@Override
+			public void solutionFound(Session listenedSession, SolutionSnapshot solution) {
+			}
+		};
+		
+		// Rejected without changing the session
+		try {
+			session.enumerateSolutions(0, listener, null);
+			fail("Expected EngineException");
+		}
+		catch(EngineException e) {
+			assertEquals(queuedOutput, session.printOutput());
+		}
+		try {
+			session.enumerateSolutions(1, null, null);
+			fail("Expected EngineException");
+		}
+		catch(EngineException e) {
+			assertEquals(queuedOutput, session.printOutput());
+		}
+		assertFalse(session.isValidationInProgress());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#getReplayedSelectionCount()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetReplayedSelectionCount() throws EngineException {
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 12));
+		session.validateSelections();
+		
+		// Only the first of the identical failed selections is searched, and the rest fail the same way.
+		// Two successful selections are also validated against the same provider state as one before.
+		int failedCount = 0;
+		for(SessionObject controller : session.getSessionObjects(session.getKnowledgeBase().getModelObject("pcie_controller"))) {
+			if (controller.getValidationStatus() == ValidationStatus.FAILED) {
+				failedCount++;
+			}
+		}
+		assertEquals(4, failedCount);
+		assertEquals(failedCount - 1 + 2, session.getReplayedSelectionCount());
+		
+		// Same output when the identical selections are queued one at a time
+		Session expected = new Session(session.getKnowledgeBase());
+		for(int i=0; i < 12; i++) {
+			expected.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		}
+		expected.validateSelections();
+		assertEquals(expected.printOutput(), session.printOutput());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#getReplayedSelectionCount()} with identical successful selections.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testGetReplayedSelectionCountSuccessful() throws EngineException {
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 12));
+		session.validateSelections();
+		
+		// Selections validated against the same provider state as one before are satisfied the same way without searching
+		assertFalse(session.printOutput().contains(ValidationStatus.FAILED.toString()));
+		assertEquals(4, session.getReplayedSelectionCount());
+		
+		// Same output when each selection is searched, since successful validations are not replayed when optimizing
+		// and the first solution of each selection is also the cheapest
+		Session expected = new Session(session.getKnowledgeBase());
+		expected.setOptimizationBudget(60000);
+		expected.createAndQueueSelection(new InputSelection("pcix_controller", 12));
+		expected.validateSelections();
+		assertEquals(0, expected.getReplayedSelectionCount());
+		assertEquals(expected.printOutput(), session.printOutput());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#setSelectionListener(adragha.rules.engine.ISelectionListener)}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testSetSelectionListener() throws EngineException {
+		final List<SessionObject> selections = new ArrayList<SessionObject>();
+		final List<SessionObject> created = new ArrayList<SessionObject>();
+		final int[] successCount = new int[1];
+		session.setSelectionListener(new ISelectionListener() {
+			@Override
+			public void selectionValidated(Session listenedSession, SessionObject selection, boolean successful, List<SessionObject> createdObjects) {
+				assertEquals(session, listenedSession);
+				selections.add(selection);
+				created.addAll(createdObjects);
+				successCount[0] += successful ? 1 : 0;
+			}
+		});
+		
+		// Each selection is reported once, with the providers created for it
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+		session.validateSelections();
+		assertEquals(3, selections.size());
+		assertEquals(3, successCount[0]);
+		assertFalse(created.isEmpty());
+		for(SessionObject object : created) {
+			assertFalse(selections.contains(object));
+			assertEquals(object, session.getSessionObject(object.getModelObject().getObjectId(), object.getObjectId()));
+		}
+		
+		// Failing listener does not stop validation
+		session.setSelectionListener(new ISelectionListener() {
+			@Override
+			public void selectionValidated(Session listenedSession, SessionObject selection, boolean successful, List<SessionObject> createdObjects) {
+				throw new IllegalStateException("Listener failure");
+			}
+		});
+		session.addSelection(new InputSelection("pcie_controller", 1), null);
+		assertEquals(2, session.getInputSelections().size());
+		assertFalse(session.printOutput().contains(ValidationStatus.FAILED.toString()));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#setSelectionListener(adragha.rules.engine.ISelectionListener)}
+	 * with selections validated as a side effect of validating earlier selections.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testSetSelectionListenerSideEffect() throws EngineException {
+		final List<SessionObject> selections = new ArrayList<SessionObject>();
+		final List<ValidationStatus> statuses = new ArrayList<ValidationStatus>();
+		session.setSelectionListener(new ISelectionListener() {
+			@Override
+			public void selectionValidated(Session listenedSession, SessionObject selection, boolean successful, List<SessionObject> createdObjects) {
+				selections.add(selection);
+				statuses.add(selection.getValidationStatus());
+			}
+		});
+		
+		// Selected backplanes provide slots to the controllers, so some are validated while validating the controllers
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 1));
+		session.createAndQueueSelection(new InputSelection("pcie_backplane_2_slot", 1));
+		session.createAndQueueSelection(new InputSelection("pcix_backplane_3_slot", 2));
+		session.validateSelections();
+		
+		// Each selection is reported once, after it is resolved
+		assertEquals(5, selections.size());
+		assertEquals(5, new HashSet<SessionObject>(selections).size());
+		for(ValidationStatus status : statuses) {
+			assertEquals(ValidationStatus.SUCCESSFUL, status);
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#fork()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testFork() throws Exception {
+		final Session expected1 = new Session(session.getKnowledgeBase());
+		expected1.addSelection(new InputSelection("pcie_controller", 3), null);
+		expected1.addSelection(new InputSelection("pcix_controller", 13), null);
+		final Session expected2 = new Session(session.getKnowledgeBase());
+		expected2.addSelection(new InputSelection("pcie_controller", 3), null);
+		expected2.addSelection(new InputSelection("pciex_slot_drawer", 1), null);
+		
+		session.addSelection(new InputSelection("pcie_controller", 3), null);
+		String baseOutput = session.printOutput();
+		final Session fork1 = session.fork();
+		final Session fork2 = session.fork();
+		assertFalse(fork1.getSessionId().equals(session.getSessionId()));
+		assertEquals(baseOutput, fork1.printOutput());
+		
+		// Validate different additions to the forks concurrently
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					fork1.addSelection(new InputSelection("pcix_controller", 13), null);
+				}
+				catch(EngineException e) {
+					Session.logger.error("Fork validation failed", e);
+				}
+			}
+		});
+		thread.start();
+		fork2.addSelection(new InputSelection("pciex_slot_drawer", 1), null);
+		thread.join();
+		
+		assertEquals(expected1.printOutput(), fork1.printOutput());
+		assertEquals(expected2.printOutput(), fork2.printOutput());
+		assertEquals(baseOutput, session.printOutput());
+		
+		// Forks support removal of selections made before forking
+		fork1.removeSelection(new InputSelection("pcie_controller", 3), null);
+		assertEquals(0, fork1.getSessionObjectCount(session.getKnowledgeBase().getModelObject("pcie_controller")));
+		assertEquals(baseOutput, session.printOutput());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#reset()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testReset() throws EngineException {
+		Session expected1 = new Session(session.getKnowledgeBase());
+		expected1.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		expected1.validateSelections();
+		Session expected2 = new Session(session.getKnowledgeBase());
+		expected2.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+		expected2.validateSelections();
+		
+		// Validate, reset and validate different selections
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		session.validateSelections();
+		assertEquals(expected1.printOutput(), session.printOutput());
+		long allocatedCount = session.getAllocatedObjectCount();
+		String sessionId = session.getSessionId();
+		session.reset();
+		assertEquals(sessionId, session.getSessionId());
+		assertEquals(0, session.getSessionObjectCount(session.getKnowledgeBase().getModelObject("pcix_controller")));
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 3));
+		session.validateSelections();
+		assertEquals(expected2.printOutput(), session.printOutput());
+		assertTrue(session.getReusedObjectCount() > 0);
+		
+		// Re-validating the first selections needs fewer new objects than a new session
+		session.reset();
+		session.createAndQueueSelection(new InputSelection("pcix_controller", 13));
+		session.validateSelections();
+		assertEquals(expected1.printOutput(), session.printOutput());
+		assertTrue(session.getAllocatedObjectCount() - allocatedCount < allocatedCount);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#validateSelections()} with interrupted thread.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testValidateSelectionsInterrupted() throws EngineException {
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		Thread.currentThread().interrupt();
+		try {
+			session.validateSelections();
+			fail("Expected ValidationCancelledException");
+		}
+		catch(ValidationCancelledException e) {
+			assertEquals("Validation interrupted", e.getMessage());
+		}
+		finally {
+			Thread.interrupted();
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#getLastAccessTime()}.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testGetLastAccessTime() throws Exception {
+		long lastAccessTime = session.getLastAccessTime();
+		Thread.sleep(5);
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		assertTrue(session.getLastAccessTime() > lastAccessTime);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Session#isValidationInProgress()}.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testIsValidationInProgress() throws EngineException {
+		session.createAndQueueSelection(new InputSelection("pcie_controller", 1));
+		assertFalse(session.isValidationInProgress());
+		session.validateSelections();
+		assertFalse(session.isValidationInProgress());
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.Session#printOutput()}.
 	 * @throws EngineException 
@@ -0,0 +1,106 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@link adragha.rules.engine.SolutionSnapshot}.
+ * 
+ * @author adragha
+ *
+ */
+public class SolutionSnapshotTest {
+	/** Test solution snapshot created by setUp() method */
+	private SolutionSnapshot solution;
+	
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		Session session = new Session(SessionManager.getManager().getKnowledgeBase("TestKB"));
+		List<SessionObject> parentObjects = new ArrayList<SessionObject>();
+		parentObjects.add(session.createSessionObject("pcix_backplane_3_slot"));
+		parentObjects.add(session.createSessionObject("pciex_slot_drawer"));
+		parentObjects.add(session.createSessionObject("pcix_backplane_3_slot"));
+		solution = new SolutionSnapshot(3, parentObjects);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SolutionSnapshot#getSolutionNumber()}.
+	 */
+	@Test
+	public final void testGetSolutionNumber() {
+		assertEquals(3, solution.getSolutionNumber());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SolutionSnapshot#getQuantities()}.
+	 */
+	@Test
+	public final void testGetQuantities() {
+		assertEquals(2, solution.getQuantities().get("pcix_backplane_3_slot").intValue());
+		assertEquals(1, solution.getQuantities().get("pciex_slot_drawer").intValue());
+		assertEquals(2, solution.getQuantities().size());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SolutionSnapshot#getPrice()}.
+	 */
+	@Test
+	public final void testGetPrice() {
+		assertEquals(900.0, solution.getPrice(), 0.0001);
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SolutionSnapshot#getPartCount()}.
+	 */
+	@Test
+	public final void testGetPartCount() {
+		assertEquals(3, solution.getPartCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SolutionSnapshot#getCanonicalForm()}.
+	 */
+	@Test
+	public final void testGetCanonicalForm() {
+		assertEquals("{pciex_slot_drawer=1, pcix_backplane_3_slot=2}", solution.getCanonicalForm());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.SolutionSnapshot#getQuantities()} being unmodifiable.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public final void testFailureModifyQuantities() {
+		solution.getQuantities().put("pcie_controller", 1);
+	}
+}
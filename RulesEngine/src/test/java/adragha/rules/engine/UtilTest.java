@@ -27,6 +27,8 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -54,6 +56,27 @@ public class UtilTest {
 		assertNotNull(Util.getObjectFromJson(FileUtils.readFileToString(file, Constants.UTF_8), ModelClass.class));
 	}
 
+	/**
+	 * Test method for {@link adragha.rules.engine.Util#getObjectFromJson(java.io.Reader, java.lang.Class)}.
+	 * @throws EngineException 
+	 * @throws IOException 
+	 */
+	@Test
+	public final void testGetObjectFromJsonReader() throws IOException, EngineException {
+		assertNotNull(Util.getObjectFromJson(new StringReader("{ \"valueProperties\": { \"CLASS_ID\": \"Test\" } }"), ModelClass.class));
+		assertNull(Util.getObjectFromJson(new StringReader(""), ModelClass.class));
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Util#getObjectFromJson(java.io.Reader, java.lang.Class)} with trailing content.
+	 * @throws EngineException 
+	 * @throws IOException 
+	 */
+	@Test(expected = EngineException.class)
+	public final void testFailureGetObjectFromJsonReader() throws IOException, EngineException {
+		Util.getObjectFromJson(new StringReader("{ } { }"), ModelClass.class);
+	}
+
 	/**
 	 * Test method for {@link adragha.rules.engine.Util#writeObjectToJson(java.lang.String, java.lang.Object)}.
 	 * @throws EngineException 
@@ -81,4 +104,21 @@ public class UtilTest {
 		Map<String, List<?>> unmodifiableMap = Util.getUnmodifiableMapOfLists(map);
 		unmodifiableMap.put("test_key2", Arrays.asList("test_value1", "test_value2"));
 	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.Util#getUnmodifiableValueMap(java.util.Map)}.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public final void testGetUnmodifiableValueMap() {
+		Map<String, Object> nestedMap = new HashMap<String, Object>();
+		nestedMap.put("test_list", new ArrayList<Object>(Arrays.asList("test_value1", "test_value2")));
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("test_key1", nestedMap);
+		map.put("test_key2", "test_value");
+		
+		// Values are preserved, and lists nested in maps can not be modified
+		Map<String, Object> unmodifiableMap = Util.getUnmodifiableValueMap(map);
+		assertEquals(map, unmodifiableMap);
+		((List<?>) ((Map<?, ?>) unmodifiableMap.get("test_key1")).get("test_list")).clear();
+	}
 }
@@ -0,0 +1,181 @@
+/* 
+ * MIT License
+ * 
+ * Copyright (c) 2019 adragha
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package adragha.rules.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link adragha.rules.engine.ValidationGate}.
+ * 
+ * @author adragha
+ *
+ */
+public class ValidationGateTest {
+
+	/**
+	 * Test method for {@link adragha.rules.engine.ValidationGate#acquire(java.lang.String, java.lang.String)} without limits.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testAcquireUnlimited() throws EngineException {
+		ValidationGate gate = new ValidationGate(0, 0, 0);
+		for(int i=0; i < 10; i++) {
+			gate.acquire("Test KB", "Test Session");
+		}
+		assertEquals(10, gate.getRunningCount());
+		assertEquals(10, gate.getAdmittedCount());
+		gate.release();
+		assertEquals(9, gate.getRunningCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.ValidationGate#acquire(java.lang.String, java.lang.String)} with immediate rejection.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testFailureAcquireQueueFull() throws EngineException {
+		ValidationGate gate = new ValidationGate(2, 0, 0);
+		gate.acquire("Test KB", "Test Session");
+		gate.acquire("Test KB", "Test Session");
+		try {
+			gate.acquire("Test KB", "Test Session");
+			fail("Expected ValidationRejectedException");
+		}
+		catch(ValidationRejectedException e) {
+			assertEquals(1, gate.getRejectedCount());
+		}
+		
+		gate.release();
+		gate.acquire("Test KB", "Test Session");
+		assertEquals(2, gate.getRunningCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.ValidationGate#acquire(java.lang.String, java.lang.String)} with admission timeout.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testFailureAcquireTimeout() throws EngineException {
+		ValidationGate gate = new ValidationGate(1, 1, 20);
+		gate.acquire("Test KB", "Test Session");
+		long startTime = System.nanoTime();
+		try {
+			gate.acquire("Test KB", "Test Session");
+			fail("Expected ValidationRejectedException");
+		}
+		catch(ValidationRejectedException e) {
+			assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(20));
+			assertEquals(0, gate.getQueuedCount());
+			assertEquals(1, gate.getRejectedCount());
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.ValidationGate#acquire(java.lang.String, java.lang.String)} with a queued validation.
+	 * @throws Exception 
+	 */
+	@Test
+	public final void testAcquireQueued() throws Exception {
+		final ValidationGate gate = new ValidationGate(1, 1, 0);
+		final CountDownLatch admitted = new CountDownLatch(1);
+		final AtomicBoolean failed = new AtomicBoolean();
+		gate.acquire("Test KB", "Test Session");
+		
+		Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					gate.acquire("Test KB", "Test Session");
+					admitted.countDown();
+				}
+				catch(EngineException e) {
+					failed.set(true);
+				}
+			}
+		});
+		waiter.start();
+		
+		// Wait for validation to queue, then release the permit to admit it
+		while (gate.getQueuedCount() == 0) {
+			Thread.sleep(1);
+		}
+		assertFalse(admitted.await(20, TimeUnit.MILLISECONDS));
+		gate.release();
+		assertTrue(admitted.await(10, TimeUnit.SECONDS));
+		waiter.join();
+		assertFalse(failed.get());
+		assertEquals(0, gate.getQueuedCount());
+		assertEquals(1, gate.getRunningCount());
+		assertEquals(2, gate.getAdmittedCount());
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.ValidationGate#acquire(java.lang.String, java.lang.String, adragha.rules.engine.CancellationToken)}
+	 * cancelled while waiting.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testFailureAcquireCancelled() throws EngineException {
+		ValidationGate gate = new ValidationGate(1, 1, 0);
+		gate.acquire("Test KB", "Test Session");
+		CancellationToken token = CancellationToken.withTimeout(20, TimeUnit.MILLISECONDS);
+		try {
+			gate.acquire("Test KB", "Test Session", token);
+			fail("Expected ValidationCancelledException");
+		}
+		catch(ValidationCancelledException e) {
+			assertEquals(0, gate.getQueuedCount());
+			assertEquals(1, gate.getRunningCount());
+		}
+	}
+
+	/**
+	 * Test method for {@link adragha.rules.engine.ValidationGate#requestAdmission(java.lang.String, java.lang.String)}
+	 * admitted on release and withdrawn.
+	 * @throws EngineException 
+	 */
+	@Test
+	public final void testRequestAdmission() throws EngineException {
+		ValidationGate gate = new ValidationGate(1, 2, 0);
+		assertTrue(gate.requestAdmission("Test KB", "Test Session").isDone());
+		ValidationGate.Admission first = gate.requestAdmission("Test KB", "Test Session");
+		ValidationGate.Admission second = gate.requestAdmission("Test KB", "Test Session");
+		assertFalse(first.isDone());
+		assertEquals(2, gate.getQueuedCount());
+		
+		// Withdrawn admission is skipped, and release admits the next in arrival order
+		assertTrue(gate.withdraw(first));
+		gate.release();
+		assertTrue(second.isDone() && !second.isCompletedExceptionally());
+		assertFalse(gate.withdraw(second));
+		assertEquals(0, gate.getQueuedCount());
+		assertEquals(1, gate.getRunningCount());
+	}
+}